@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Corre todos os benchmarks deste pacote com o profiler gc do JMH, que junta a
+ * cada resultado a memória alocada por operação (gc.alloc.rate.norm), e grava os
+ * resultados em JSON para poderem ser comparados entre versões.
+ * 
+ * Os benchmarks precisam das bibliotecas jmh-core e jmh-generator-annprocess
+ * (org.openjdk.jmh, versão 1.37) no classpath de compilação, com o processador
+ * de anotações ativo, e devem ser corridos a partir da diretoria do projeto,
+ * para encontrarem a diretoria input. Por exemplo:
+ * 
+ * <pre>
+ * java -cp bin:libraries/*:jmh/* benchmarks.BenchmarksMain output/jmh-1.0.json
+ * </pre>
+ * 
+ * Os argumentos seguintes ao ficheiro de resultados são passados ao JMH como
+ * expressões regulares dos benchmarks a correr (por omissão, todos).
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+public class BenchmarksMain {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder opcoes = new OptionsBuilder();
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                opcoes.include(args[i]);
+            }
+        } else {
+            opcoes.include(BenchmarksMain.class.getPackage().getName() + "\\..*Benchmarks");
+        }
+        Options construidas = opcoes.addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : "output/jmh-resultados.json")
+                .build();
+        new Runner(construidas).run();
+    }
+}
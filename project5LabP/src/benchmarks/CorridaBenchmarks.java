@@ -0,0 +1,105 @@
+package benchmarks;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import project.Atleta;
+import project.Corrida;
+import project.comparators.ComparaAtletaPosFinalAbsoluta;
+
+/**
+ * Benchmarks das operações de Corrida: construção a partir dos ficheiros,
+ * pesquisas por nome e por dorsal, cálculo de posições nos postos, filtros por
+ * escalão e nacionalidade e seleção dos primeiros atletas. Cada benchmark é
+ * medido no campo da UTMB 2023 e em campos de 10 mil, 100 mil e 1 milhão de
+ * atletas (ver DadosBenchmark).
+ * 
+ * As pesquisas percorrem, uma por operação, 1024 nomes e dorsais escolhidos ao
+ * acaso entre os atletas do campo.
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx6g", "-Dfile.encoding=UTF-8" })
+public class CorridaBenchmarks {
+
+    private static final int PESQUISAS = 1024;
+
+    @Param({ DadosBenchmark.UTMB_2023, "10000", "100000", "1000000" })
+    public String campo;
+
+    private String[] ficheiros;
+    private Corrida corrida;
+    private Atleta[] atletas;
+    private String[] nomes;
+    private int[] dorsais;
+    private int proxima;
+
+    @Setup
+    public void prepara() throws IOException {
+        ficheiros = DadosBenchmark.ficheiros(campo);
+        corrida = new Corrida(ficheiros[0], ficheiros[1], ficheiros[2]);
+        atletas = corrida.getAtletas();
+        Random aleatorio = new Random(42);
+        nomes = new String[PESQUISAS];
+        dorsais = new int[PESQUISAS];
+        for (int i = 0; i < PESQUISAS; i++) {
+            Atleta atleta = atletas[aleatorio.nextInt(atletas.length)];
+            nomes[i] = atleta.getNome();
+            dorsais[i] = atleta.getDorsal();
+        }
+    }
+
+    @Benchmark
+    public Corrida construtor() throws FileNotFoundException {
+        return new Corrida(ficheiros[0], ficheiros[1], ficheiros[2]);
+    }
+
+    @Benchmark
+    public int indiceAtletaPorNome() {
+        return corrida.indiceAtletaPorNome(nomes[proxima++ & (PESQUISAS - 1)]);
+    }
+
+    @Benchmark
+    public int indiceAtletaPorNomeLinear() {
+        return Atleta.indiceAtletaPorNome(atletas, nomes[proxima++ & (PESQUISAS - 1)]);
+    }
+
+    @Benchmark
+    public int[] calculaPosicoesPostos() {
+        return corrida.calculaPosicoesPostos(dorsais[proxima++ & (PESQUISAS - 1)]);
+    }
+
+    @Benchmark
+    public Atleta[] seleccionaEscalaoEouNacionalidade() {
+        return Atleta.seleccionaEscalaoEouNacionalidade(atletas, "40-44W", "FRA (FR)");
+    }
+
+    @Benchmark
+    public Atleta[] seleccionaEscalaoEouNacionalidadeBitmaps() {
+        return corrida.seleccionaEscalaoEouNacionalidade("40-44W", "FRA (FR)");
+    }
+
+    @Benchmark
+    public Atleta[] topK() {
+        return corrida.topK(new ComparaAtletaPosFinalAbsoluta(), 10);
+    }
+}
@@ -0,0 +1,104 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ficheiros de entrada usados pelos benchmarks: os ficheiros UTMB 2023 da
+ * diretoria input, ou versões com mais atletas, escritas uma única vez numa
+ * diretoria temporária.
+ * 
+ * Um campo com n atletas é obtido repetindo os atletas da UTMB 2023 até chegar a
+ * n: a cópia c de um atleta tem o dorsal somado de c * 10000 e o nome seguido de
+ * " c", para que dorsais e nomes continuem distintos, e os mesmos tempos.
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+class DadosBenchmark {
+
+    static final String UTMB_2023 = "UTMB_2023";
+
+    private static final String[] SUFIXOS = { "-starters.csv", "-final.csv", "-progress.csv" };
+    private static final int[] LINHAS_CABECALHO = { 3, 3, 1 };
+    private static final int[] COLUNA_NOME = { 1, 2, 1 };
+    private static final int[] COLUNA_DORSAL = { 0, 1, 0 };
+    private static final int DESVIO_DORSAIS = 10000;
+
+    private DadosBenchmark() {
+    }
+
+    /**
+     * Retorna os ficheiros de atletas, classificações e registo de passagens de um
+     * campo, criando-os se for preciso.
+     * 
+     * @param campo UTMB_2023, ou o número de atletas do campo.
+     * @return Os caminhos dos três ficheiros, pela ordem do construtor de Corrida.
+     * @throws IOException Se os ficheiros não puderem ser lidos ou escritos.
+     */
+    static String[] ficheiros(String campo) throws IOException {
+        String[] ficheiros = new String[SUFIXOS.length];
+        if (campo.equals(UTMB_2023)) {
+            for (int i = 0; i < SUFIXOS.length; i++) {
+                ficheiros[i] = "input/" + UTMB_2023 + SUFIXOS[i];
+            }
+            return ficheiros;
+        }
+        int numeroAtletas = Integer.parseInt(campo);
+        File diretoria = new File(System.getProperty("java.io.tmpdir"), "corrida-benchmarks-" + numeroAtletas);
+        diretoria.mkdirs();
+        for (int i = 0; i < SUFIXOS.length; i++) {
+            File ficheiro = new File(diretoria, "CAMPO" + SUFIXOS[i]);
+            if (!ficheiro.exists()) {
+                escreveEscalado(new File("input/" + UTMB_2023 + SUFIXOS[i]), ficheiro, i, numeroAtletas);
+            }
+            ficheiros[i] = ficheiro.getPath();
+        }
+        return ficheiros;
+    }
+
+    // Escreve o ficheiro do tipo dado com numeroAtletas atletas, a partir do
+    // ficheiro original. A cópia c de uma linha só é escrita se a cópia c do seu
+    // atleta couber no campo, o que se decide pela posição do atleta no ficheiro
+    // de atletas original.
+    private static void escreveEscalado(File original, File destino, int tipo, int numeroAtletas)
+            throws IOException {
+        List<String> linhas = Files.readAllLines(original.toPath(), StandardCharsets.UTF_8);
+        List<String> atletasOriginais = Files.readAllLines(new File("input/" + UTMB_2023 + SUFIXOS[0]).toPath(),
+                StandardCharsets.UTF_8);
+        Map<String, Integer> posicoes = new HashMap<>();
+        for (int k = LINHAS_CABECALHO[0]; k < atletasOriginais.size(); k++) {
+            posicoes.putIfAbsent(atletasOriginais.get(k).split(";", -1)[COLUNA_NOME[0]], k - LINHAS_CABECALHO[0]);
+        }
+        int numeroOriginal = atletasOriginais.size() - LINHAS_CABECALHO[0];
+        File temporario = new File(destino.getPath() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporario.toPath(), StandardCharsets.UTF_8)) {
+            for (int k = 0; k < LINHAS_CABECALHO[tipo]; k++) {
+                out.write(linhas.get(k));
+                out.write("\r\n");
+            }
+            for (int c = 0; c * numeroOriginal < numeroAtletas; c++) {
+                for (int k = LINHAS_CABECALHO[tipo]; k < linhas.size(); k++) {
+                    String[] campos = linhas.get(k).split(";", -1);
+                    Integer posicao = tipo == 0 ? k - LINHAS_CABECALHO[0] : posicoes.get(campos[COLUNA_NOME[tipo]]);
+                    if (posicao == null || c * numeroOriginal + posicao >= numeroAtletas) {
+                        continue;
+                    }
+                    if (c > 0) {
+                        int dorsal = Integer.parseInt(campos[COLUNA_DORSAL[tipo]]);
+                        campos[COLUNA_DORSAL[tipo]] = String.valueOf(dorsal + c * DESVIO_DORSAIS);
+                        campos[COLUNA_NOME[tipo]] = campos[COLUNA_NOME[tipo]] + " " + c;
+                    }
+                    out.write(String.join(";", campos));
+                    out.write("\r\n");
+                }
+            }
+        }
+        Files.move(temporario.toPath(), destino.toPath());
+    }
+}
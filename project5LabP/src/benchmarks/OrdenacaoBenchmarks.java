@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import project.Atleta;
+import project.Corrida;
+import project.comparators.*;
+
+/**
+ * Benchmarks da ordenação de todos os atletas de uma corrida por cada um dos
+ * comparadores de project.comparators: com uma cópia de getAtletas() ordenada
+ * por Atleta.ordena(), como nos relatórios, e com a ordenação guardada por
+ * Corrida.getAtletasOrdenados().
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx6g", "-Dfile.encoding=UTF-8" })
+public class OrdenacaoBenchmarks {
+
+    @Param({ DadosBenchmark.UTMB_2023, "10000", "100000", "1000000" })
+    public String campo;
+
+    @Param({ "Dorsal", "Nome", "PosFinalAbsoluta", "TempoNaMeta", "Nacionalidade", "Escalao",
+            "PosFinalEscalao" })
+    public String comparador;
+
+    private Corrida corrida;
+    private Comparator<Atleta> ordem;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void prepara() throws IOException, ReflectiveOperationException {
+        String[] ficheiros = DadosBenchmark.ficheiros(campo);
+        corrida = new Corrida(ficheiros[0], ficheiros[1], ficheiros[2]);
+        ordem = (Comparator<Atleta>) Class.forName("project.comparators.ComparaAtleta" + comparador)
+                .getDeclaredConstructor().newInstance();
+    }
+
+    @Benchmark
+    public Atleta[] ordenaCopia() {
+        Atleta[] atletas = corrida.getAtletas();
+        Atleta.ordena(atletas, ordem);
+        return atletas;
+    }
+
+    @Benchmark
+    public List<Atleta> atletasOrdenados() {
+        return corrida.getAtletasOrdenados(ordem);
+    }
+}
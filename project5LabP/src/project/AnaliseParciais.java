@@ -0,0 +1,261 @@
+package project;
+
+/**
+ * Análise dos parciais de uma corrida, criada por Corrida.analiseParciais(): para
+ * cada atleta e cada segmento entre dois postos consecutivos, a duração do
+ * segmento, os lugares ganhos ou perdidos e o número de ultrapassagens feitas e
+ * sofridas.
+ *
+ * O segmento s vai do posto s ao posto s + 1. Os valores de todos os atletas são
+ * calculados de uma só vez, a partir das posições em cada posto (que vêm dos
+ * registos já ordenados da corrida), e guardados em matrizes de inteiros com uma
+ * linha por posto ou segmento e uma coluna por índice de atleta na corrida. A
+ * análise não é alterada depois de criada e pode ser partilhada por vários
+ * relatórios; reflete a corrida na versão getVersao().
+ *
+ * Um atleta só tem parcial num segmento se tiver passado nos dois postos. Os
+ * lugares ganhos num segmento incluem os que resultam da desistência de atletas
+ * que seguiam à frente; as ultrapassagens contam apenas os atletas que passaram
+ * nos dois postos e trocaram de ordem com o atleta entre eles.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class AnaliseParciais {
+
+    /**
+     * Valor das durações e dos lugares ganhos de um atleta num segmento em que
+     * não passou num dos postos.
+     */
+    public static final int SEM_PARCIAL = Integer.MIN_VALUE;
+
+    private final long versao;
+    private final int numeroAtletas;
+
+    // [posto][atleta]: posição (a partir de 1) e tempo de passagem, ou 0 e
+    // Corrida.MINUTOS_DE_QUEM_NAO_PASSOU se o atleta não passou no posto.
+    private final int[][] posicoes;
+    private final int[][] minutos;
+
+    // [segmento][atleta]
+    private final int[][] duracoes;
+    private final int[][] lugaresGanhos;
+    private final int[][] ultrapassagens;
+    private final int[][] ultrapassadoPor;
+
+    /**
+     * Calcula a análise a partir das posições e dos tempos de passagem de cada
+     * atleta em cada posto, que passam a pertencer à análise.
+     *
+     * @param posicoes    A posição de cada atleta em cada posto, ou 0 se não
+     *                    passou.
+     * @param minutos     O tempo de passagem de cada atleta em cada posto.
+     * @param versao      A versão da corrida a que os dados correspondem.
+     * @param paralelismo O número máximo de threads a usar, com um segmento por
+     *                    tarefa fork-join.
+     * @requires as posições dos atletas que passaram num posto são distintas e
+     *           seguem a ordem dos seus tempos de passagem
+     */
+    AnaliseParciais(int[][] posicoes, int[][] minutos, long versao, int paralelismo) {
+        this.versao = versao;
+        this.posicoes = posicoes;
+        this.minutos = minutos;
+        this.numeroAtletas = posicoes.length == 0 ? 0 : posicoes[0].length;
+        int segmentos = Math.max(0, posicoes.length - 1);
+        this.duracoes = new int[segmentos][numeroAtletas];
+        this.lugaresGanhos = new int[segmentos][numeroAtletas];
+        this.ultrapassagens = new int[segmentos][numeroAtletas];
+        this.ultrapassadoPor = new int[segmentos][numeroAtletas];
+        Executores.paraCada(paralelismo, segmentos, s -> {
+            calculaDiferencas(s);
+            calculaUltrapassagens(s);
+        });
+    }
+
+    // Durações e lugares ganhos no segmento s, por diferença entre as linhas dos
+    // dois postos.
+    private void calculaDiferencas(int s) {
+        int[] posicoesAntes = posicoes[s];
+        int[] posicoesDepois = posicoes[s + 1];
+        int[] minutosAntes = minutos[s];
+        int[] minutosDepois = minutos[s + 1];
+        int[] duracao = duracoes[s];
+        int[] ganhos = lugaresGanhos[s];
+        for (int i = 0; i < numeroAtletas; i++) {
+            boolean passou = posicoesAntes[i] != 0 && posicoesDepois[i] != 0;
+            duracao[i] = passou ? minutosDepois[i] - minutosAntes[i] : SEM_PARCIAL;
+            ganhos[i] = passou ? posicoesAntes[i] - posicoesDepois[i] : SEM_PARCIAL;
+        }
+    }
+
+    // Ultrapassagens no segmento s. Os atletas que passaram nos dois postos são
+    // percorridos pela ordem de chegada ao segundo posto; uma árvore de Fenwick
+    // sobre as posições no primeiro posto conta, para cada atleta, quantos dos
+    // que chegaram antes dele ao segundo posto vinham atrás no primeiro (os que o
+    // ultrapassaram) e, por diferença, quantos dos que vinham à frente no primeiro
+    // posto chegaram depois ao segundo (os que ele ultrapassou).
+    private void calculaUltrapassagens(int s) {
+        int[] posicoesAntes = posicoes[s];
+        int[] posicoesDepois = posicoes[s + 1];
+        int maxima = 0;
+        for (int i = 0; i < numeroAtletas; i++) {
+            maxima = Math.max(maxima, Math.max(posicoesAntes[i], posicoesDepois[i]));
+        }
+        int[] porChegada = new int[maxima + 1]; // índice + 1 por posição no segundo posto
+        int[] aFrenteAntes = new int[maxima + 2]; // contagem acumulada por posição no primeiro
+        for (int i = 0; i < numeroAtletas; i++) {
+            if (posicoesAntes[i] != 0 && posicoesDepois[i] != 0) {
+                porChegada[posicoesDepois[i]] = i + 1;
+                aFrenteAntes[posicoesAntes[i] + 1]++;
+            }
+        }
+        for (int p = 1; p < aFrenteAntes.length; p++) {
+            aFrenteAntes[p] += aFrenteAntes[p - 1];
+        }
+        int[] arvore = new int[maxima + 1];
+        int processados = 0;
+        for (int p = 1; p <= maxima; p++) {
+            int i = porChegada[p] - 1;
+            if (i < 0) {
+                continue;
+            }
+            int posicaoAntes = posicoesAntes[i];
+            int chegaramAntesVindoDaFrente = 0;
+            for (int k = posicaoAntes - 1; k > 0; k -= k & -k) {
+                chegaramAntesVindoDaFrente += arvore[k];
+            }
+            ultrapassadoPor[s][i] = processados - chegaramAntesVindoDaFrente;
+            ultrapassagens[s][i] = aFrenteAntes[posicaoAntes] - chegaramAntesVindoDaFrente;
+            for (int k = posicaoAntes; k <= maxima; k += k & -k) {
+                arvore[k]++;
+            }
+            processados++;
+        }
+    }
+
+    /**
+     * @return A versão da corrida (ver Corrida.getVersao()) analisada.
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * @return O número de atletas da corrida.
+     */
+    public int getNumeroAtletas() {
+        return numeroAtletas;
+    }
+
+    /**
+     * @return O número de segmentos, um a menos do que o número de postos.
+     */
+    public int getNumeroSegmentos() {
+        return duracoes.length;
+    }
+
+    /**
+     * @param indice O índice do atleta na corrida.
+     * @param posto  O índice do posto.
+     * @return A posição do atleta no posto, a partir de 1, ou 0 se não passou.
+     */
+    public int getPosicao(int indice, int posto) {
+        return posicoes[posto][indice];
+    }
+
+    /**
+     * @param indice   O índice do atleta na corrida.
+     * @param segmento O índice do segmento.
+     * @return A duração do segmento para o atleta, em minutos, ou SEM_PARCIAL.
+     */
+    public int getDuracao(int indice, int segmento) {
+        return duracoes[segmento][indice];
+    }
+
+    /**
+     * @param indice   O índice do atleta na corrida.
+     * @param segmento O índice do segmento.
+     * @return Os lugares ganhos pelo atleta no segmento (negativo se os perdeu),
+     *         ou SEM_PARCIAL.
+     */
+    public int getLugaresGanhos(int indice, int segmento) {
+        return lugaresGanhos[segmento][indice];
+    }
+
+    /**
+     * @param indice   O índice do atleta na corrida.
+     * @param segmento O índice do segmento.
+     * @return O número de atletas que o atleta ultrapassou no segmento.
+     */
+    public int getUltrapassagens(int indice, int segmento) {
+        return ultrapassagens[segmento][indice];
+    }
+
+    /**
+     * @param indice   O índice do atleta na corrida.
+     * @param segmento O índice do segmento.
+     * @return O número de atletas que ultrapassaram o atleta no segmento.
+     */
+    public int getUltrapassadoPor(int indice, int segmento) {
+        return ultrapassadoPor[segmento][indice];
+    }
+
+    /**
+     * Retorna as durações de um segmento para todos os atletas.
+     *
+     * @param segmento O índice do segmento.
+     * @return Um novo array com a duração de cada atleta, por índice na corrida.
+     */
+    public int[] getDuracoes(int segmento) {
+        return duracoes[segmento].clone();
+    }
+
+    /**
+     * Retorna os lugares ganhos num segmento por todos os atletas.
+     *
+     * @param segmento O índice do segmento.
+     * @return Um novo array com os lugares ganhos por cada atleta, por índice na
+     *         corrida.
+     */
+    public int[] getLugaresGanhos(int segmento) {
+        return lugaresGanhos[segmento].clone();
+    }
+
+    /**
+     * Retorna as ultrapassagens feitas num segmento por todos os atletas.
+     *
+     * @param segmento O índice do segmento.
+     * @return Um novo array com as ultrapassagens de cada atleta, por índice na
+     *         corrida.
+     */
+    public int[] getUltrapassagens(int segmento) {
+        return ultrapassagens[segmento].clone();
+    }
+
+    /**
+     * Retorna o total de ultrapassagens feitas por um atleta em toda a prova.
+     *
+     * @param indice O índice do atleta na corrida.
+     * @return O número de ultrapassagens.
+     */
+    public int getUltrapassagensTotais(int indice) {
+        int total = 0;
+        for (int[] segmento : ultrapassagens) {
+            total += segmento[indice];
+        }
+        return total;
+    }
+
+    /**
+     * Retorna o total de vezes que um atleta foi ultrapassado em toda a prova.
+     *
+     * @param indice O índice do atleta na corrida.
+     * @return O número de ultrapassagens sofridas.
+     */
+    public int getUltrapassadoPorTotais(int indice) {
+        int total = 0;
+        for (int[] segmento : ultrapassadoPor) {
+            total += segmento[indice];
+        }
+        return total;
+    }
+}
@@ -10,18 +10,25 @@ import project.comparators.ComparaAtletaDorsal;
 /**
  * Classe Atleta que representa um atleta em uma corrida.
  * 
+ * Um atleta pode também ser uma vista sobre um registo de uma TabelaAtletas,
+ * quando a corrida guarda os atletas fora do heap: nesse caso os getters e os
+ * setters leem e escrevem diretamente na tabela.
+ * 
  * @author Rodrigo Frutuoso 61865
  */
 public class Atleta implements Comparable<Atleta> {
 
     private final int dorsal; // usado na comparação de Atletas por omissão através do compareTo()
-    private final String nome;
+    private String nome; // nas vistas, lido da tabela no primeiro acesso
     private final String nacionalidade;
     private final String escalao;
     private int posicaoFinalAbsoluta;
     private int posicaoFinalEscalao;
-    private int[] tempoNaMeta; // {horas, minutos, segundos}
+    private int segundosNaMeta; // tempo na meta, em segundos desde a partida
     private int[] temposPassagem; // tempos de passagem nos postos de controlo, em minutos desde a partida
+    private final TabelaAtletas tabela; // null, exceto nas vistas sobre uma TabelaAtletas
+    private final int indice; // índice do atleta na tabela
+    private Corrida corrida; // avisada das alterações à classificação, ou null
 
     /**
      * Construtor da classe Atleta.
@@ -36,6 +43,42 @@ public class Atleta implements Comparable<Atleta> {
         this.nome = nome;
         this.nacionalidade = nacionalidade;
         this.escalao = escalao;
+        this.tabela = null;
+        this.indice = -1;
+    }
+
+    /**
+     * Construtor de uma vista sobre o atleta guardado numa TabelaAtletas.
+     * 
+     * @param tabela  a tabela onde estão os dados do atleta.
+     * @param indice  o índice do atleta na tabela.
+     * @param corrida a corrida a avisar das alterações à classificação.
+     */
+    Atleta(TabelaAtletas tabela, int indice, Corrida corrida) {
+        this.dorsal = 0;
+        this.nome = null;
+        this.nacionalidade = null;
+        this.escalao = null;
+        this.tabela = tabela;
+        this.indice = indice;
+        this.corrida = corrida;
+    }
+
+    /**
+     * Define a corrida a avisar quando a posição final ou o tempo na meta do
+     * atleta são alterados, para que invalide as ordenações já calculadas (ver
+     * Corrida.getAtletasOrdenados()).
+     * 
+     * @param corrida a corrida a que o atleta pertence.
+     */
+    void setCorrida(Corrida corrida) {
+        this.corrida = corrida;
+    }
+
+    private void classificacaoAlterada() {
+        if (corrida != null) {
+            corrida.classificacaoAlterada();
+        }
     }
 
     /**
@@ -44,6 +87,9 @@ public class Atleta implements Comparable<Atleta> {
      * @return o número do dorsal do atleta.
      */
     public int getDorsal() {
+        if (tabela != null) {
+            return tabela.getDorsal(indice);
+        }
         return dorsal;
     }
 
@@ -53,6 +99,9 @@ public class Atleta implements Comparable<Atleta> {
      * @return o nome do atleta.
      */
     public String getNome() {
+        if (tabela != null && nome == null) {
+            nome = tabela.getNome(indice);
+        }
         return nome;
     }
 
@@ -62,6 +111,9 @@ public class Atleta implements Comparable<Atleta> {
      * @return a nacionalidade do atleta.
      */
     public String getNacionalidade() {
+        if (tabela != null) {
+            return tabela.getNacionalidade(indice);
+        }
         return nacionalidade;
     }
 
@@ -71,6 +123,9 @@ public class Atleta implements Comparable<Atleta> {
      * @return o escalao do atleta.
      */
     public String getEscalao() {
+        if (tabela != null) {
+            return tabela.getEscalao(indice);
+        }
         return escalao;
     }
 
@@ -80,6 +135,9 @@ public class Atleta implements Comparable<Atleta> {
      * @return a posição final absoluta do atleta.
      */
     public int getPosicaoFinalAbsoluta() {
+        if (tabela != null) {
+            return tabela.getPosicaoFinalAbsoluta(indice);
+        }
         return posicaoFinalAbsoluta;
     }
 
@@ -89,16 +147,54 @@ public class Atleta implements Comparable<Atleta> {
      * @return a posição final do atleta no seu escalão.
      */
     public int getPosicaoFinalEscalao() {
+        if (tabela != null) {
+            return tabela.getPosicaoFinalEscalao(indice);
+        }
         return posicaoFinalEscalao;
     }
 
     /**
      * Retorna uma cópia do tempo que o atleta chegou na meta.
      * 
-     * @return uma cópia do tempo que o atleta chegou na meta.
+     * @return uma cópia do tempo que o atleta chegou na meta, em {horas, minutos,
+     *         segundos}.
      */
     public int[] getTempoNaMeta() {
-        return Arrays.copyOf(tempoNaMeta, tempoNaMeta.length);
+        int segundos = getSegundosNaMeta();
+        return new int[] { segundos / 3600, segundos / 60 % 60, segundos % 60 };
+    }
+
+    /**
+     * Retorna uma parte do tempo que o atleta chegou na meta, sem criar o array
+     * retornado por getTempoNaMeta().
+     * 
+     * @param parte 0 para as horas, 1 para os minutos e 2 para os segundos.
+     * @return a parte pedida do tempo que o atleta chegou na meta.
+     */
+    public int getTempoNaMeta(int parte) {
+        int segundos = getSegundosNaMeta();
+        switch (parte) {
+            case 0:
+                return segundos / 3600;
+            case 1:
+                return segundos / 60 % 60;
+            case 2:
+                return segundos % 60;
+            default:
+                throw new IndexOutOfBoundsException("Parte do tempo inválida: " + parte);
+        }
+    }
+
+    /**
+     * Retorna o tempo que o atleta chegou na meta, em segundos desde a partida.
+     * 
+     * @return o tempo que o atleta chegou na meta, em segundos.
+     */
+    public int getSegundosNaMeta() {
+        if (tabela != null) {
+            return tabela.getSegundosNaMeta(indice);
+        }
+        return segundosNaMeta;
     }
 
     /**
@@ -107,16 +203,49 @@ public class Atleta implements Comparable<Atleta> {
      * @return uma cópia de todos os tempos de passagem do atleta.
      */
     public int[] getTemposPassagem() {
+        if (tabela != null) {
+            return tabela.getTemposPassagem(indice);
+        }
         return Arrays.copyOf(temposPassagem, temposPassagem.length);
     }
 
+    /**
+     * Retorna o tempo de passagem do atleta num posto, sem copiar os restantes.
+     * 
+     * @param posto o índice do posto de controlo, a partir de 0.
+     * @return o tempo de passagem do atleta no posto, em minutos desde a partida.
+     */
+    public int getTempoPassagem(int posto) {
+        if (tabela != null) {
+            return tabela.getTempoPassagem(indice, posto);
+        }
+        return temposPassagem[posto];
+    }
+
+    /**
+     * Indica se os tempos de passagem do atleta já foram definidos.
+     * 
+     * @return true se os tempos de passagem já foram definidos.
+     */
+    boolean temTemposPassagem() {
+        if (tabela != null) {
+            return tabela.temTemposPassagem(indice);
+        }
+        return temposPassagem != null;
+    }
+
     /**
      * Define a posição final absoluta do atleta.
      * 
      * @param posicaoFinalAbsoluta a posição final absoluta do atleta.
      */
     public void setPosicaoFinalAbsoluta(int posicaoFinalAbsoluta) {
-        this.posicaoFinalAbsoluta = posicaoFinalAbsoluta;
+        if (tabela != null) {
+            tabela.setPosicaoFinalAbsoluta(indice, posicaoFinalAbsoluta);
+        } else {
+            this.posicaoFinalAbsoluta = posicaoFinalAbsoluta;
+        }
+        classificacaoAlterada();
     }
 
     /**
@@ -125,16 +254,37 @@ public class Atleta implements Comparable<Atleta> {
      * @param posicaoFinalEscalao a posição final do escalao do atleta.
      */
     public void setPosicaoFinalEscalao(int posicaoFinalEscalao) {
-        this.posicaoFinalEscalao = posicaoFinalEscalao;
+        if (tabela != null) {
+            tabela.setPosicaoFinalEscalao(indice, posicaoFinalEscalao);
+        } else {
+            this.posicaoFinalEscalao = posicaoFinalEscalao;
+        }
+        classificacaoAlterada();
     }
 
     /**
      * Define o tempo que o atleta chegou na meta.
      * 
-     * @param tempoNaMeta tempo que o atleta chegou na meta.
+     * @param tempoNaMeta tempo que o atleta chegou na meta, em {horas, minutos,
+     *                    segundos}.
      */
     public void setTempoNaMeta(int[] tempoNaMeta) {
-        this.tempoNaMeta = Arrays.copyOf(tempoNaMeta, tempoNaMeta.length);
+        setSegundosNaMeta(tempoNaMeta[0] * 3600 + tempoNaMeta[1] * 60 + tempoNaMeta[2]);
+    }
+
+    /**
+     * Define o tempo que o atleta chegou na meta.
+     * 
+     * @param segundosNaMeta tempo que o atleta chegou na meta, em segundos desde a
+     *                       partida.
+     */
+    public void setSegundosNaMeta(int segundosNaMeta) {
+        if (tabela != null) {
+            tabela.setSegundosNaMeta(indice, segundosNaMeta);
+        } else {
+            this.segundosNaMeta = segundosNaMeta;
+        }
+        classificacaoAlterada();
     }
 
     /**
@@ -143,9 +293,27 @@ public class Atleta implements Comparable<Atleta> {
      * @param temposPassagem os tempos de passagem do atleta.
      */
     public void setTemposPassagem(int[] temposPassagem) {
+        if (tabela != null) {
+            tabela.setTemposPassagem(indice, temposPassagem);
+            return;
+        }
         this.temposPassagem = Arrays.copyOf(temposPassagem, temposPassagem.length);
     }
 
+    /**
+     * Define o tempo de passagem do atleta num posto.
+     * 
+     * @param posto          o índice do posto de controlo, a partir de 0.
+     * @param tempoPassagem o tempo de passagem no posto, em minutos desde a partida.
+     */
+    public void setTempoPassagem(int posto, int tempoPassagem) {
+        if (tabela != null) {
+            tabela.setTempoPassagem(indice, posto, tempoPassagem);
+            return;
+        }
+        this.temposPassagem[posto] = tempoPassagem;
+    }
+
     @Override
     public int compareTo(Atleta outro) {
         return new ComparaAtletaDorsal().compare(this, outro);
@@ -158,18 +326,23 @@ public class Atleta implements Comparable<Atleta> {
      *         escalão deste atleta.
      */
     public int hashCode() {
-        return Objects.hash(dorsal, nome, nacionalidade, escalao);
+        return Objects.hash(getDorsal(), getNome(), getNacionalidade(), getEscalao());
     }
 
     /**
      * Indica se algum objeto é "igual" a este atleta.
      * 
      * @param obj o objeto a ser comparado com este atleta.
-     * @return true se o objeto passado for a mesma instância que este atleta, caso
+     * @return true se o objeto passado for a mesma instância que este atleta, ou
+     *         uma vista sobre o mesmo registo da mesma TabelaAtletas, caso
      *         contrário false.
      */
     public boolean equals(Object obj) {
-        return (this == obj);
+        if (this == obj) {
+            return true;
+        }
+        return tabela != null && obj instanceof Atleta && ((Atleta) obj).tabela == tabela
+                && ((Atleta) obj).indice == indice;
     }
 
     /**
@@ -262,6 +435,6 @@ public class Atleta implements Comparable<Atleta> {
      * @return uma string contendo o número do dorsal e o nome do atleta.
      */
     public String toString() {
-        return dorsal + " - " + nome;
+        return getDorsal() + " - " + getNome();
     }
 }
\ No newline at end of file
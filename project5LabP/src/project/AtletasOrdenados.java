@@ -0,0 +1,38 @@
+package project;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Lista imutável dos atletas de uma corrida por uma dada ordem, guardada como um
+ * array de índices de atletas. É criada e partilhada por
+ * Corrida.getAtletasOrdenados(); os atletas são obtidos da corrida a cada
+ * acesso, pelo que a lista não copia os atletas.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+class AtletasOrdenados extends AbstractList<Atleta> implements RandomAccess {
+
+    private final Corrida corrida;
+    private final int[] indices;
+
+    /**
+     * @param corrida A corrida dos atletas.
+     * @param indices Os índices dos atletas na corrida, pela ordem da lista, que
+     *                passam a pertencer à lista.
+     */
+    AtletasOrdenados(Corrida corrida, int[] indices) {
+        this.corrida = corrida;
+        this.indices = indices;
+    }
+
+    @Override
+    public Atleta get(int posicao) {
+        return corrida.getAtletaPorIndice(indices[posicao]);
+    }
+
+    @Override
+    public int size() {
+        return indices.length;
+    }
+}
@@ -0,0 +1,91 @@
+package project;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Data-hora de início de uma prova e tabela de conversão de tempos de passagem
+ * no formato "dia da semana, hora, minuto" em minutos decorridos desde a
+ * partida.
+ * 
+ * A tabela guarda, para cada dia da semana, os minutos desde a partida até às
+ * 0h00 do primeiro dia com esse nome a partir do dia da partida, pelo que a
+ * conversão é feita apenas com somas. Como os tempos de passagem só identificam
+ * o dia da semana, a conversão só é válida para provas com menos de uma semana.
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+public class CalendarioProva {
+
+    private final LocalDateTime inicio;
+
+    // minutosAteDia[d] são os minutos desde a partida até às 0h00 do dia da semana
+    // d (de 1, segunda-feira, a 7, domingo); minutosAteDia[0] corresponde ao dia
+    // da partida e é usado quando o dia da semana não é conhecido.
+    private final int[] minutosAteDia = new int[8];
+
+    /**
+     * Construtor da classe CalendarioProva.
+     * 
+     * @param ano    O ano da partida.
+     * @param mes    O mês da partida.
+     * @param dia    O dia do mês da partida.
+     * @param hora   A hora da partida.
+     * @param minuto O minuto da partida.
+     */
+    public CalendarioProva(int ano, int mes, int dia, int hora, int minuto) {
+        this(LocalDateTime.of(ano, mes, dia, hora, minuto));
+    }
+
+    CalendarioProva(LocalDateTime inicio) {
+        this.inicio = inicio;
+        LocalDate diaDaPartida = inicio.toLocalDate();
+        minutosAteDia[0] = Math.toIntExact(inicio.until(diaDaPartida.atStartOfDay(), ChronoUnit.MINUTES));
+        for (int k = 0; k < 7; k++) {
+            LocalDate data = diaDaPartida.plusDays(k);
+            minutosAteDia[data.getDayOfWeek().getValue()] = minutosAteDia[0] + k * LeitorCsv.MINUTOS_POR_DIA;
+        }
+    }
+
+    /**
+     * @return A data-hora de início da prova.
+     */
+    LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    /**
+     * Converte um tempo de passagem em minutos decorridos desde a partida.
+     * 
+     * @param diaSemana O dia da semana, de 1 (segunda-feira) a 7 (domingo), ou 0
+     *                  para o dia da partida.
+     * @param hora      A hora da passagem.
+     * @param minuto    O minuto da passagem.
+     * @return Os minutos decorridos desde a partida.
+     */
+    public int minutosEmProva(int diaSemana, int hora, int minuto) {
+        return minutosAteDia[diaSemana] + hora * 60 + minuto;
+    }
+
+    /**
+     * Converte um tempo de passagem codificado por LeitorCsv.lerTempoDia() em
+     * minutos decorridos desde a partida.
+     * 
+     * @param tempoDia O tempo de passagem codificado.
+     * @return Os minutos decorridos desde a partida.
+     * @requires tempoDia != LeitorCsv.SEM_TEMPO
+     */
+    public int minutosEmProva(int tempoDia) {
+        return minutosAteDia[LeitorCsv.diaDaSemana(tempoDia)] + LeitorCsv.minutosDoDia(tempoDia);
+    }
+
+    /**
+     * Retorna uma representação da data-hora de início da prova.
+     * 
+     * @return A data-hora de início no formato ISO, por exemplo 2023-09-01T18:00.
+     */
+    public String toString() {
+        return inicio.toString();
+    }
+}
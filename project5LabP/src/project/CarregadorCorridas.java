@@ -0,0 +1,133 @@
+package project;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Carrega em paralelo todas as corridas de uma diretoria. Cada corrida é
+ * descrita por três ficheiros com o mesmo prefixo, o identificador da corrida:
+ * por exemplo UTMB_2023-starters.csv, UTMB_2023-final.csv e
+ * UTMB_2023-progress.csv.
+ * 
+ * O número de corridas carregadas ao mesmo tempo é limitado pelo paralelismo
+ * indicado no construtor, quer se usem threads normais quer threads virtuais.
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+public class CarregadorCorridas {
+
+    public static final String SUFIXO_ATLETAS = "-starters.csv";
+    public static final String SUFIXO_CLASSIFICACOES = "-final.csv";
+    public static final String SUFIXO_REGISTO_PASSAGENS = "-progress.csv";
+
+    private final int paralelismo;
+    private final boolean threadsVirtuais;
+    private OpcoesCarregamento opcoes = new OpcoesCarregamento();
+
+    /**
+     * Construtor da classe CarregadorCorridas.
+     * 
+     * @param paralelismo     O número máximo de corridas carregadas ao mesmo
+     *                        tempo.
+     * @param threadsVirtuais true se cada corrida deve ser carregada numa thread
+     *                        virtual (só disponíveis a partir do Java 21).
+     * @requires paralelismo > 0
+     */
+    public CarregadorCorridas(int paralelismo, boolean threadsVirtuais) {
+        if (paralelismo < 1) {
+            throw new IllegalArgumentException("Paralelismo inválido: " + paralelismo);
+        }
+        this.paralelismo = paralelismo;
+        this.threadsVirtuais = threadsVirtuais;
+    }
+
+    /**
+     * Define as opções usadas na construção de cada corrida.
+     * 
+     * @param opcoes As opções de carregamento.
+     */
+    public void setOpcoes(OpcoesCarregamento opcoes) {
+        this.opcoes = opcoes;
+    }
+
+    /**
+     * Retorna os identificadores das corridas de uma diretoria, isto é, os
+     * prefixos dos ficheiros terminados em SUFIXO_ATLETAS, por ordem alfabética.
+     * 
+     * @param diretoria O caminho para a diretoria.
+     * @return Os identificadores das corridas da diretoria.
+     * @throws FileNotFoundException Se a diretoria não existir.
+     */
+    public static String[] identificadoresCorridas(String diretoria) throws FileNotFoundException {
+        File[] ficheiros = new File(diretoria).listFiles((dir, nome) -> nome.endsWith(SUFIXO_ATLETAS));
+        if (ficheiros == null) {
+            throw new FileNotFoundException(diretoria + " não é uma diretoria");
+        }
+        String[] ids = new String[ficheiros.length];
+        for (int i = 0; i < ficheiros.length; i++) {
+            String nome = ficheiros[i].getName();
+            ids[i] = nome.substring(0, nome.length() - SUFIXO_ATLETAS.length());
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Carrega todas as corridas de uma diretoria. Uma falha no carregamento de uma
+     * corrida (por exemplo, por faltar um dos três ficheiros) não impede o
+     * carregamento das restantes: fica registada no resultado.
+     * 
+     * @param diretoria O caminho para a diretoria.
+     * @return As corridas carregadas, os tempos de carregamento e as falhas.
+     * @throws FileNotFoundException Se a diretoria não existir.
+     * @throws InterruptedException  Se a thread for interrompida enquanto espera
+     *                               pelos carregamentos.
+     */
+    public ResultadoCarregamento carrega(String diretoria) throws FileNotFoundException, InterruptedException {
+        String[] ids = identificadoresCorridas(diretoria);
+        ResultadoCarregamento resultado = new ResultadoCarregamento();
+        Semaphore vagas = new Semaphore(paralelismo);
+        List<Callable<Void>> tarefas = new ArrayList<>();
+        for (String id : ids) {
+            tarefas.add(() -> {
+                vagas.acquire();
+                try {
+                    carregaCorrida(diretoria, id, resultado);
+                } finally {
+                    vagas.release();
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = threadsVirtuais ? Executores.threadsVirtuais()
+                : Executors.newFixedThreadPool(Math.max(1, Math.min(paralelismo, ids.length)));
+        try {
+            executor.invokeAll(tarefas);
+        } finally {
+            executor.shutdownNow();
+        }
+        return resultado;
+    }
+
+    // Carrega uma corrida, registando no resultado a corrida ou a falha e o tempo
+    // que demorou. Também os erros, como OutOfMemoryError, são registados como
+    // falhas, para que nenhuma corrida desapareça do resultado.
+    private void carregaCorrida(String diretoria, String id, ResultadoCarregamento resultado) {
+        String prefixo = new File(diretoria, id).getPath();
+        long inicio = System.nanoTime();
+        try {
+            Corrida corrida = new Corrida(prefixo + SUFIXO_ATLETAS, prefixo + SUFIXO_CLASSIFICACOES,
+                    prefixo + SUFIXO_REGISTO_PASSAGENS, opcoes);
+            resultado.registaCorrida(id, corrida, System.nanoTime() - inicio);
+        } catch (Throwable e) {
+            resultado.registaFalha(id, e, System.nanoTime() - inicio);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Consulta sobre os atletas de uma corrida, criada por Corrida.consulta(), que
+ * combina filtros, uma ordem e um limite. Por exemplo, as 10 primeiras mulheres
+ * francesas de 40 a 44 anos a chegar à meta:
+ *
+ * <pre>
+ * corrida.consulta().escalao("40-44W").nacionalidade("FRA (FR)").chegaramAMeta()
+ *         .ordenadaPor(new ComparaAtletaPosFinalAbsoluta()).limite(10).executa();
+ * </pre>
+ *
+ * A consulta só é avaliada em executa() ou conta(), e pode ser avaliada várias
+ * vezes. Os filtros por escalão, nacionalidade e tempo num posto são resolvidos
+ * nos índices da corrida (interseção de mapas de bits e procura binária nos
+ * registos ordenados do posto), antes de se aceder a qualquer atleta; os
+ * restantes são verificados apenas nos atletas que passaram esses. Com um limite
+ * e uma ordem, os atletas são escolhidos por uma seleção dos k primeiros em vez
+ * de uma ordenação completa.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class ConsultaAtletas {
+
+    private final Corrida corrida;
+    private String escalao = "todos";
+    private String nacionalidade = "todas";
+    private boolean soQuemChegou;
+    private boolean soQuemNaoChegou;
+    private final List<int[]> temposNosPostos = new ArrayList<>(); // {posto, mínimo, máximo}
+    private Comparator<Atleta> comparador;
+    private int limite = Integer.MAX_VALUE;
+
+    /**
+     * Construtor usado por Corrida.consulta().
+     *
+     * @param corrida A corrida consultada.
+     */
+    ConsultaAtletas(Corrida corrida) {
+        this.corrida = corrida;
+    }
+
+    /**
+     * Restringe a consulta aos atletas de um escalão.
+     *
+     * @param escalao O escalão, ou "todos" para retirar a restrição.
+     * @return Esta consulta.
+     */
+    public ConsultaAtletas escalao(String escalao) {
+        this.escalao = escalao;
+        return this;
+    }
+
+    /**
+     * Restringe a consulta aos atletas de uma nacionalidade.
+     *
+     * @param nacionalidade A nacionalidade, ou "todas" para retirar a restrição.
+     * @return Esta consulta.
+     */
+    public ConsultaAtletas nacionalidade(String nacionalidade) {
+        this.nacionalidade = nacionalidade;
+        return this;
+    }
+
+    /**
+     * Restringe a consulta aos atletas que chegaram à meta.
+     *
+     * @return Esta consulta.
+     */
+    public ConsultaAtletas chegaramAMeta() {
+        this.soQuemChegou = true;
+        this.soQuemNaoChegou = false;
+        return this;
+    }
+
+    /**
+     * Restringe a consulta aos atletas que não chegaram à meta, isto é, com a
+     * posição final Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META.
+     *
+     * @return Esta consulta.
+     */
+    public ConsultaAtletas naoChegaramAMeta() {
+        this.soQuemNaoChegou = true;
+        this.soQuemChegou = false;
+        return this;
+    }
+
+    /**
+     * Restringe a consulta aos atletas cujo registo de passagem num posto tem um
+     * tempo entre mínimo e máximo, inclusive. Pode ser usado para vários postos.
+     *
+     * @param posto  O índice do posto de controlo, a partir de 0.
+     * @param minimo O tempo mínimo, em minutos desde a partida.
+     * @param maximo O tempo máximo, em minutos desde a partida.
+     * @return Esta consulta.
+     */
+    public ConsultaAtletas tempoNoPosto(int posto, int minimo, int maximo) {
+        temposNosPostos.add(new int[] { posto, minimo, maximo });
+        return this;
+    }
+
+    /**
+     * Define a ordem dos resultados. Sem ordem, os atletas são retornados por
+     * ordem crescente de dorsal.
+     *
+     * @param comparador O comparador, por exemplo um dos de project.comparators.
+     * @return Esta consulta.
+     */
+    public ConsultaAtletas ordenadaPor(Comparator<Atleta> comparador) {
+        this.comparador = comparador;
+        return this;
+    }
+
+    /**
+     * Limita o número de atletas retornados aos primeiros k.
+     *
+     * @param k O número máximo de atletas.
+     * @return Esta consulta.
+     * @throws IllegalArgumentException Se k for negativo.
+     */
+    public ConsultaAtletas limite(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Limite inválido: " + k);
+        }
+        this.limite = k;
+        return this;
+    }
+
+    /**
+     * Avalia a consulta.
+     *
+     * @return Um novo array com os atletas que satisfazem os filtros, pela ordem
+     *         definida e com no máximo limite atletas.
+     * @throws IllegalArgumentException Se algum dos postos não existir.
+     */
+    public Atleta[] executa() {
+        synchronized (corrida) {
+            BitSet candidatos = candidatos();
+            if (comparador == null) {
+                List<Atleta> resultado = new ArrayList<>(Math.min(limite, candidatos.cardinality()));
+                for (int i = candidatos.nextSetBit(0); i >= 0 && resultado.size() < limite; i = candidatos
+                        .nextSetBit(i + 1)) {
+                    Atleta atleta = corrida.getAtletaPorIndice(i);
+                    if (satisfazFiltrosRestantes(atleta)) {
+                        resultado.add(atleta);
+                    }
+                }
+                return resultado.toArray(new Atleta[0]);
+            }
+            SelecaoTopK<Atleta> selecao = new SelecaoTopK<>(limite, comparador, candidatos.cardinality());
+            for (int i = candidatos.nextSetBit(0); i >= 0; i = candidatos.nextSetBit(i + 1)) {
+                Atleta atleta = corrida.getAtletaPorIndice(i);
+                if (satisfazFiltrosRestantes(atleta)) {
+                    selecao.oferece(atleta);
+                }
+            }
+            return selecao.retira(new Atleta[selecao.tamanho()]);
+        }
+    }
+
+    /**
+     * Conta os atletas que a consulta retornaria, sem os ordenar nem criar o
+     * array.
+     *
+     * @return O número de atletas que satisfazem os filtros, no máximo limite.
+     * @throws IllegalArgumentException Se algum dos postos não existir.
+     */
+    public int conta() {
+        synchronized (corrida) {
+            BitSet candidatos = candidatos();
+            if (!soQuemChegou && !soQuemNaoChegou) {
+                return Math.min(limite, candidatos.cardinality());
+            }
+            int total = 0;
+            for (int i = candidatos.nextSetBit(0); i >= 0 && total < limite; i = candidatos.nextSetBit(i + 1)) {
+                if (satisfazFiltrosRestantes(corrida.getAtletaPorIndice(i))) {
+                    total++;
+                }
+            }
+            return total;
+        }
+    }
+
+    // Índices dos atletas que satisfazem os filtros resolvidos nos índices da
+    // corrida.
+    private BitSet candidatos() {
+        BitSet candidatos = corrida.indicesEscalaoEouNacionalidade(escalao, nacionalidade);
+        for (int[] tempo : temposNosPostos) {
+            candidatos.and(corrida.indicesTempoNoPosto(tempo[0], tempo[1], tempo[2]));
+        }
+        return candidatos;
+    }
+
+    private boolean satisfazFiltrosRestantes(Atleta atleta) {
+        boolean chegou = atleta.getPosicaoFinalAbsoluta() != Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META;
+        return (!soQuemChegou || chegou) && (!soQuemNaoChegou || !chegou);
+    }
+}
@@ -3,15 +3,27 @@ package project;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Scanner;
-import java.io.File;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jfree.data.xy.XYDataset;
-import project.comparators.*;
+import project.comparators.ComparaAtletaDorsal;
+import project.comparators.ComparaAtletaPosFinalAbsoluta;
+import project.comparators.ComparaAtletaPosFinalEscalao;
+import project.comparators.ComparaAtletaTempoNaMeta;
 
 /**
  * Guarda todos os dados de uma corrida e fornece métodos para analisar esses
  * dados
  * 
+ * Durante a prova, os registos de passagem podem ser atualizados com
+ * registaPassagem(). Os métodos que leem ou alteram os registos de passagem e as
+ * posições nos postos são sincronizados, podendo ser usados por várias threads.
+ * 
  * @author Rodrigo Frutuoso 61865
  */
 public class Corrida {
@@ -44,15 +56,75 @@ public class Corrida {
     public static final int POSICAO_DE_QUEM_NAO_CHEGOU_A_META = 9999;
 
     // Todos os atletas que se apresentaram à partida, por ordem crescente de número
-    // de dorsal
+    // de dorsal. Se a corrida foi carregada com OpcoesCarregamento.setForaDoHeap(),
+    // atletas é null e os atletas são lidos diretamente para tabelaAtletas, sendo
+    // acedidos através de objetos Atleta criados a cada acesso.
+
+    private Atleta[] atletas;
+    private TabelaAtletas tabelaAtletas;
+
+    // Registos de passagem guardados por colunas de inteiros (dorsais e tempos),
+    // uma de cada por posto de controlo. Após leitura dos dados de
+    // ficheiroRegistoPassagens e processamento desses dados, os registos de cada
+    // posto ficam ordenados por ordem crescente de tempo de passagem.
+    private final TabelaPassagens registosPassagem;
+
+    // Índices de pesquisa sobre o array atletas, construídos uma única vez após a
+    // ordenação por dorsal. Em caso de nomes repetidos, o índice por nome guarda a
+    // primeira ocorrência, tal como Atleta.indiceAtletaPorNome. São null se os
+    // atletas estiverem em tabelaAtletas, que tem os seus próprios índices.
+    private final Map<String, Integer> indicesPorNome;
+    private final Map<Integer, Integer> indicesPorDorsal;
+
+    // Escalões e nacionalidades codificados em inteiros pequenos, com um mapa de
+    // bits dos índices dos atletas por valor. São construídos com os índices
+    // anteriores e usados nas seleções e contagens por escalão e nacionalidade.
+    private final IndiceValores escaloes = new IndiceValores();
+    private final IndiceValores nacionalidades = new IndiceValores();
+
+    // Índice invertido de registosPassagem: posicoesPostos[posto][i] é o
+    // identificador (a partir de 1) do registo do atleta atletas[i] no posto, ou
+    // 0 se o seu dorsal não constar dos registos desse posto. O identificador é a
+    // posição do registo depois do carregamento e não muda com registaPassagem();
+    // a posição atual é dada por registosPassagem.posicao() (ver indiceRegisto()).
+    private final int[][] posicoesPostos;
+
+    // Número de alterações feitas aos registos de passagem desde o carregamento.
+    private volatile long versao;
+
+    // Número de alterações feitas às posições finais e aos tempos na meta dos
+    // atletas, através dos setters de Atleta, depois de o atleta ter sido
+    // associado à corrida (ver indexaAtletas()).
+    private final AtomicLong versaoClassificacoes = new AtomicLong();
+
+    // Ordenações dos atletas já calculadas por getAtletasOrdenados(), uma por
+    // classe de comparador de project.comparators. As dos comparadores de
+    // COMPARADORES_DA_CLASSIFICACAO são válidas enquanto versaoClassificacoes for
+    // versaoOrdenacoes; as restantes comparam dados que não mudam. Nenhum desses
+    // comparadores depende dos tempos de passagem, pelo que registaPassagem() não
+    // invalida nenhuma ordenação.
+    private final Map<Class<?>, AtletasOrdenados> ordenacoes = new HashMap<>();
+    private long versaoOrdenacoes;
+
+    // Comparadores de project.comparators que dependem da posição final ou do
+    // tempo na meta.
+    private static final Set<Class<?>> COMPARADORES_DA_CLASSIFICACAO = Set.of(
+            ComparaAtletaPosFinalAbsoluta.class, ComparaAtletaPosFinalEscalao.class,
+            ComparaAtletaTempoNaMeta.class);
 
-    private final Atleta[] atletas;
+    // Última análise de parciais calculada por analiseParciais(), válida enquanto
+    // versao for a sua versão.
+    private AnaliseParciais analiseParciais;
 
-    // Cada linha de registosPassagem corresponde a um posto de controlo.
-    // Após leitura dos dados de ficheiroRegistoPassagens e processamento desses
-    // dados, cada linha deve ficar ordenada
-    // por ordem crescente de tempo de passagem.
-    private final RegistoPassagem[][] registosPassagem;
+    // Calendário usado para converter os tempos de passagem lidos dos ficheiros.
+    private final CalendarioProva calendario;
+
+    // Número máximo de threads usadas no trabalho feito posto a posto (ver
+    // OpcoesCarregamento.setParalelismo()).
+    private final int paralelismo;
+
+    // Tempos e contagens de cada fase do carregamento a partir dos ficheiros csv.
+    private final MetricasCarregamento metricasCarregamento = new MetricasCarregamento();
 
     /**
      * Construtor da classe Corrida. Inicializa os atletas e os registos de passagem
@@ -68,131 +140,436 @@ public class Corrida {
      */
     public Corrida(String ficheiroListaAtletas, String ficheiroClassificacoes, String ficheiroRegistoPassagens)
             throws FileNotFoundException {
-        this.atletas = inicializarAtletas(ficheiroListaAtletas);
-        Atleta.ordena(atletas);
-        this.registosPassagem = inicializarRegistosPassagem(ficheiroRegistoPassagens);
-        classificacoes(ficheiroClassificacoes);
+        this(ficheiroListaAtletas, ficheiroClassificacoes, ficheiroRegistoPassagens, new OpcoesCarregamento());
+    }
+
+    /**
+     * Cria uma corrida a partir dos mesmos ficheiros que o construtor, mas mapeando
+     * cada ficheiro em memória e interpretando-o no próprio mapeamento, em vez de o
+     * ler em blocos para o heap. Indicado para ficheiros muito grandes: a memória
+     * ocupada no heap cresce apenas com o número de atletas.
+     * 
+     * @param ficheiroListaAtletas     O caminho para o ficheiro csv que contém a
+     *                                 lista de atletas.
+     * @param ficheiroClassificacoes   O caminho para o ficheiro csv que contém as
+     *                                 classificações.
+     * @param ficheiroRegistoPassagens O caminho para o ficheiro csv que contém o
+     *                                 registo de passagens.
+     * @return A corrida com os dados lidos dos ficheiros.
+     * @throws FileNotFoundException Se algum dos arquivos não for encontrado.
+     */
+    public static Corrida carregaMapeado(String ficheiroListaAtletas, String ficheiroClassificacoes,
+            String ficheiroRegistoPassagens) throws FileNotFoundException {
+        OpcoesCarregamento opcoes = new OpcoesCarregamento();
+        opcoes.setMapeado(true);
+        return new Corrida(ficheiroListaAtletas, ficheiroClassificacoes, ficheiroRegistoPassagens, opcoes);
     }
 
     /**
-     * Método privado para inicializar os atletas. Lê os dados do arquivo fornecido
+     * Construtor da classe Corrida com opções de carregamento, que permitem, por
+     * exemplo, indicar a data-hora de início da prova ou mapear os ficheiros em
+     * memória.
+     * 
+     * @param ficheiroListaAtletas     O caminho para o ficheiro csv que contém a
+     *                                 lista de atletas.
+     * @param ficheiroClassificacoes   O caminho para o ficheiro csv que contém as
+     *                                 classificações.
+     * @param ficheiroRegistoPassagens O caminho para o ficheiro csv que contém o
+     *                                 registo de passagens.
+     * @param opcoes                   As opções de carregamento.
+     * @throws FileNotFoundException Se algum dos arquivos não for encontrado.
+     */
+    public Corrida(String ficheiroListaAtletas, String ficheiroClassificacoes, String ficheiroRegistoPassagens,
+            OpcoesCarregamento opcoes) throws FileNotFoundException {
+        this.calendario = opcoes.getCalendario();
+        this.paralelismo = opcoes.getParalelismo();
+        boolean mapeado = opcoes.isMapeado();
+        try (LeitorCsv listaAtletas = abreLeitor(ficheiroListaAtletas, mapeado);
+                LeitorCsv classificacoes = abreLeitor(ficheiroClassificacoes, mapeado);
+                LeitorCsv registoPassagens = abreLeitor(ficheiroRegistoPassagens, mapeado)) {
+            MetricasCarregamento.Fase fase = metricasCarregamento.inicia(MetricasCarregamento.FASE_ATLETAS);
+            if (opcoes.isForaDoHeap()) {
+                this.tabelaAtletas = inicializarTabelaAtletas(listaAtletas);
+            } else {
+                this.atletas = inicializarAtletas(listaAtletas);
+                Atleta.ordena(atletas);
+            }
+            fase.termina(listaAtletas);
+
+            if (tabelaAtletas != null) {
+                fase = metricasCarregamento.inicia(MetricasCarregamento.FASE_FORA_DO_HEAP);
+                tabelaAtletas.ordenaEIndexa();
+                fase.termina();
+                this.indicesPorNome = null;
+                this.indicesPorDorsal = null;
+            } else {
+                this.indicesPorNome = new HashMap<>(atletas.length * 2);
+                this.indicesPorDorsal = new HashMap<>(atletas.length * 2);
+            }
+
+            fase = metricasCarregamento.inicia(MetricasCarregamento.FASE_INDICES);
+            indexaAtletas();
+            fase.termina();
+
+            fase = metricasCarregamento.inicia(MetricasCarregamento.FASE_REGISTO_PASSAGENS);
+            this.registosPassagem = inicializarRegistosPassagem(registoPassagens);
+            fase.termina(registoPassagens);
+
+            fase = metricasCarregamento.inicia(MetricasCarregamento.FASE_ORDENACAO_POSTOS);
+            registosPassagem.ordena(paralelismo);
+            fase.termina();
+            metricasCarregamento.registaOrdenacaoPostos(registosPassagem.nanosOrdenacao());
+
+            fase = metricasCarregamento.inicia(MetricasCarregamento.FASE_POSICOES_POSTOS);
+            this.posicoesPostos = inicializarPosicoesPostos();
+            fase.termina();
+
+            fase = metricasCarregamento.inicia(MetricasCarregamento.FASE_CLASSIFICACOES);
+            classificacoes(classificacoes);
+            fase.termina(classificacoes);
+        }
+    }
+
+    /**
+     * Construtor usado por CorridaBinaria para recriar uma corrida a partir dos
+     * dados já processados, sem ler os ficheiros csv.
+     * 
+     * @param atletas          Os atletas, por ordem crescente de dorsal.
+     * @param registosPassagem Os registos de passagem, já ordenados.
+     * @param calendario       O calendário da prova.
+     */
+    Corrida(Atleta[] atletas, TabelaPassagens registosPassagem, CalendarioProva calendario) {
+        this.calendario = calendario;
+        this.paralelismo = new OpcoesCarregamento().getParalelismo();
+        this.atletas = atletas;
+        this.indicesPorNome = new HashMap<>(atletas.length * 2);
+        this.indicesPorDorsal = new HashMap<>(atletas.length * 2);
+        indexaAtletas();
+        this.registosPassagem = registosPassagem;
+        this.posicoesPostos = inicializarPosicoesPostos();
+    }
+
+    /**
+     * Método privado para preencher os índices por nome, por dorsal, por escalão
+     * e por nacionalidade a partir do array de atletas, e associar os atletas à
+     * corrida. Se os atletas estiverem fora do heap, apenas os índices por escalão
+     * e por nacionalidade são preenchidos.
+     */
+    private void indexaAtletas() {
+        for (int i = 0; i < getNumeroDeAtletas(); i++) {
+            Atleta atleta = atleta(i);
+            if (atletas != null) {
+                indicesPorNome.putIfAbsent(atleta.getNome(), i);
+                indicesPorDorsal.putIfAbsent(atleta.getDorsal(), i);
+                atleta.setCorrida(this);
+            }
+            escaloes.adiciona(atleta.getEscalao(), i);
+            nacionalidades.adiciona(atleta.getNacionalidade(), i);
+        }
+    }
+
+    /**
+     * Método privado que retorna o atleta com o índice dado, guardado no heap ou
+     * fora dele.
+     * 
+     * @param indice O índice do atleta.
+     * @return O atleta, ou uma nova vista sobre o atleta se estiver fora do heap.
+     */
+    private Atleta atleta(int indice) {
+        return atletas != null ? atletas[indice] : new Atleta(tabelaAtletas, indice, this);
+    }
+
+    /**
+     * Método privado para abrir um leitor sobre um ficheiro csv.
+     * 
+     * @param ficheiro O caminho para o ficheiro csv.
+     * @param mapeado  true se o ficheiro deve ser mapeado em memória.
+     * @return O leitor do ficheiro.
+     * @throws FileNotFoundException Se o arquivo não for encontrado.
+     */
+    private static LeitorCsv abreLeitor(String ficheiro, boolean mapeado) throws FileNotFoundException {
+        return mapeado ? LeitorCsv.mapeado(ficheiro) : new LeitorCsv(ficheiro);
+    }
+
+    /**
+     * Método privado para inicializar os atletas. Lê os dados do ficheiro fornecido
      * e cria um array de objetos Atleta.
      * 
-     * @param nome O caminho para o ficheiro csv que contém a lista de atletas.
+     * @param leitor O leitor do ficheiro csv que contém a lista de atletas.
      * @return Um array de objetos Atleta.
-     * @throws FileNotFoundException Se o arquivo não for encontrado.
      */
-    private static Atleta[] inicializarAtletas(String nome) throws FileNotFoundException {
+    private static Atleta[] inicializarAtletas(LeitorCsv leitor) {
         ArrayList<Atleta> atletas = new ArrayList<>();
-        Scanner scanner = new Scanner(new File(nome));
-        scanner.nextLine();
-        scanner.nextLine();
-        scanner.nextLine();
-        while (scanner.hasNextLine()) {
-            String[] partes = scanner.nextLine().split(";");
-            Atleta at = new Atleta(Integer.parseInt(partes[0]), partes[1], partes[4], partes[3]);
+        leitor.saltaLinhas(3);
+        while (leitor.proximaLinha()) {
+            int dorsal = leitor.lerInt();
+            String nome = leitor.lerString();
+            leitor.saltaCampo();
+            String escalao = leitor.lerString();
+            String nacionalidade = leitor.lerString();
+            Atleta at = new Atleta(dorsal, nome, nacionalidade, escalao);
             at.setTempoNaMeta(TEMPO_DE_QUEM_NAO_CHEGOU_A_META);
             at.setPosicaoFinalAbsoluta(POSICAO_DE_QUEM_NAO_CHEGOU_A_META);
             at.setPosicaoFinalEscalao(POSICAO_DE_QUEM_NAO_CHEGOU_A_META);
             atletas.add(at);
         }
-        scanner.close();
         return atletas.toArray(new Atleta[0]);
     }
 
+    /**
+     * Método privado para ler os atletas diretamente para uma tabela fora do heap,
+     * sem criar objetos Atleta, com os mesmos valores iniciais que
+     * inicializarAtletas().
+     * 
+     * @param leitor O leitor do ficheiro csv que contém a lista de atletas.
+     * @return A tabela com os atletas, ainda por ordenar.
+     */
+    private static TabelaAtletas inicializarTabelaAtletas(LeitorCsv leitor) {
+        TabelaAtletas tabela = new TabelaAtletas(1024);
+        leitor.saltaLinhas(3);
+        while (leitor.proximaLinha()) {
+            int dorsal = leitor.lerInt();
+            String nome = leitor.lerString();
+            leitor.saltaCampo();
+            String escalao = leitor.lerString();
+            String nacionalidade = leitor.lerString();
+            int indice = tabela.acrescenta(dorsal, nome, nacionalidade, escalao);
+            tabela.setSegundosNaMeta(indice, MINUTOS_DE_QUEM_NAO_PASSOU * 60);
+            tabela.setPosicaoFinalAbsoluta(indice, POSICAO_DE_QUEM_NAO_CHEGOU_A_META);
+            tabela.setPosicaoFinalEscalao(indice, POSICAO_DE_QUEM_NAO_CHEGOU_A_META);
+        }
+        return tabela;
+    }
+
     /**
      * Método privado para inicializar os registos de passagem. Lê os dados do
-     * arquivo fornecido e cria uma matriz de objetos RegistoPassagem.
+     * ficheiro fornecido e cria a tabela com os registos de cada posto, ainda por
+     * ordenar.
      * 
-     * @param nome O caminho para o ficheiro csv que contém o registo de passagens.
-     * @return Uma matriz de objetos RegistoPassagem.
-     * @throws FileNotFoundException Se o arquivo não for encontrado.
+     * @param leitor O leitor do ficheiro csv que contém o registo de passagens.
+     * @return A tabela de registos de passagem, por ordem de leitura.
      */
-    private RegistoPassagem[][] inicializarRegistosPassagem(String nome) throws FileNotFoundException {
-        Scanner sc = new Scanner(new File(nome));
-        int numerosDePontos = sc.nextLine().split(";").length - 3;
-        RegistoPassagem[][] reg = new RegistoPassagem[numerosDePontos][atletas.length];
-        int vez = 0;
-        while (sc.hasNextLine()) {
-            String[] partes = sc.nextLine().split(";");
-            int dorsal = Integer.parseInt(partes[0]);
+    private TabelaPassagens inicializarRegistosPassagem(LeitorCsv leitor) {
+        leitor.proximaLinha();
+        int numerosDePontos = leitor.contaCampos() - 3;
+        TabelaPassagens reg = new TabelaPassagens(numerosDePontos, getNumeroDeAtletas());
+        if (tabelaAtletas != null) {
+            tabelaAtletas.alocaTemposPassagem(numerosDePontos);
+        }
+        long pesquisas = 0;
+        while (leitor.proximaLinha()) {
+            int dorsal = leitor.lerInt();
+            String nome = leitor.lerString();
+            leitor.saltaCampo();
             int[] temposPassagem = new int[numerosDePontos];
-            for (int i = 3; i < partes.length; i++) {
-                int tempo = getTime(partes[i]);
-                temposPassagem[i - 3] = tempo;
-                reg[i - 3][vez] = new RegistoPassagem(dorsal, tempo);
+            for (int i = 0; i < numerosDePontos; i++) {
+                int tempo = leitor.temCampo() ? getTime(leitor.lerTempoDia()) : MINUTOS_DE_QUEM_NAO_PASSOU;
+                temposPassagem[i] = tempo;
             }
-            atletas[Atleta.indiceAtletaPorNome(atletas, partes[1])].setTemposPassagem(temposPassagem);
-            vez++;
-        }
-        for (RegistoPassagem[] row : reg) {
-            Arrays.sort(row, new ComparaRegistoPassagemTempo());
+            reg.adiciona(dorsal, temposPassagem);
+            atleta(indiceAtletaPorNome(nome)).setTemposPassagem(temposPassagem);
+            pesquisas++;
         }
-        sc.close();
+        metricasCarregamento.registaPesquisas(pesquisas, 0, 0);
         return reg;
     }
 
     /**
-     * Método privado para obter o tempo de passagem a partir de uma string.
+     * Método privado para construir a tabela de posições de cada atleta em cada
+     * posto, a partir das linhas já ordenadas de registosPassagem. Cada posto é
+     * uma tarefa fork-join que preenche apenas a sua linha da matriz.
+     * 
+     * @return Uma matriz indexada por posto e por índice de atleta.
+     */
+    private int[][] inicializarPosicoesPostos() {
+        int[][] posicoes = new int[registosPassagem.numeroPostos()][getNumeroDeAtletas()];
+        long[] semResultado = new long[posicoes.length];
+        Executores.paraCada(paralelismo, posicoes.length, posto -> {
+            for (int j = 0; j < registosPassagem.numeroRegistos(); j++) {
+                int indice = indiceAtletaPorDorsal(registosPassagem.dorsal(posto, j));
+                if (indice != -1) {
+                    posicoes[posto][indice] = j + 1;
+                } else {
+                    semResultado[posto]++;
+                }
+            }
+        });
+        metricasCarregamento.registaPesquisas(0,
+                (long) registosPassagem.numeroPostos() * registosPassagem.numeroRegistos(),
+                Arrays.stream(semResultado).sum());
+        return posicoes;
+    }
+
+    /**
+     * Método privado para obter o tempo de passagem a partir do valor lido por
+     * LeitorCsv.lerTempoDia(), através da tabela de conversão do calendário da
+     * prova.
      * 
-     * @param dia A string que representa o dia e a hora da passagem.
+     * @param tempoDia O dia da semana e a hora da passagem, codificados.
      * @return O tempo de passagem em minutos.
      */
-    private static int getTime(String tempo) {
-        String[] dados = tempo.split(" ");
-        if (dados.length == 1) {
+    private int getTime(int tempoDia) {
+        if (tempoDia == LeitorCsv.SEM_TEMPO) {
             return MINUTOS_DE_QUEM_NAO_PASSOU;
         }
-        String[] horaPartes = dados[1].split(":");
-        int horas = Integer.parseInt(horaPartes[0]);
-        int minutos = Integer.parseInt(horaPartes[1]);
-
-        int dia;
-        if (dados[0].contains("Sun.")) {
-            dia = 3;
-        } 
-        else if (dados[0].contains("Sat.")) {
-            dia = 2;
-        } 
-        else {
-            dia = 1;
-        }
-        Tempo time = new Tempo(2023, 9, dia, horas, minutos, 0);
-        return time.getMinutosEmProva();
+        return calendario.minutosEmProva(tempoDia);
     }
 
     /**
-     * Método privado para processar as classificações. Lê os dados do arquivo
+     * Método privado para processar as classificações. Lê os dados do ficheiro
      * fornecido e atualiza os objetos Atleta correspondentes.
      * 
-     * @param nome O caminho para o ficheiro csv que contém as classificações.
-     * @throws FileNotFoundException Se o arquivo não for encontrado.
+     * @param leitor O leitor do ficheiro csv que contém as classificações.
      */
-    private void classificacoes(String nome) throws FileNotFoundException {
-        Scanner sc = new Scanner(new File(nome));
-        sc.nextLine();
-        sc.nextLine();
-        sc.nextLine();
-        while (sc.hasNextLine()) {
-            String[] partes = sc.nextLine().split(";");
-            int indice = Atleta.indiceAtletaPorNome(atletas, partes[2]);
-            atletas[indice].setPosicaoFinalAbsoluta(Integer.parseInt(partes[0]));
-            atletas[indice].setPosicaoFinalEscalao(Integer.parseInt(partes[5]));
-            String[] timeParts = partes[6].split(":");
-            int[] tempos = { Integer.parseInt(timeParts[0]), Integer.parseInt(timeParts[1]),
-                    Integer.parseInt(timeParts[2]) };
-            atletas[indice].setTempoNaMeta(tempos);
+    private void classificacoes(LeitorCsv leitor) {
+        leitor.saltaLinhas(3);
+        long pesquisas = 0;
+        while (leitor.proximaLinha()) {
+            int posicaoFinalAbsoluta = leitor.lerInt();
+            leitor.saltaCampo();
+            int indice = indiceAtletaPorNome(leitor.lerString());
+            leitor.saltaCampo();
+            leitor.saltaCampo();
+            int posicaoFinalEscalao = leitor.lerInt();
+            int segundos = leitor.lerDuracaoSegundos();
+            Atleta atleta = atleta(indice);
+            atleta.setPosicaoFinalAbsoluta(posicaoFinalAbsoluta);
+            atleta.setPosicaoFinalEscalao(posicaoFinalEscalao);
+            atleta.setSegundosNaMeta(segundos);
+            pesquisas++;
         }
-        sc.close();
+        metricasCarregamento.registaPesquisas(pesquisas, 0, 0);
     }
 
     /**
-     * Retorna uma cópia do array de atletas ordenados.
+     * Retorna as métricas do carregamento da corrida a partir dos ficheiros csv:
+     * o tempo de cada fase, as linhas e os bytes lidos, os bytes alocados, o
+     * tempo da ordenação de cada posto e as pesquisas de atletas.
+     * 
+     * @return As métricas do carregamento.
+     */
+    public MetricasCarregamento getMetricasCarregamento() {
+        return metricasCarregamento;
+    }
+
+    /**
+     * Retorna uma cópia do array de atletas ordenados. Se os atletas estiverem
+     * guardados fora do heap, o array é preenchido com novas vistas sobre eles.
      * 
      * @return Uma cópia do array de atletas ordenados.
      */
     public Atleta[] getAtletas() {
-        return Arrays.copyOf(atletas, atletas.length);
+        if (atletas != null) {
+            return Arrays.copyOf(atletas, atletas.length);
+        }
+        Atleta[] vistas = new Atleta[tabelaAtletas.numeroAtletas()];
+        for (int i = 0; i < vistas.length; i++) {
+            vistas[i] = atleta(i);
+        }
+        return vistas;
+    }
+
+    /**
+     * Retorna os atletas ordenados segundo um comparador, numa lista imutável que
+     * não copia os atletas.
+     * 
+     * Para os comparadores de project.comparators, que não têm estado, a ordenação
+     * é calculada apenas na primeira invocação com cada classe de comparador e a
+     * mesma lista é retornada às invocações seguintes. As ordenações pela posição
+     * final ou pelo tempo na meta voltam a ser calculadas depois de esses dados
+     * de algum atleta da corrida serem alterados através dos setters de Atleta;
+     * as restantes (por dorsal, nome, escalão e nacionalidade) nunca mudam. Como
+     * nenhum desses comparadores depende dos tempos de passagem,
+     * registaPassagem() não invalida as ordenações. Outros comparadores
+     * ordenam os atletas a cada invocação. Atletas equivalentes para o comparador
+     * ficam por ordem crescente de dorsal.
+     * 
+     * @param comparador O comparador que define a ordem.
+     * @return Uma lista imutável com todos os atletas, por ordem.
+     */
+    public synchronized List<Atleta> getAtletasOrdenados(Comparator<Atleta> comparador) {
+        if (comparador.getClass().getPackage() != ComparaAtletaDorsal.class.getPackage()) {
+            return ordenaIndices(comparador);
+        }
+        long versaoAtual = versaoClassificacoes.get();
+        if (versaoOrdenacoes != versaoAtual) {
+            ordenacoes.keySet().removeAll(COMPARADORES_DA_CLASSIFICACAO);
+            versaoOrdenacoes = versaoAtual;
+        }
+        return ordenacoes.computeIfAbsent(comparador.getClass(), classe -> ordenaIndices(comparador));
+    }
+
+    /**
+     * Método privado que ordena os índices dos atletas segundo um comparador, com
+     * uma ordenação estável a partir da ordem por dorsal.
+     * 
+     * @param comparador O comparador que define a ordem.
+     * @return A lista dos atletas por essa ordem.
+     */
+    private AtletasOrdenados ordenaIndices(Comparator<Atleta> comparador) {
+        Atleta[] vistas = atletas != null ? atletas : getAtletas();
+        int[] indices = new int[vistas.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        ordenaIndices(indices, new int[indices.length], 0, indices.length, vistas, comparador);
+        return new AtletasOrdenados(this, indices);
+    }
+
+    /**
+     * Método privado que ordena, por fusão, os índices de atletas entre inicio e
+     * fim segundo um comparador, sem criar objetos por índice. A ordenação é
+     * estável.
+     * 
+     * @param indices    Os índices a ordenar.
+     * @param auxiliar   Um array com o tamanho de indices, para as fusões.
+     * @param inicio     O início do intervalo a ordenar.
+     * @param fim        O fim (exclusivo) do intervalo a ordenar.
+     * @param vistas     Os atletas, pelo seu índice.
+     * @param comparador O comparador que define a ordem.
+     */
+    private static void ordenaIndices(int[] indices, int[] auxiliar, int inicio, int fim, Atleta[] vistas,
+            Comparator<Atleta> comparador) {
+        if (fim - inicio <= 16) {
+            for (int i = inicio + 1; i < fim; i++) {
+                int indice = indices[i];
+                int j = i;
+                while (j > inicio && comparador.compare(vistas[indices[j - 1]], vistas[indice]) > 0) {
+                    indices[j] = indices[j - 1];
+                    j--;
+                }
+                indices[j] = indice;
+            }
+            return;
+        }
+        int meio = (inicio + fim) >>> 1;
+        ordenaIndices(indices, auxiliar, inicio, meio, vistas, comparador);
+        ordenaIndices(indices, auxiliar, meio, fim, vistas, comparador);
+        if (comparador.compare(vistas[indices[meio - 1]], vistas[indices[meio]]) <= 0) {
+            return;
+        }
+        System.arraycopy(indices, inicio, auxiliar, inicio, meio - inicio);
+        int esquerda = inicio;
+        int direita = meio;
+        int k = inicio;
+        while (esquerda < meio && direita < fim) {
+            if (comparador.compare(vistas[indices[direita]], vistas[auxiliar[esquerda]]) < 0) {
+                indices[k++] = indices[direita++];
+            } else {
+                indices[k++] = auxiliar[esquerda++];
+            }
+        }
+        while (esquerda < meio) {
+            indices[k++] = auxiliar[esquerda++];
+        }
+    }
+
+    /**
+     * Regista que a posição final ou o tempo na meta de um atleta da corrida foram
+     * alterados, invalidando as ordenações de getAtletasOrdenados().
+     */
+    void classificacaoAlterada() {
+        versaoClassificacoes.incrementAndGet();
     }
 
     /**
@@ -202,16 +579,335 @@ public class Corrida {
      * @return O atleta no índice especificado.
      */
     public Atleta getAtletaPorIndice(int indice) {
-        return atletas[indice];
+        return atleta(indice);
+    }
+
+    /**
+     * Retorna o índice, no array de atletas, do atleta com o nome dado. A pesquisa
+     * é feita em tempo constante, através de um índice construído no construtor.
+     * 
+     * @param nome O nome do atleta.
+     * @return O índice do atleta, ou -1 se o atleta não for encontrado.
+     */
+    public int indiceAtletaPorNome(String nome) {
+        if (indicesPorNome == null) {
+            return tabelaAtletas.indicePorNome(nome);
+        }
+        Integer indice = indicesPorNome.get(nome);
+        return indice == null ? -1 : indice;
+    }
+
+    /**
+     * Retorna o índice, no array de atletas, do atleta com o dorsal dado. A
+     * pesquisa é feita em tempo constante, através de um índice construído no
+     * construtor, ou em tempo logarítmico, por pesquisa binária, se os atletas
+     * estiverem fora do heap.
+     * 
+     * @param dorsal O número do dorsal do atleta.
+     * @return O índice do atleta, ou -1 se o atleta não for encontrado.
+     */
+    public int indiceAtletaPorDorsal(int dorsal) {
+        if (indicesPorDorsal == null) {
+            return tabelaAtletas.indicePorDorsal(dorsal);
+        }
+        Integer indice = indicesPorDorsal.get(dorsal);
+        return indice == null ? -1 : indice;
+    }
+
+    /**
+     * Retorna o atleta com o dorsal dado.
+     * 
+     * @param dorsal O número do dorsal do atleta.
+     * @return O atleta com o dorsal dado, ou null se não existir.
+     */
+    public Atleta getAtletaPorDorsal(int dorsal) {
+        int indice = indiceAtletaPorDorsal(dorsal);
+        return indice == -1 ? null : atleta(indice);
+    }
+
+    /**
+     * Seleciona os atletas de acordo com o escalão e/ou nacionalidade, com as
+     * mesmas convenções de Atleta.seleccionaEscalaoEouNacionalidade. Os atletas
+     * não são percorridos: a seleção é a interseção dos mapas de bits do escalão e
+     * da nacionalidade.
+     * 
+     * @param escalao       O escalão desejado, ou "todos" se não houver restrição.
+     * @param nacionalidade A nacionalidade desejada, ou "todas" se não houver
+     *                      restrição.
+     * @return Um novo vetor com os atletas que atendem às restrições, por ordem
+     *         crescente de dorsal.
+     */
+    public Atleta[] seleccionaEscalaoEouNacionalidade(String escalao, String nacionalidade) {
+        BitSet seleccionados = mapaEscalaoEouNacionalidade(escalao, nacionalidade);
+        if (seleccionados == null) {
+            return getAtletas();
+        }
+        Atleta[] vec = new Atleta[seleccionados.cardinality()];
+        int j = 0;
+        for (int i = seleccionados.nextSetBit(0); i >= 0; i = seleccionados.nextSetBit(i + 1)) {
+            vec[j++] = atleta(i);
+        }
+        return vec;
+    }
+
+    /**
+     * Conta os atletas de um escalão e/ou nacionalidade, com as convenções de
+     * seleccionaEscalaoEouNacionalidade, através do número de bits do mapa de bits
+     * correspondente.
+     * 
+     * @param escalao       O escalão desejado, ou "todos" se não houver restrição.
+     * @param nacionalidade A nacionalidade desejada, ou "todas" se não houver
+     *                      restrição.
+     * @return O número de atletas que atendem às restrições.
+     */
+    public int contaEscalaoEouNacionalidade(String escalao, String nacionalidade) {
+        BitSet seleccionados = mapaEscalaoEouNacionalidade(escalao, nacionalidade);
+        return seleccionados == null ? getNumeroDeAtletas() : seleccionados.cardinality();
+    }
+
+    /**
+     * Cria uma consulta sobre os atletas da corrida, a que se acrescentam filtros,
+     * uma ordem e um limite antes de a executar (ver ConsultaAtletas).
+     * 
+     * @return Uma nova consulta, sem restrições, sobre todos os atletas.
+     */
+    public ConsultaAtletas consulta() {
+        return new ConsultaAtletas(this);
+    }
+
+    /**
+     * Retorna os k primeiros atletas segundo um comparador (por exemplo, um dos de
+     * project.comparators), sem copiar nem ordenar todos os atletas: os atletas
+     * são percorridos uma vez e só os k melhores são guardados. Atletas
+     * equivalentes para o comparador ficam por ordem crescente de dorsal.
+     * 
+     * @param comparador O comparador que define a ordem.
+     * @param k          O número de atletas a retornar.
+     * @return Um novo array com os min(k, getNumeroDeAtletas()) primeiros atletas,
+     *         por ordem.
+     * @throws IllegalArgumentException Se k for negativo.
+     */
+    public synchronized Atleta[] topK(Comparator<Atleta> comparador, int k) {
+        int numeroAtletas = getNumeroDeAtletas();
+        SelecaoTopK<Atleta> selecao = new SelecaoTopK<>(k, comparador, numeroAtletas);
+        for (int i = 0; i < numeroAtletas; i++) {
+            selecao.oferece(atleta(i));
+        }
+        return selecao.retira(new Atleta[selecao.tamanho()]);
+    }
+
+    /**
+     * Versão do método anterior restrita aos atletas de um escalão e/ou
+     * nacionalidade, com as convenções de seleccionaEscalaoEouNacionalidade. Só os
+     * atletas selecionados pelos mapas de bits são percorridos.
+     * 
+     * @param comparador    O comparador que define a ordem.
+     * @param k             O número de atletas a retornar.
+     * @param escalao       O escalão desejado, ou "todos".
+     * @param nacionalidade A nacionalidade desejada, ou "todas".
+     * @return Um novo array com os primeiros k atletas selecionados, por ordem.
+     * @throws IllegalArgumentException Se k for negativo.
+     */
+    public Atleta[] topK(Comparator<Atleta> comparador, int k, String escalao, String nacionalidade) {
+        return consulta().escalao(escalao).nacionalidade(nacionalidade).ordenadaPor(comparador).limite(k)
+                .executa();
+    }
+
+    /**
+     * Retorna os primeiros k atletas a passar num posto. Os registos do posto já
+     * estão ordenados por tempo de passagem, pelo que só são lidos os k primeiros.
+     * Os atletas que não passaram no posto não são incluídos.
+     * 
+     * @param posto O índice do posto de controlo, a partir de 0.
+     * @param k     O número de atletas a retornar.
+     * @return Um novo array com, no máximo, k atletas, por ordem de passagem.
+     * @throws IllegalArgumentException Se o posto não existir ou k for negativo.
+     */
+    public synchronized Atleta[] topKNoPosto(int posto, int k) {
+        if (posto < 0 || posto >= posicoesPostos.length) {
+            throw new IllegalArgumentException("Posto inexistente: " + posto);
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("Número de atletas inválido: " + k);
+        }
+        int quantos = registosPassagem.limiteInferior(posto, MINUTOS_DE_QUEM_NAO_PASSOU, 0,
+                Math.min(k, registosPassagem.numeroRegistos()));
+        Atleta[] primeiros = new Atleta[quantos];
+        for (int j = 0; j < quantos; j++) {
+            primeiros[j] = getAtletaPorDorsal(registosPassagem.dorsal(posto, j));
+        }
+        return primeiros;
+    }
+
+    /**
+     * Retorna os índices dos atletas de um escalão e/ou nacionalidade, com as
+     * convenções de seleccionaEscalaoEouNacionalidade.
+     * 
+     * @param escalao       O escalão desejado, ou "todos".
+     * @param nacionalidade A nacionalidade desejada, ou "todas".
+     * @return Um novo mapa de bits com os índices dos atletas.
+     */
+    BitSet indicesEscalaoEouNacionalidade(String escalao, String nacionalidade) {
+        BitSet mapa = mapaEscalaoEouNacionalidade(escalao, nacionalidade);
+        if (mapa == null) {
+            BitSet todos = new BitSet(getNumeroDeAtletas());
+            todos.set(0, getNumeroDeAtletas());
+            return todos;
+        }
+        return (BitSet) mapa.clone();
+    }
+
+    /**
+     * Retorna os índices dos atletas cujo registo de passagem num posto tem um
+     * tempo entre mínimo e máximo, inclusive. Os registos são encontrados por
+     * procura binária nos registos do posto, que estão ordenados por tempo.
+     * 
+     * @param posto  O índice do posto de controlo, a partir de 0.
+     * @param minimo O tempo mínimo, em minutos desde a partida.
+     * @param maximo O tempo máximo, em minutos desde a partida.
+     * @return Um novo mapa de bits com os índices dos atletas.
+     * @throws IllegalArgumentException Se o posto não existir.
+     */
+    synchronized BitSet indicesTempoNoPosto(int posto, int minimo, int maximo) {
+        if (posto < 0 || posto >= posicoesPostos.length) {
+            throw new IllegalArgumentException("Posto inexistente: " + posto);
+        }
+        BitSet indices = new BitSet(getNumeroDeAtletas());
+        int numeroRegistos = registosPassagem.numeroRegistos();
+        int de = registosPassagem.limiteInferior(posto, minimo, 0, numeroRegistos);
+        int ate = registosPassagem.limiteSuperior(posto, maximo, de, numeroRegistos);
+        for (int j = de; j < ate; j++) {
+            int indice = indiceAtletaPorDorsal(registosPassagem.dorsal(posto, j));
+            if (indice != -1) {
+                indices.set(indice);
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Retorna os escalões dos atletas da corrida.
+     * 
+     * @return Um novo array com os escalões distintos, por ordem alfabética.
+     */
+    public String[] getEscaloes() {
+        return escaloes.valoresOrdenados();
+    }
+
+    /**
+     * Retorna as nacionalidades dos atletas da corrida.
+     * 
+     * @return Um novo array com as nacionalidades distintas, por ordem alfabética.
+     */
+    public String[] getNacionalidades() {
+        return nacionalidades.valoresOrdenados();
+    }
+
+    /**
+     * Método privado que retorna o mapa de bits dos índices dos atletas de um
+     * escalão e/ou nacionalidade. Se houver uma só restrição, é o próprio mapa do
+     * índice, que não deve ser alterado.
+     * 
+     * @param escalao       O escalão desejado, ou "todos".
+     * @param nacionalidade A nacionalidade desejada, ou "todas".
+     * @return O mapa de bits, ou null se não houver restrições.
+     */
+    private BitSet mapaEscalaoEouNacionalidade(String escalao, String nacionalidade) {
+        BitSet mapa = null;
+        if (!escalao.equals("todos")) {
+            int codigo = escaloes.codigo(escalao);
+            mapa = codigo == -1 ? new BitSet() : escaloes.atletas(codigo);
+        }
+        if (!nacionalidade.equals("todas")) {
+            int codigo = nacionalidades.codigo(nacionalidade);
+            BitSet mapaNacionalidade = codigo == -1 ? new BitSet() : nacionalidades.atletas(codigo);
+            if (mapa == null) {
+                mapa = mapaNacionalidade;
+            } else {
+                mapa = (BitSet) mapa.clone();
+                mapa.and(mapaNacionalidade);
+            }
+        }
+        return mapa;
+    }
+
+    /**
+     * Retorna uma matriz de registos de passagem, com uma linha por posto de
+     * controlo ordenada por ordem crescente de tempo de passagem. Os objetos
+     * RegistoPassagem são criados a cada invocação a partir das colunas de
+     * inteiros guardadas pela corrida; para percorrer os registos sem os criar,
+     * usar getDorsalRegisto e getTempoPassagemRegisto.
+     * 
+     * @return Uma nova matriz de registos de passagem.
+     */
+    public synchronized RegistoPassagem[][] getRegistosPassagem() {
+        RegistoPassagem[][] registos = new RegistoPassagem[registosPassagem.numeroPostos()][];
+        for (int i = 0; i < registos.length; i++) {
+            registos[i] = registosPassagem.registos(i);
+        }
+        return registos;
+    }
+
+    /**
+     * Retorna o dorsal do atleta que passou num posto numa dada posição.
+     * 
+     * @param posto   O índice do posto de controlo, a partir de 0.
+     * @param posicao O índice do registo no posto, a partir de 0.
+     * @return O dorsal do atleta.
+     */
+    public synchronized int getDorsalRegisto(int posto, int posicao) {
+        return registosPassagem.dorsal(posto, posicao);
+    }
+
+    /**
+     * Retorna o tempo de passagem do atleta que passou num posto numa dada
+     * posição.
+     * 
+     * @param posto   O índice do posto de controlo, a partir de 0.
+     * @param posicao O índice do registo no posto, a partir de 0.
+     * @return O tempo de passagem, em minutos desde a partida.
+     */
+    public synchronized int getTempoPassagemRegisto(int posto, int posicao) {
+        return registosPassagem.minutos(posto, posicao);
+    }
+
+    /**
+     * Retorna o número de registos de passagem em cada posto de controlo.
+     * 
+     * @return O número de registos de passagem em cada posto de controlo.
+     */
+    public synchronized int getNumeroRegistosPorPosto() {
+        return registosPassagem.numeroRegistos();
     }
 
     /**
-     * Retorna uma cópia da matriz de registos de passagem.
+     * Retorna o calendário usado para converter os tempos de passagem da corrida.
      * 
-     * @return Uma cópia da matriz de registos de passagem.
+     * @return O calendário da prova.
      */
-    public RegistoPassagem[][] getRegistosPassagem() {
-        return Arrays.copyOf(registosPassagem, registosPassagem.length);
+    public CalendarioProva getCalendario() {
+        return calendario;
+    }
+
+    /**
+     * Retorna a tabela com os registos de passagem da corrida, para uso das
+     * classes do pacote que os processam em bloco.
+     * 
+     * @return A tabela de registos de passagem.
+     */
+    TabelaPassagens getTabelaPassagens() {
+        return registosPassagem;
+    }
+
+    /**
+     * Retorna o número de alterações feitas aos registos de passagem desde que a
+     * corrida foi carregada. Permite saber se os dados mudaram desde uma consulta
+     * anterior.
+     * 
+     * @return O número de alterações feitas aos registos de passagem.
+     */
+    public long getVersao() {
+        return versao;
     }
 
     /**
@@ -220,7 +916,7 @@ public class Corrida {
      * @return o número de atletas na corrida.
      */
     public int getNumeroDeAtletas() {
-        return atletas.length;
+        return atletas != null ? atletas.length : tabelaAtletas.numeroAtletas();
     }
 
     /**
@@ -229,7 +925,7 @@ public class Corrida {
      * @return O número de postos de controle na corrida.
      */
     public int getNumeroPostosControlo() {
-        return registosPassagem.length;
+        return registosPassagem.numeroPostos();
     }
 
     /**
@@ -244,21 +940,198 @@ public class Corrida {
      *         atleta no respectivo posto de controle.
      */
 
-    public int[] calculaPosicoesPostos(int dorsal) {
-        int[] posicoes = new int[registosPassagem.length];
-        for (int i = 0; i < registosPassagem.length; i++) {
-            int posicao = 0;
-            for (int j = 0; j < registosPassagem[i].length; j++) {
-                if (registosPassagem[i][j].getDorsal() == dorsal) {
-                    posicao = j + 1;
-                    break;
-                }
+    public synchronized int[] calculaPosicoesPostos(int dorsal) {
+        int[] posicoes = new int[posicoesPostos.length];
+        int indice = indiceAtletaPorDorsal(dorsal);
+        if (indice != -1) {
+            for (int i = 0; i < posicoesPostos.length; i++) {
+                posicoes[i] = indiceRegisto(i, indice) + 1;
             }
-            posicoes[i] = posicao;
         }
         return posicoes;
     }
 
+    /**
+     * Versão do método anterior para vários atletas de uma só vez. A linha i da
+     * matriz retornada contém as posições do atleta com o dorsal dorsais[i] em
+     * cada um dos postos, com as mesmas convenções de calculaPosicoesPostos(int).
+     * 
+     * @param dorsais Um array de dorsais de atletas.
+     * @return Uma matriz de inteiros com uma linha por dorsal e uma coluna por
+     *         posto de controlo.
+     */
+    public synchronized int[][] calculaPosicoesPostos(int[] dorsais) {
+        int[][] posicoes = new int[dorsais.length][];
+        for (int i = 0; i < dorsais.length; i++) {
+            posicoes[i] = calculaPosicoesPostos(dorsais[i]);
+        }
+        return posicoes;
+    }
+
+    /**
+     * Retorna a posição em que o atleta com o dorsal dado passou num posto.
+     * 
+     * @param dorsal O número do dorsal do atleta.
+     * @param posto  O índice do posto de controlo, a partir de 0.
+     * @return A posição do atleta no posto, ou 0 se o dorsal não for encontrado.
+     */
+    public synchronized int posicaoNoPosto(int dorsal, int posto) {
+        int indice = indiceAtletaPorDorsal(dorsal);
+        return indice == -1 ? 0 : indiceRegisto(posto, indice) + 1;
+    }
+
+    /**
+     * Retorna a análise dos parciais da corrida: a duração de cada segmento entre
+     * postos consecutivos, os lugares ganhos ou perdidos e as ultrapassagens de
+     * cada atleta. A análise é calculada de uma só vez para todos os atletas, a
+     * partir das posições nos postos, com um posto ou segmento por tarefa
+     * fork-join, e a mesma análise é retornada até que os registos de passagem
+     * sejam alterados por registaPassagem().
+     * 
+     * @return A análise dos parciais, indexada pelo índice dos atletas na corrida.
+     */
+    public synchronized AnaliseParciais analiseParciais() {
+        if (analiseParciais != null && analiseParciais.getVersao() == versao) {
+            return analiseParciais;
+        }
+        int numeroAtletas = getNumeroDeAtletas();
+        int[][] posicoes = new int[posicoesPostos.length][numeroAtletas];
+        int[][] minutos = new int[posicoesPostos.length][numeroAtletas];
+        Executores.paraCada(paralelismo, posicoesPostos.length, posto -> {
+            int[] posicoesRegistos = registosPassagem.posicoes(posto);
+            for (int i = 0; i < numeroAtletas; i++) {
+                int registo = posicoesPostos[posto][i] - 1;
+                int tempo = minutosDoAtleta(posto, i);
+                minutos[posto][i] = tempo;
+                posicoes[posto][i] = tempo == MINUTOS_DE_QUEM_NAO_PASSOU ? 0
+                        : (posicoesRegistos == null ? registo : posicoesRegistos[registo]) + 1;
+            }
+        });
+        analiseParciais = new AnaliseParciais(posicoes, minutos, versao, paralelismo);
+        return analiseParciais;
+    }
+
+    /**
+     * Calcula as distribuições dos tempos de passagem em cada posto e das
+     * durações de cada segmento entre postos consecutivos, para todos os atletas
+     * e por escalão. Cada posto é percorrido uma vez, por índice de atleta e
+     * através das posições nos postos, numa tarefa fork-join que acrescenta os
+     * tempos de passagem no posto e as durações do segmento que termina nele a
+     * esboços de quantis, sem os ordenar; as estatísticas retornadas podem depois
+     * receber as passagens registadas durante a prova.
+     * 
+     * @param larguraClasse A largura das classes dos histogramas, em minutos.
+     * @return As estatísticas dos postos e segmentos.
+     * @throws IllegalArgumentException Se a largura não for positiva.
+     */
+    public synchronized EstatisticasPostos estatisticasPostos(int larguraClasse) {
+        if (larguraClasse <= 0) {
+            throw new IllegalArgumentException("Largura de classe inválida: " + larguraClasse);
+        }
+        int numeroAtletas = getNumeroDeAtletas();
+        String[] nomesEscaloes = new String[escaloes.numeroValores()];
+        int[] escalaoDoAtleta = new int[numeroAtletas];
+        for (int c = 0; c < nomesEscaloes.length; c++) {
+            nomesEscaloes[c] = escaloes.valor(c);
+            BitSet atletasDoEscalao = escaloes.atletas(c);
+            for (int i = atletasDoEscalao.nextSetBit(0); i >= 0; i = atletasDoEscalao.nextSetBit(i + 1)) {
+                escalaoDoAtleta[i] = c;
+            }
+        }
+        EstatisticasPostos estatisticas = new EstatisticasPostos(posicoesPostos.length, nomesEscaloes,
+                larguraClasse);
+        Executores.paraCada(paralelismo, posicoesPostos.length, posto -> {
+            for (int i = 0; i < numeroAtletas; i++) {
+                int minutos = minutosDoAtleta(posto, i);
+                if (minutos == MINUTOS_DE_QUEM_NAO_PASSOU) {
+                    continue;
+                }
+                estatisticas.adicionaPassagem(posto, escalaoDoAtleta[i], minutos);
+                int anterior = posto == 0 ? MINUTOS_DE_QUEM_NAO_PASSOU
+                        : minutosDoAtleta(posto - 1, i);
+                if (anterior != MINUTOS_DE_QUEM_NAO_PASSOU) {
+                    estatisticas.adicionaSegmento(posto - 1, escalaoDoAtleta[i], minutos - anterior);
+                }
+            }
+        });
+        return estatisticas;
+    }
+
+    /**
+     * Regista a passagem de um atleta num posto durante a prova, atualizando o
+     * tempo de passagem do atleta, a ordem dos registos do posto e as posições no
+     * posto, sem voltar a ler os ficheiros. Também serve para corrigir uma
+     * passagem já registada, ou para a anular, com o tempo
+     * MINUTOS_DE_QUEM_NAO_PASSOU.
+     * 
+     * O registo do atleta é identificado através de posicoesPostos e recolocado
+     * no posto em O(log n), com n registos por posto; só a primeira passagem
+     * registada em cada posto custa O(n), por converter o posto numa árvore de
+     * pesquisa (ver TabelaPassagens).
+     * 
+     * @param dorsal         O número do dorsal do atleta.
+     * @param posto          O índice do posto de controlo, a partir de 0.
+     * @param minutosEmProva O tempo de passagem, em minutos desde a partida (ver
+     *                       getCalendario() para converter a hora da passagem).
+     * @throws IllegalArgumentException Se o dorsal ou o posto não existirem.
+     */
+    public synchronized void registaPassagem(int dorsal, int posto, int minutosEmProva) {
+        int indice = indiceAtletaPorDorsal(dorsal);
+        if (indice == -1) {
+            throw new IllegalArgumentException("Dorsal desconhecido: " + dorsal);
+        }
+        if (posto < 0 || posto >= posicoesPostos.length) {
+            throw new IllegalArgumentException("Posto inexistente: " + posto);
+        }
+        Atleta atleta = atleta(indice);
+        if (!atleta.temTemposPassagem()) {
+            int[] temposPassagem = new int[posicoesPostos.length];
+            Arrays.fill(temposPassagem, MINUTOS_DE_QUEM_NAO_PASSOU);
+            atleta.setTemposPassagem(temposPassagem);
+        }
+        int registo = posicoesPostos[posto][indice] - 1;
+        if (registo == -1) {
+            // atleta sem registos de passagem: passa a ter um em cada posto, com o
+            // mesmo identificador
+            registo = registosPassagem.acrescenta(dorsal, MINUTOS_DE_QUEM_NAO_PASSOU);
+            for (int[] registos : posicoesPostos) {
+                registos[indice] = registo + 1;
+            }
+        }
+        registosPassagem.altera(posto, registo, minutosEmProva);
+        atleta.setTempoPassagem(posto, minutosEmProva);
+        versao++;
+    }
+
+    /**
+     * Método privado que retorna o índice, a partir de 0, do registo do atleta
+     * atletas[indice] num posto: diretamente de posicoesPostos, se o posto não
+     * tiver sido alterado, ou em O(log n) na árvore do posto, caso contrário.
+     * 
+     * @param posto  O índice do posto de controlo.
+     * @param indice O índice do atleta.
+     * @return O índice do registo no posto, ou -1 se não existir.
+     */
+    private int indiceRegisto(int posto, int indice) {
+        int registo = posicoesPostos[posto][indice] - 1;
+        return registo == -1 ? -1 : registosPassagem.posicao(posto, registo);
+    }
+
+    /**
+     * Método privado que retorna o tempo de passagem do atleta atletas[indice]
+     * num posto, lido do seu registo em O(1), mesmo que o posto tenha sido
+     * alterado, para as passagens que percorrem todos os atletas.
+     * 
+     * @param posto  O índice do posto de controlo.
+     * @param indice O índice do atleta.
+     * @return O tempo de passagem, ou MINUTOS_DE_QUEM_NAO_PASSOU se o atleta não
+     *         tiver registo no posto.
+     */
+    private int minutosDoAtleta(int posto, int indice) {
+        int registo = posicoesPostos[posto][indice] - 1;
+        return registo == -1 ? MINUTOS_DE_QUEM_NAO_PASSOU : registosPassagem.minutosDoRegisto(posto, registo);
+    }
+
     /**
      * Sendo vec um array de tamanho arbitrário, o método mostra uma janela com um
      * gráfico em que estão sobrepostas as séries de posições de cada atleta ao
@@ -290,12 +1163,7 @@ public class Corrida {
     public void plotPosicoesPostos(int[] dorsais) {
         Atleta[] vec = new Atleta[dorsais.length];
         for (int i = 0; i < dorsais.length; i++) {
-            for (Atleta atleta : atletas) {
-                if (atleta.getDorsal() == dorsais[i]) {
-                    vec[i] = atleta;
-                    break;
-                }
-            }
+            vec[i] = getAtletaPorDorsal(dorsais[i]);
         }
         plotPosicoesPostos(vec);
     }
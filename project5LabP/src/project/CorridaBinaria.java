@@ -0,0 +1,245 @@
+package project;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grava uma Corrida já construída num ficheiro binário compacto e volta a
+ * criá-la a partir desse ficheiro, sem ler nem processar os ficheiros csv.
+ *
+ * O ficheiro começa com um número mágico e a versão do formato, seguidos de:
+ * o calendário da prova; os números de atletas, postos e registos por posto; a
+ * tabela de textos (nomes, nacionalidades e escalões, cada um guardado uma só
+ * vez); os atletas, por ordem de dorsal, com as classificações, o tempo na
+ * meta em segundos e os tempos de passagem; e, para cada posto, as colunas de
+ * dorsais e de tempos ordenadas. Os inteiros são guardados em big-endian. Na
+ * leitura, o ficheiro é mapeado em memória e as colunas de cada posto são
+ * copiadas em bloco.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class CorridaBinaria {
+
+    /**
+     * Número mágico com que começam os ficheiros ("CRDA" em ASCII).
+     */
+    public static final int NUMERO_MAGICO = 0x43524441;
+
+    /**
+     * Versão do formato escrito por grava(). Na versão 1, o tempo na meta era
+     * guardado em {horas, minutos, segundos}; desde a versão 2 é guardado em
+     * segundos.
+     */
+    public static final int VERSAO = 2;
+
+    // Número máximo de postos aceite na leitura. Os postos não ocupam bytes no
+    // ficheiro se não houver registos, pelo que não podem ser limitados pelo
+    // tamanho do ficheiro.
+    private static final int MAXIMO_POSTOS = 1 << 16;
+
+    private CorridaBinaria() {
+    }
+
+    /**
+     * Grava uma corrida num ficheiro binário.
+     *
+     * @param corrida  A corrida a gravar.
+     * @param ficheiro O caminho para o ficheiro binário.
+     * @throws IOException Se o ficheiro não puder ser escrito.
+     */
+    public static void grava(Corrida corrida, String ficheiro) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(ficheiro), 1 << 16))) {
+            synchronized (corrida) {
+                TabelaPassagens registos = corrida.getTabelaPassagens();
+                int numeroAtletas = corrida.getNumeroDeAtletas();
+                int numeroPostos = registos.numeroPostos();
+
+                out.writeInt(NUMERO_MAGICO);
+                out.writeInt(VERSAO);
+                LocalDateTime inicio = corrida.getCalendario().getInicio();
+                out.writeInt(inicio.getYear());
+                out.writeInt(inicio.getMonthValue());
+                out.writeInt(inicio.getDayOfMonth());
+                out.writeInt(inicio.getHour());
+                out.writeInt(inicio.getMinute());
+                out.writeInt(numeroAtletas);
+                out.writeInt(numeroPostos);
+                out.writeInt(registos.numeroRegistos());
+
+                Map<String, Integer> codigos = new HashMap<>();
+                List<String> textos = new ArrayList<>();
+                int[] codigosAtletas = new int[numeroAtletas * 3];
+                for (int i = 0; i < numeroAtletas; i++) {
+                    Atleta atleta = corrida.getAtletaPorIndice(i);
+                    codigosAtletas[3 * i] = codigo(atleta.getNome(), codigos, textos);
+                    codigosAtletas[3 * i + 1] = codigo(atleta.getNacionalidade(), codigos, textos);
+                    codigosAtletas[3 * i + 2] = codigo(atleta.getEscalao(), codigos, textos);
+                }
+                out.writeInt(textos.size());
+                for (String texto : textos) {
+                    byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+
+                for (int i = 0; i < numeroAtletas; i++) {
+                    Atleta atleta = corrida.getAtletaPorIndice(i);
+                    out.writeInt(atleta.getDorsal());
+                    out.writeInt(codigosAtletas[3 * i]);
+                    out.writeInt(codigosAtletas[3 * i + 1]);
+                    out.writeInt(codigosAtletas[3 * i + 2]);
+                    out.writeInt(atleta.getPosicaoFinalAbsoluta());
+                    out.writeInt(atleta.getPosicaoFinalEscalao());
+                    out.writeInt(atleta.getSegundosNaMeta());
+                    out.writeBoolean(atleta.temTemposPassagem());
+                    if (atleta.temTemposPassagem()) {
+                        for (int j = 0; j < numeroPostos; j++) {
+                            out.writeInt(atleta.getTempoPassagem(j));
+                        }
+                    }
+                }
+
+                int[] dorsais = new int[registos.numeroRegistos()];
+                int[] minutos = new int[registos.numeroRegistos()];
+                for (int j = 0; j < numeroPostos; j++) {
+                    registos.colunas(j, dorsais, minutos);
+                    for (int dorsal : dorsais) {
+                        out.writeInt(dorsal);
+                    }
+                    for (int tempo : minutos) {
+                        out.writeInt(tempo);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Cria uma corrida a partir de um ficheiro binário escrito por grava().
+     *
+     * @param ficheiro O caminho para o ficheiro binário.
+     * @return A corrida gravada no ficheiro.
+     * @throws IOException Se o ficheiro não puder ser lido, não for um ficheiro
+     *                     de corrida, tiver uma versão desconhecida ou estiver
+     *                     incompleto ou corrompido.
+     */
+    public static Corrida carrega(String ficheiro) throws IOException {
+        ByteBuffer dados;
+        try (FileChannel canal = new FileInputStream(ficheiro).getChannel()) {
+            dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        try {
+            return carrega(dados);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(ficheiro + " está incompleto", e);
+        } catch (DateTimeException e) {
+            throw new IOException(ficheiro + " está corrompido", e);
+        }
+    }
+
+    private static Corrida carrega(ByteBuffer dados) throws IOException {
+        if (dados.getInt() != NUMERO_MAGICO) {
+            throw new IOException("Não é um ficheiro de corrida");
+        }
+        int versao = dados.getInt();
+        if (versao != VERSAO) {
+            throw new IOException("Versão do ficheiro de corrida desconhecida: " + versao);
+        }
+        CalendarioProva calendario = new CalendarioProva(dados.getInt(), dados.getInt(), dados.getInt(),
+                dados.getInt(), dados.getInt());
+        // um atleta ocupa pelo menos 7 inteiros e um byte; um registo, 2 inteiros
+        int numeroAtletas = contagem(dados, 7 * Integer.BYTES + 1);
+        int numeroPostos = contagem(dados, 0);
+        if (numeroPostos > MAXIMO_POSTOS) {
+            throw new IOException("Número de postos inválido no ficheiro de corrida: " + numeroPostos);
+        }
+        int numeroRegistos = contagem(dados, 2L * Integer.BYTES * numeroPostos);
+
+        String[] textos = new String[contagem(dados, Integer.BYTES)];
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < textos.length; i++) {
+            int tamanho = contagem(dados, 1);
+            if (bytes.length < tamanho) {
+                bytes = new byte[tamanho];
+            }
+            dados.get(bytes, 0, tamanho);
+            textos[i] = new String(bytes, 0, tamanho, StandardCharsets.UTF_8);
+        }
+
+        Atleta[] atletas = new Atleta[numeroAtletas];
+        int[] temposPassagem = new int[numeroPostos];
+        for (int i = 0; i < numeroAtletas; i++) {
+            int dorsal = dados.getInt();
+            String nome = texto(dados, textos);
+            String nacionalidade = texto(dados, textos);
+            String escalao = texto(dados, textos);
+            Atleta atleta = new Atleta(dorsal, nome, nacionalidade, escalao);
+            atleta.setPosicaoFinalAbsoluta(dados.getInt());
+            atleta.setPosicaoFinalEscalao(dados.getInt());
+            atleta.setSegundosNaMeta(dados.getInt());
+            if (dados.get() != 0) {
+                dados.asIntBuffer().get(temposPassagem);
+                dados.position(dados.position() + 4 * numeroPostos);
+                atleta.setTemposPassagem(temposPassagem);
+            }
+            atletas[i] = atleta;
+        }
+
+        int[][] dorsais = new int[numeroPostos][numeroRegistos];
+        int[][] minutos = new int[numeroPostos][numeroRegistos];
+        for (int j = 0; j < numeroPostos; j++) {
+            dados.asIntBuffer().get(dorsais[j]);
+            dados.position(dados.position() + 4 * numeroRegistos);
+            dados.asIntBuffer().get(minutos[j]);
+            dados.position(dados.position() + 4 * numeroRegistos);
+        }
+        return new Corrida(atletas, new TabelaPassagens(dorsais, minutos), calendario);
+    }
+
+    // Lê uma contagem e verifica que não é negativa e que o resto do ficheiro tem,
+    // pelo menos, bytesPorElemento bytes por elemento, para que um ficheiro
+    // corrompido não leve à criação de arrays enormes. A verificação é feita por
+    // divisão, para não transbordar.
+    static int contagem(ByteBuffer dados, long bytesPorElemento) throws IOException {
+        int contagem = dados.getInt();
+        if (contagem < 0 || bytesPorElemento > 0 && contagem > dados.remaining() / bytesPorElemento) {
+            throw new IOException("Contagem inválida no ficheiro: " + contagem);
+        }
+        return contagem;
+    }
+
+    // Lê o código de um texto e retorna o texto correspondente da tabela.
+    static String texto(ByteBuffer dados, String[] textos) throws IOException {
+        int codigo = dados.getInt();
+        if (codigo < 0 || codigo >= textos.length) {
+            throw new IOException("Código de texto inválido no ficheiro: " + codigo);
+        }
+        return textos[codigo];
+    }
+
+    // Retorna o código de um texto na tabela de textos, acrescentando-o se ainda
+    // não existir.
+    private static int codigo(String texto, Map<String, Integer> codigos, List<String> textos) {
+        Integer codigo = codigos.get(texto);
+        if (codigo == null) {
+            codigo = textos.size();
+            codigos.put(texto, codigo);
+            textos.add(texto);
+        }
+        return codigo;
+    }
+}
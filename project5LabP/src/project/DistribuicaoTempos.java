@@ -0,0 +1,182 @@
+package project;
+
+import java.util.Arrays;
+
+/**
+ * Distribuição de tempos em minutos, como os tempos de passagem num posto ou as
+ * durações de um segmento: contagem, mínimo, máximo, média, quantis (através de
+ * um EsbocoQuantis) e um histograma com classes de largura fixa.
+ *
+ * Os tempos são acrescentados um a um, sem ser guardados nem ordenados para lá
+ * da capacidade exata do esboço, e duas distribuições com a mesma largura de
+ * classe podem ser juntas.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class DistribuicaoTempos {
+
+    /**
+     * Erro relativo máximo dos quantis das distribuições com mais tempos do que
+     * CAPACIDADE_EXATA.
+     */
+    public static final double ERRO_RELATIVO = 0.01;
+
+    /**
+     * Número de tempos até ao qual os quantis são exatos.
+     */
+    public static final int CAPACIDADE_EXATA = 4096;
+
+    private final int larguraClasse;
+    private final EsbocoQuantis esboco = new EsbocoQuantis(ERRO_RELATIVO, CAPACIDADE_EXATA);
+    private long[] histograma = new long[0];
+    private long soma;
+    private int minimo = Integer.MAX_VALUE;
+    private int maximo = Integer.MIN_VALUE;
+
+    /**
+     * Cria uma distribuição vazia.
+     *
+     * @param larguraClasse A largura de cada classe do histograma, em minutos.
+     * @throws IllegalArgumentException Se a largura não for positiva.
+     */
+    public DistribuicaoTempos(int larguraClasse) {
+        if (larguraClasse <= 0) {
+            throw new IllegalArgumentException("Largura de classe inválida: " + larguraClasse);
+        }
+        this.larguraClasse = larguraClasse;
+    }
+
+    /**
+     * Acrescenta um tempo à distribuição. Os tempos negativos contam na primeira
+     * classe do histograma.
+     *
+     * @param minutos O tempo, em minutos.
+     */
+    public void adiciona(int minutos) {
+        esboco.adiciona(minutos);
+        int classe = Math.max(0, minutos / larguraClasse);
+        if (classe >= histograma.length) {
+            histograma = Arrays.copyOf(histograma, Math.max(classe + 1, 2 * histograma.length));
+        }
+        histograma[classe]++;
+        soma += minutos;
+        minimo = Math.min(minimo, minutos);
+        maximo = Math.max(maximo, minutos);
+    }
+
+    /**
+     * Junta a esta distribuição os tempos de outra, que não é alterada.
+     *
+     * @param outra A outra distribuição.
+     * @throws IllegalArgumentException Se as larguras de classe forem diferentes.
+     */
+    public void junta(DistribuicaoTempos outra) {
+        if (outra.larguraClasse != larguraClasse) {
+            throw new IllegalArgumentException("As distribuições têm larguras de classe diferentes");
+        }
+        esboco.junta(outra.esboco);
+        if (outra.histograma.length > histograma.length) {
+            histograma = Arrays.copyOf(histograma, outra.histograma.length);
+        }
+        for (int k = 0; k < outra.histograma.length; k++) {
+            histograma[k] += outra.histograma[k];
+        }
+        soma += outra.soma;
+        minimo = Math.min(minimo, outra.minimo);
+        maximo = Math.max(maximo, outra.maximo);
+    }
+
+    /**
+     * @return O número de tempos.
+     */
+    public long getContagem() {
+        return esboco.getContagem();
+    }
+
+    /**
+     * @return O menor tempo, ou Integer.MAX_VALUE se a distribuição estiver vazia.
+     */
+    public int getMinimo() {
+        return minimo;
+    }
+
+    /**
+     * @return O maior tempo, ou Integer.MIN_VALUE se a distribuição estiver vazia.
+     */
+    public int getMaximo() {
+        return maximo;
+    }
+
+    /**
+     * @return A média dos tempos, ou NaN se a distribuição estiver vazia.
+     */
+    public double getMedia() {
+        return (double) soma / getContagem();
+    }
+
+    /**
+     * @return true se os quantis são exatos (ver EsbocoQuantis.isExato()).
+     */
+    public boolean isExata() {
+        return esboco.isExato();
+    }
+
+    /**
+     * Retorna um quantil dos tempos, com as convenções de EsbocoQuantis.quantil().
+     *
+     * @param q O quantil, entre 0 e 1.
+     * @return O quantil, em minutos, ou NaN se a distribuição estiver vazia.
+     * @throws IllegalArgumentException Se q não estiver entre 0 e 1.
+     */
+    public double quantil(double q) {
+        return getContagem() == 0 ? Double.NaN : esboco.quantil(q);
+    }
+
+    /**
+     * @return A mediana dos tempos, em minutos.
+     */
+    public double getMediana() {
+        return quantil(0.5);
+    }
+
+    /**
+     * @return O percentil 90 dos tempos, em minutos.
+     */
+    public double getP90() {
+        return quantil(0.9);
+    }
+
+    /**
+     * @return O percentil 99 dos tempos, em minutos.
+     */
+    public double getP99() {
+        return quantil(0.99);
+    }
+
+    /**
+     * @return A largura de cada classe do histograma, em minutos.
+     */
+    public int getLarguraClasse() {
+        return larguraClasse;
+    }
+
+    /**
+     * Retorna o histograma dos tempos: o elemento k conta os tempos entre k *
+     * getLarguraClasse() (inclusive) e (k + 1) * getLarguraClasse() (exclusive).
+     *
+     * @return Um novo array com as contagens, até à classe do maior tempo.
+     */
+    public long[] getHistograma() {
+        int classes = getContagem() == 0 ? 0 : Math.max(0, maximo / larguraClasse) + 1;
+        return Arrays.copyOf(histograma, classes);
+    }
+
+    @Override
+    public String toString() {
+        if (getContagem() == 0) {
+            return "sem tempos";
+        }
+        return String.format("n=%d min=%d mediana=%.0f p90=%.0f p99=%.0f max=%d", getContagem(), minimo,
+                getMediana(), getP90(), getP99(), maximo);
+    }
+}
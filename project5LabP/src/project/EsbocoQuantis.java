@@ -0,0 +1,228 @@
+package project;
+
+import java.util.Arrays;
+
+/**
+ * Esboço (sketch) de uma distribuição de inteiros, como tempos em minutos, que
+ * permite estimar quantis (mediana, percentil 90, ...) sem guardar nem ordenar
+ * todos os valores. Os valores são acrescentados um a um e dois esboços com o
+ * mesmo erro relativo podem ser juntos, por exemplo para combinar os escalões de
+ * um posto ou partes de um campo processadas em separado.
+ *
+ * Enquanto o número de valores não passa da capacidade exata, os valores são
+ * guardados tal como são e os quantis são exatos. A partir daí, o esboço passa a
+ * contar os valores em classes de largura geométrica (à maneira do DDSketch): o
+ * valor v &gt; 0 fica na classe k = ceil(log(v) / log(g)), com g = (1 + e) / (1 -
+ * e), e cada quantil é estimado pelo valor central da sua classe, com um erro
+ * relativo de no máximo e. A memória ocupada passa a depender apenas da
+ * amplitude dos valores e não do seu número. Os valores negativos são tratados
+ * da mesma forma, pelo seu módulo, e o zero tem uma contagem própria.
+ *
+ * Os quantis usam a definição da posição mais próxima: o quantil q é o menor
+ * valor x tal que pelo menos q * n dos n valores são menores ou iguais a x.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class EsbocoQuantis {
+
+    private final double erroRelativo;
+    private final double logGama;
+    private final int capacidadeExata;
+
+    // Modo exato: os valores, ordenados apenas quando é pedido um quantil.
+    private int[] valores;
+    private boolean ordenados = true;
+
+    // Modo aproximado: contagens por classe dos valores positivos e dos módulos
+    // dos negativos, e contagem dos zeros.
+    private long[] positivos;
+    private long[] negativos;
+    private long zeros;
+
+    private long contagem;
+
+    /**
+     * Cria um esboço vazio.
+     *
+     * @param erroRelativo    O erro relativo máximo dos quantis depois de
+     *                        ultrapassada a capacidade exata, entre 0 e 1 (por
+     *                        exemplo 0.01 para 1%).
+     * @param capacidadeExata O número de valores até ao qual os quantis são
+     *                        exatos.
+     * @throws IllegalArgumentException Se o erro relativo não estiver entre 0 e 1
+     *                                  ou a capacidade for negativa.
+     */
+    public EsbocoQuantis(double erroRelativo, int capacidadeExata) {
+        if (!(erroRelativo > 0 && erroRelativo < 1)) {
+            throw new IllegalArgumentException("Erro relativo inválido: " + erroRelativo);
+        }
+        if (capacidadeExata < 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidadeExata);
+        }
+        this.erroRelativo = erroRelativo;
+        this.logGama = Math.log((1 + erroRelativo) / (1 - erroRelativo));
+        this.capacidadeExata = capacidadeExata;
+        this.valores = new int[Math.min(capacidadeExata, 16)];
+    }
+
+    /**
+     * Acrescenta um valor ao esboço.
+     *
+     * @param valor O valor.
+     */
+    public void adiciona(int valor) {
+        if (valores != null) {
+            if (contagem < capacidadeExata) {
+                if (contagem == valores.length) {
+                    valores = Arrays.copyOf(valores, (int) Math.min(capacidadeExata, 2 * contagem));
+                }
+                ordenados &= contagem == 0 || valores[(int) contagem - 1] <= valor;
+                valores[(int) contagem++] = valor;
+                return;
+            }
+            passaAAproximado();
+        }
+        conta(valor, 1);
+        contagem++;
+    }
+
+    /**
+     * Junta a este esboço os valores de outro, que não é alterado. O resultado é
+     * exato se a soma das contagens couber na capacidade exata deste esboço e
+     * nenhum dos dois já for aproximado.
+     *
+     * @param outro O outro esboço.
+     * @throws IllegalArgumentException Se os esboços tiverem erros relativos
+     *                                  diferentes.
+     */
+    public void junta(EsbocoQuantis outro) {
+        if (outro.erroRelativo != erroRelativo) {
+            throw new IllegalArgumentException("Os esboços têm erros relativos diferentes");
+        }
+        if (outro.valores != null) {
+            for (int k = 0; k < outro.contagem; k++) {
+                adiciona(outro.valores[k]);
+            }
+            return;
+        }
+        if (valores != null) {
+            passaAAproximado();
+        }
+        positivos = soma(positivos, outro.positivos);
+        negativos = soma(negativos, outro.negativos);
+        zeros += outro.zeros;
+        contagem += outro.contagem;
+    }
+
+    /**
+     * @return O número de valores acrescentados.
+     */
+    public long getContagem() {
+        return contagem;
+    }
+
+    /**
+     * @return true se os quantis são exatos, isto é, se o número de valores ainda
+     *         não ultrapassou a capacidade exata.
+     */
+    public boolean isExato() {
+        return valores != null;
+    }
+
+    /**
+     * Estima um quantil dos valores.
+     *
+     * @param q O quantil, entre 0 e 1 (por exemplo 0.5 para a mediana).
+     * @return O quantil, exato ou com erro relativo de no máximo o do esboço.
+     * @throws IllegalArgumentException Se q não estiver entre 0 e 1.
+     * @throws IllegalStateException    Se o esboço estiver vazio.
+     */
+    public double quantil(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("Quantil inválido: " + q);
+        }
+        if (contagem == 0) {
+            throw new IllegalStateException("Esboço vazio");
+        }
+        long posicao = Math.max(1, (long) Math.ceil(q * contagem)); // a partir de 1
+        if (valores != null) {
+            if (!ordenados) {
+                Arrays.sort(valores, 0, (int) contagem);
+                ordenados = true;
+            }
+            return valores[(int) posicao - 1];
+        }
+        // negativos, do maior módulo para o menor, depois zeros e positivos
+        long acumulado = 0;
+        if (negativos != null) {
+            for (int k = negativos.length - 1; k >= 0; k--) {
+                acumulado += negativos[k];
+                if (acumulado >= posicao) {
+                    return -valorCentral(k);
+                }
+            }
+        }
+        acumulado += zeros;
+        if (acumulado >= posicao) {
+            return 0;
+        }
+        for (int k = 0; k < positivos.length; k++) {
+            acumulado += positivos[k];
+            if (acumulado >= posicao) {
+                return valorCentral(k);
+            }
+        }
+        return valorCentral(positivos.length - 1);
+    }
+
+    // Passa do modo exato para o aproximado, contando os valores guardados.
+    private void passaAAproximado() {
+        int[] guardados = valores;
+        valores = null;
+        positivos = new long[0];
+        for (int k = 0; k < contagem; k++) {
+            conta(guardados[k], 1);
+        }
+    }
+
+    private void conta(int valor, long vezes) {
+        if (valor == 0) {
+            zeros += vezes;
+        } else if (valor > 0) {
+            int k = classe(valor);
+            if (positivos == null || k >= positivos.length) {
+                positivos = positivos == null ? new long[k + 1] : Arrays.copyOf(positivos, k + 1);
+            }
+            positivos[k] += vezes;
+        } else {
+            int k = classe(-(long) valor);
+            if (negativos == null || k >= negativos.length) {
+                negativos = negativos == null ? new long[k + 1] : Arrays.copyOf(negativos, k + 1);
+            }
+            negativos[k] += vezes;
+        }
+    }
+
+    // Classe de um valor positivo: o menor k tal que valor <= g^k.
+    private int classe(long valor) {
+        return (int) Math.max(0, Math.ceil(Math.log(valor) / logGama));
+    }
+
+    // Valor da classe k cujo erro relativo para qualquer valor da classe é no
+    // máximo erroRelativo.
+    private double valorCentral(int k) {
+        return 2 * Math.exp(k * logGama) / (1 + Math.exp(logGama));
+    }
+
+    private static long[] soma(long[] contagens, long[] outras) {
+        if (outras == null) {
+            return contagens;
+        }
+        long[] resultado = contagens == null ? new long[outras.length]
+                : Arrays.copyOf(contagens, Math.max(contagens.length, outras.length));
+        for (int k = 0; k < outras.length; k++) {
+            resultado[k] += outras[k];
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,180 @@
+package project;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estatísticas dos tempos de uma corrida, criadas por
+ * Corrida.estatisticasPostos(): a distribuição dos tempos de passagem em cada
+ * posto e das durações de cada segmento (do posto s ao posto s + 1), para todos
+ * os atletas e por escalão. Cada distribuição dá a mediana, os percentis 90 e
+ * 99, um histograma e outras medidas (ver DistribuicaoTempos).
+ *
+ * As distribuições são calculadas com esboços de quantis, numa passagem pelos
+ * registos ordenados de cada posto, sem ordenar tempos; os quantis são exatos
+ * até DistribuicaoTempos.CAPACIDADE_EXATA tempos por distribuição e têm um erro
+ * relativo de no máximo DistribuicaoTempos.ERRO_RELATIVO acima disso. Durante a
+ * prova, as passagens novas podem ser acrescentadas com adicionaPassagem() e
+ * adicionaSegmento(), sem recalcular as estatísticas; as correções a passagens
+ * já contadas não podem ser refletidas, porque os esboços não permitem retirar
+ * valores.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class EstatisticasPostos {
+
+    private final int larguraClasse;
+    private final String[] escaloes;
+    private final Map<String, Integer> codigosEscaloes = new HashMap<>();
+
+    // [posto ou segmento][código do escalão], com o código escaloes.length para
+    // todos os atletas.
+    private final DistribuicaoTempos[][] passagens;
+    private final DistribuicaoTempos[][] segmentos;
+
+    /**
+     * Cria estatísticas vazias.
+     *
+     * @param numeroPostos  O número de postos de controlo.
+     * @param escaloes      Os escalões, pela ordem dos seus códigos.
+     * @param larguraClasse A largura das classes dos histogramas, em minutos.
+     */
+    EstatisticasPostos(int numeroPostos, String[] escaloes, int larguraClasse) {
+        this.larguraClasse = larguraClasse;
+        this.escaloes = escaloes.clone();
+        for (int c = 0; c < escaloes.length; c++) {
+            codigosEscaloes.put(escaloes[c], c);
+        }
+        this.passagens = distribuicoes(numeroPostos);
+        this.segmentos = distribuicoes(Math.max(0, numeroPostos - 1));
+    }
+
+    private DistribuicaoTempos[][] distribuicoes(int quantas) {
+        DistribuicaoTempos[][] distribuicoes = new DistribuicaoTempos[quantas][escaloes.length + 1];
+        for (DistribuicaoTempos[] porEscalao : distribuicoes) {
+            for (int c = 0; c < porEscalao.length; c++) {
+                porEscalao[c] = new DistribuicaoTempos(larguraClasse);
+            }
+        }
+        return distribuicoes;
+    }
+
+    // Os dois métodos seguintes não são sincronizados: são usados apenas por
+    // Corrida.estatisticasPostos(), em que cada tarefa escreve nas distribuições
+    // de um só posto e do segmento que termina nele.
+
+    /**
+     * Acrescenta um tempo de passagem, identificando o escalão pelo seu código.
+     *
+     * @param posto   O índice do posto.
+     * @param codigo  O código do escalão do atleta.
+     * @param minutos O tempo de passagem, em minutos desde a partida.
+     */
+    void adicionaPassagem(int posto, int codigo, int minutos) {
+        passagens[posto][codigo].adiciona(minutos);
+        passagens[posto][escaloes.length].adiciona(minutos);
+    }
+
+    /**
+     * Acrescenta a duração de um segmento, identificando o escalão pelo seu
+     * código.
+     *
+     * @param segmento O índice do segmento.
+     * @param codigo   O código do escalão do atleta.
+     * @param minutos  A duração, em minutos.
+     */
+    void adicionaSegmento(int segmento, int codigo, int minutos) {
+        segmentos[segmento][codigo].adiciona(minutos);
+        segmentos[segmento][escaloes.length].adiciona(minutos);
+    }
+
+    /**
+     * Acrescenta a passagem de um atleta num posto, por exemplo durante a prova.
+     *
+     * @param posto   O índice do posto.
+     * @param escalao O escalão do atleta.
+     * @param minutos O tempo de passagem, em minutos desde a partida.
+     * @throws IllegalArgumentException Se o posto ou o escalão não existirem.
+     */
+    public synchronized void adicionaPassagem(int posto, String escalao, int minutos) {
+        adicionaPassagem(verificaIndice(posto, passagens.length, "Posto"), codigo(escalao), minutos);
+    }
+
+    /**
+     * Acrescenta a duração do segmento de um atleta entre o posto segmento e o
+     * seguinte, por exemplo durante a prova.
+     *
+     * @param segmento O índice do segmento.
+     * @param escalao  O escalão do atleta.
+     * @param minutos  A duração, em minutos.
+     * @throws IllegalArgumentException Se o segmento ou o escalão não existirem.
+     */
+    public synchronized void adicionaSegmento(int segmento, String escalao, int minutos) {
+        adicionaSegmento(verificaIndice(segmento, segmentos.length, "Segmento"), codigo(escalao), minutos);
+    }
+
+    /**
+     * Retorna a distribuição dos tempos de passagem num posto.
+     *
+     * @param posto   O índice do posto.
+     * @param escalao O escalão, ou "todos" para todos os atletas.
+     * @return Uma cópia da distribuição, vazia se nenhum atleta do escalão tiver
+     *         passado no posto.
+     * @throws IllegalArgumentException Se o posto não existir.
+     */
+    public DistribuicaoTempos getPassagens(int posto, String escalao) {
+        return copia(passagens[verificaIndice(posto, passagens.length, "Posto")], escalao);
+    }
+
+    /**
+     * Retorna a distribuição das durações de um segmento, entre o posto segmento e
+     * o seguinte, dos atletas que passaram nos dois postos.
+     *
+     * @param segmento O índice do segmento.
+     * @param escalao  O escalão, ou "todos" para todos os atletas.
+     * @return Uma cópia da distribuição, vazia se nenhum atleta do escalão tiver
+     *         feito o segmento.
+     * @throws IllegalArgumentException Se o segmento não existir.
+     */
+    public DistribuicaoTempos getSegmento(int segmento, String escalao) {
+        return copia(segmentos[verificaIndice(segmento, segmentos.length, "Segmento")], escalao);
+    }
+
+    /**
+     * @return O número de postos de controlo.
+     */
+    public int getNumeroPostos() {
+        return passagens.length;
+    }
+
+    /**
+     * @return Um novo array com os escalões da corrida.
+     */
+    public String[] getEscaloes() {
+        return escaloes.clone();
+    }
+
+    private synchronized DistribuicaoTempos copia(DistribuicaoTempos[] porEscalao, String escalao) {
+        DistribuicaoTempos copia = new DistribuicaoTempos(larguraClasse);
+        Integer codigo = escalao.equals("todos") ? Integer.valueOf(escaloes.length) : codigosEscaloes.get(escalao);
+        if (codigo != null) {
+            copia.junta(porEscalao[codigo]);
+        }
+        return copia;
+    }
+
+    private int codigo(String escalao) {
+        Integer codigo = codigosEscaloes.get(escalao);
+        if (codigo == null) {
+            throw new IllegalArgumentException("Escalão inexistente: " + escalao);
+        }
+        return codigo;
+    }
+
+    private static int verificaIndice(int indice, int tamanho, String nome) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IllegalArgumentException(nome + " inexistente: " + indice);
+        }
+        return indice;
+    }
+}
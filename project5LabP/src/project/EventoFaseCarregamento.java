@@ -0,0 +1,35 @@
+package project;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder emitido no fim de cada fase do carregamento de
+ * uma corrida, com a duração da fase e as quantidades medidas nela. Só tem custo
+ * quando há uma gravação ativa com o evento project.FaseCarregamento ativado.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+@Name("project.FaseCarregamento")
+@Label("Fase do carregamento de uma corrida")
+@Category("Corrida")
+class EventoFaseCarregamento extends jdk.jfr.Event {
+
+    @Label("Fase")
+    String fase;
+
+    @Label("Linhas lidas")
+    long linhasLidas;
+
+    @Label("Bytes lidos")
+    @DataAmount
+    long bytesLidos;
+
+    @Label("Bytes alocados")
+    @Description("Bytes alocados no heap pela thread do carregamento, ou -1 se não forem medidos")
+    @DataAmount
+    long bytesAlocados;
+}
@@ -0,0 +1,96 @@
+package project;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Métodos auxiliares para criar os executores usados nas tarefas concorrentes
+ * do projeto.
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+class Executores {
+
+    // Um ForkJoinPool por nível de paralelismo pedido a paraCada(), criado na
+    // primeira utilização. As threads destes pools são daemon e terminam quando
+    // ficam inativas, pelo que os pools nunca são encerrados.
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private Executores() {
+    }
+
+    /**
+     * Executa uma tarefa para cada índice de 0 a quantos - 1, como tarefas
+     * fork-join com o paralelismo dado. O intervalo de índices é dividido ao meio
+     * recursivamente até cada tarefa ter um só índice. Com paralelismo 1, as
+     * tarefas são executadas pela ordem dos índices na thread atual.
+     * 
+     * As tarefas devem ser independentes (por exemplo, escrever apenas na linha
+     * do seu índice de uma matriz); o resultado não depende então da ordem de
+     * execução. Quando o método retorna, as escritas de todas as tarefas são
+     * visíveis na thread que o invocou.
+     * 
+     * @param paralelismo O número máximo de threads a usar.
+     * @param quantos     O número de índices.
+     * @param tarefa      A tarefa, que recebe o índice.
+     * @requires paralelismo > 0
+     */
+    static void paraCada(int paralelismo, int quantos, IntConsumer tarefa) {
+        if (paralelismo == 1 || quantos <= 1) {
+            for (int i = 0; i < quantos; i++) {
+                tarefa.accept(i);
+            }
+            return;
+        }
+        ForkJoinPool pool = paralelismo == ForkJoinPool.getCommonPoolParallelism() ? ForkJoinPool.commonPool()
+                : POOLS.computeIfAbsent(paralelismo, ForkJoinPool::new);
+        pool.invoke(new TarefaIndices(tarefa, 0, quantos));
+    }
+
+    // Tarefa fork-join sobre os índices de inicio (inclusive) a fim (exclusive).
+    private static class TarefaIndices extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer tarefa;
+        private final int inicio;
+        private final int fim;
+
+        TarefaIndices(IntConsumer tarefa, int inicio, int fim) {
+            this.tarefa = tarefa;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio == 1) {
+                tarefa.accept(inicio);
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new TarefaIndices(tarefa, inicio, meio), new TarefaIndices(tarefa, meio, fim));
+        }
+    }
+
+    /**
+     * Retorna um executor que cria uma thread virtual por tarefa. As threads
+     * virtuais só existem a partir do Java 21, pelo que o método é invocado por
+     * reflexão; em versões anteriores é retornado um executor com threads normais
+     * criadas à medida das necessidades.
+     * 
+     * @return Um executor com uma thread (virtual, se possível) por tarefa.
+     */
+    static ExecutorService threadsVirtuais() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package project;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Gera corridas sintéticas, escrevendo os ficheiros de atletas, classificações e
+ * registo de passagens com o formato dos ficheiros UTMB 2023 lidos por Corrida.
+ * Serve para testar o carregamento e as análises com campos maiores do que os
+ * dos dados reais.
+ *
+ * O número de atletas e de postos, a taxa de desistência, as distribuições de
+ * escalões e nacionalidades, a hora de partida e os tempos mínimo e máximo de
+ * prova são configuráveis; as provas podem durar vários dias, desde que os
+ * tempos de passagem não cheguem ao mesmo dia da semana da partida na semana
+ * seguinte (ver CalendarioProva). Com a mesma configuração e a mesma semente, os
+ * ficheiros gerados são sempre iguais.
+ *
+ * Os ficheiros são escritos linha a linha. Em memória fica apenas um pequeno
+ * número de inteiros por atleta, necessários para calcular as classificações, o
+ * que permite gerar campos com milhões de atletas.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class GeradorCorrida {
+
+    // Marca de ordem de bytes com que começam os ficheiros csv originais.
+    private static final String BOM = "\uFEFF";
+
+    private static final String[] PRENOMES = { "Ana", "Bruno", "Carla", "Diogo", "Eva", "Filipe", "Gabriela",
+            "Hugo", "Inês", "João", "Kim", "Laura", "Miguel", "Nina", "Óscar", "Paula", "Rui", "Sofia", "Tomás",
+            "Vera" };
+    private static final String[] APELIDOS = { "ALVES", "BERNARD", "COSTA", "DUBOIS", "ESTEVES", "FERRARI",
+            "GARCÍA", "HOFFMANN", "IVANOV", "JENSEN", "KOWALSKI", "LOPES", "MÜLLER", "NOVAK", "OLIVEIRA",
+            "PEREIRA", "ROSSI", "SILVA", "TANAKA", "WALKER" };
+
+    private int numeroAtletas = 2700;
+    private int numeroPostos = 24;
+    private double taxaDesistencia = 0.35;
+    private String[] escaloes = { "20-34M", "35-39M", "40-44M", "45-49M", "50-54M", "55-59M", "60-64M", "20-34W",
+            "35-39W", "40-44W", "45-49W", "50-54W" };
+    private double[] pesosEscaloes = { 18, 16, 17, 14, 9, 4, 2, 4, 4, 4, 3, 2 };
+    private String[] nacionalidades = { "FRA (FR)", "ESP (ES)", "ITA (IT)", "USA (US)", "GBR (GB)", "CHN (CN)",
+            "SUI (CH)", "JPN (JP)", "POR (PT)", "KOR (KR)" };
+    private double[] pesosNacionalidades = { 30, 12, 10, 8, 7, 6, 6, 5, 3, 2 };
+    private CalendarioProva calendario = Tempo.getCalendarioInicial();
+    private int minutosMinimos = 19 * 60;
+    private int minutosMaximos = 46 * 60 + 30;
+    private long semente = 2023;
+
+    /**
+     * Define o número de atletas à partida.
+     *
+     * @param numeroAtletas O número de atletas.
+     * @throws IllegalArgumentException Se o número for negativo.
+     */
+    public void setNumeroAtletas(int numeroAtletas) {
+        if (numeroAtletas < 0) {
+            throw new IllegalArgumentException("Número de atletas inválido: " + numeroAtletas);
+        }
+        this.numeroAtletas = numeroAtletas;
+    }
+
+    /**
+     * Define o número de postos de controlo, incluindo a partida (o primeiro) e a
+     * meta (o último).
+     *
+     * @param numeroPostos O número de postos de controlo.
+     * @throws IllegalArgumentException Se o número for menor do que 2.
+     */
+    public void setNumeroPostos(int numeroPostos) {
+        if (numeroPostos < 2) {
+            throw new IllegalArgumentException("Número de postos inválido: " + numeroPostos);
+        }
+        this.numeroPostos = numeroPostos;
+    }
+
+    /**
+     * Define a fração dos atletas que desiste antes da meta. Cada desistente passa
+     * pela partida e desiste antes de um dos postos seguintes, escolhido ao acaso.
+     *
+     * @param taxaDesistencia A taxa de desistência, entre 0 e 1.
+     * @throws IllegalArgumentException Se a taxa não estiver entre 0 e 1.
+     */
+    public void setTaxaDesistencia(double taxaDesistencia) {
+        if (!(taxaDesistencia >= 0 && taxaDesistencia <= 1)) {
+            throw new IllegalArgumentException("Taxa de desistência inválida: " + taxaDesistencia);
+        }
+        this.taxaDesistencia = taxaDesistencia;
+    }
+
+    /**
+     * Define os escalões e a proporção de atletas de cada um.
+     *
+     * @param escaloes Os escalões.
+     * @param pesos    O peso de cada escalão, proporcional ao seu número de
+     *                 atletas.
+     * @throws IllegalArgumentException Se os arrays tiverem tamanhos diferentes ou
+     *                                  estiverem vazios, ou se algum peso for
+     *                                  negativo.
+     */
+    public void setEscaloes(String[] escaloes, double[] pesos) {
+        validaDistribuicao(escaloes, pesos);
+        this.escaloes = escaloes.clone();
+        this.pesosEscaloes = pesos.clone();
+    }
+
+    /**
+     * Define as nacionalidades e a proporção de atletas de cada uma, com o formato
+     * do ficheiro de atletas (por exemplo "FRA (FR)").
+     *
+     * @param nacionalidades As nacionalidades.
+     * @param pesos          O peso de cada nacionalidade, proporcional ao seu
+     *                       número de atletas.
+     * @throws IllegalArgumentException Se os arrays tiverem tamanhos diferentes ou
+     *                                  estiverem vazios, ou se algum peso for
+     *                                  negativo.
+     */
+    public void setNacionalidades(String[] nacionalidades, double[] pesos) {
+        validaDistribuicao(nacionalidades, pesos);
+        this.nacionalidades = nacionalidades.clone();
+        this.pesosNacionalidades = pesos.clone();
+    }
+
+    /**
+     * Define a data-hora de partida, usada para escrever os tempos de passagem.
+     *
+     * @param calendario O calendário da prova.
+     */
+    public void setCalendario(CalendarioProva calendario) {
+        this.calendario = calendario;
+    }
+
+    /**
+     * Define os tempos de prova do atleta mais rápido e do mais lento possíveis.
+     * Provas com mais de um dia têm tempos de passagem em vários dias da semana.
+     *
+     * @param minutosMinimos O tempo mínimo de prova, em minutos.
+     * @param minutosMaximos O tempo máximo de prova, em minutos.
+     * @throws IllegalArgumentException Se os tempos não forem positivos ou o mínimo
+     *                                  for maior do que o máximo.
+     */
+    public void setDuracao(int minutosMinimos, int minutosMaximos) {
+        if (minutosMinimos <= 0 || minutosMinimos > minutosMaximos) {
+            throw new IllegalArgumentException("Duração inválida: " + minutosMinimos + " a " + minutosMaximos);
+        }
+        this.minutosMinimos = minutosMinimos;
+        this.minutosMaximos = minutosMaximos;
+    }
+
+    /**
+     * Define a semente dos números aleatórios.
+     *
+     * @param semente A semente.
+     */
+    public void setSemente(long semente) {
+        this.semente = semente;
+    }
+
+    /**
+     * Gera a corrida e escreve os ficheiros prefixo + CarregadorCorridas.SUFIXO_*,
+     * por exemplo CAMPO-starters.csv, CAMPO-final.csv e CAMPO-progress.csv para o
+     * prefixo CAMPO.
+     *
+     * @param prefixo O caminho dos ficheiros sem o sufixo.
+     * @throws IOException           Se algum dos ficheiros não puder ser escrito.
+     * @throws IllegalStateException Se o tempo máximo de prova passar do último
+     *                               dia que os tempos de passagem conseguem
+     *                               identificar.
+     */
+    public void escreve(String prefixo) throws IOException {
+        LocalDateTime inicio = calendario.getInicio();
+        int limite = 7 * LeitorCsv.MINUTOS_POR_DIA - (inicio.getHour() * 60 + inicio.getMinute());
+        if (minutosMaximos >= limite) {
+            throw new IllegalStateException("Uma prova que começa às " + inicio.toLocalTime()
+                    + " tem de terminar antes de " + limite + " minutos");
+        }
+        Campo campo = new Campo();
+        try (Writer atletas = abre(prefixo + CarregadorCorridas.SUFIXO_ATLETAS)) {
+            escreveAtletas(campo, atletas);
+        }
+        try (Writer classificacoes = abre(prefixo + CarregadorCorridas.SUFIXO_CLASSIFICACOES)) {
+            escreveClassificacoes(campo, classificacoes);
+        }
+        try (Writer registo = abre(prefixo + CarregadorCorridas.SUFIXO_REGISTO_PASSAGENS)) {
+            escreveRegistoPassagens(campo, registo);
+        }
+    }
+
+    // Os dados de cada atleta necessários em mais de um ficheiro, um array de
+    // primitivos por atributo, e as classificações calculadas a partir deles.
+    private class Campo {
+
+        final short[] escalao = new short[numeroAtletas];
+        final short[] nacionalidade = new short[numeroAtletas];
+        final int[] segundosNaMeta = new int[numeroAtletas];
+        final short[] postoDesistencia = new short[numeroAtletas]; // numeroPostos se chegou à meta
+        final int[] posicaoAbsoluta = new int[numeroAtletas];
+        final int[] posicaoEscalao = new int[numeroAtletas];
+        final double[] fracaoPercurso = new double[numeroPostos]; // até cada posto
+        int segundosDoPrimeiro;
+
+        Campo() {
+            Random aleatorio = new Random(semente);
+            double[] acumuladosEscaloes = acumulados(pesosEscaloes);
+            double[] acumuladosNacionalidades = acumulados(pesosNacionalidades);
+            for (int i = 0; i < numeroAtletas; i++) {
+                escalao[i] = (short) sorteia(acumuladosEscaloes, aleatorio);
+                nacionalidade[i] = (short) sorteia(acumuladosNacionalidades, aleatorio);
+                double nivel = Math.min(1, Math.max(0, 0.45 + 0.2 * aleatorio.nextGaussian()));
+                segundosNaMeta[i] = (int) ((minutosMinimos + nivel * (minutosMaximos - minutosMinimos)) * 60);
+                postoDesistencia[i] = (short) (aleatorio.nextDouble() < taxaDesistencia
+                        ? 1 + aleatorio.nextInt(numeroPostos - 1)
+                        : numeroPostos);
+            }
+
+            // postos a distâncias irregulares, iguais para todos os atletas
+            for (int j = 1; j < numeroPostos; j++) {
+                fracaoPercurso[j] = fracaoPercurso[j - 1] + 0.5 + aleatorio.nextDouble();
+            }
+            for (int j = 1; j < numeroPostos; j++) {
+                fracaoPercurso[j] /= fracaoPercurso[numeroPostos - 1];
+            }
+
+            // classificações: atletas que chegaram à meta por tempo e, em caso de
+            // empate, por dorsal
+            long[] chegadas = new long[numeroAtletas];
+            int numeroChegadas = 0;
+            for (int i = 0; i < numeroAtletas; i++) {
+                if (postoDesistencia[i] == numeroPostos) {
+                    chegadas[numeroChegadas++] = ((long) segundosNaMeta[i] << 32) | i;
+                }
+            }
+            Arrays.sort(chegadas, 0, numeroChegadas);
+            int[] chegadasPorEscalao = new int[escaloes.length];
+            for (int k = 0; k < numeroChegadas; k++) {
+                int i = (int) chegadas[k];
+                posicaoAbsoluta[i] = k + 1;
+                posicaoEscalao[i] = ++chegadasPorEscalao[escalao[i]];
+            }
+            segundosDoPrimeiro = numeroChegadas == 0 ? 0 : (int) (chegadas[0] >>> 32);
+        }
+
+        String nome(int i) {
+            return PRENOMES[i % PRENOMES.length] + " " + APELIDOS[i / PRENOMES.length % APELIDOS.length] + " "
+                    + dorsal(i);
+        }
+
+        int dorsal(int i) {
+            return i + 1;
+        }
+    }
+
+    private void escreveAtletas(Campo campo, Writer out) throws IOException {
+        out.write(BOM + "Corrida sintética;;;;\n");
+        out.write(";;;;\n");
+        out.write("Bib;Name;Club / Team;Cat.;Country\n");
+        for (int i = 0; i < numeroAtletas; i++) {
+            out.write(campo.dorsal(i) + ";" + campo.nome(i) + ";;" + escaloes[campo.escalao[i]] + ";"
+                    + nacionalidades[campo.nacionalidade[i]] + "\n");
+        }
+    }
+
+    // Só os atletas que chegaram à meta, por ordem de dorsal, como no ficheiro
+    // original.
+    private void escreveClassificacoes(Campo campo, Writer out) throws IOException {
+        out.write(BOM + "Corrida sintética - Ranking Overall;;;;;;;;\n");
+        out.write("Rank;Bib;Name;Club-Team;Cat.;Rank by cat.;Race time;difference/1st;Nationality\n");
+        out.write(";;;;;;;;\n");
+        for (int i = 0; i < numeroAtletas; i++) {
+            if (campo.posicaoAbsoluta[i] != 0) {
+                out.write(campo.posicaoAbsoluta[i] + ";" + campo.dorsal(i) + ";" + campo.nome(i) + ";;"
+                        + escaloes[campo.escalao[i]] + ";" + campo.posicaoEscalao[i] + ";"
+                        + duracao(campo.segundosNaMeta[i]) + ";"
+                        + duracao(campo.segundosNaMeta[i] - campo.segundosDoPrimeiro) + ";"
+                        + nacionalidades[campo.nacionalidade[i]] + "\n");
+            }
+        }
+    }
+
+    // Os tempos de passagem de cada atleta são calculados a partir do seu tempo
+    // na meta, com um desvio aleatório em cada posto, sem nunca diminuírem.
+    private void escreveRegistoPassagens(Campo campo, Writer out) throws IOException {
+        StringBuilder linha = new StringBuilder(BOM + "Bib;Name;Cat.;Départ");
+        for (int j = 1; j < numeroPostos - 1; j++) {
+            linha.append(";Posto ").append(j);
+        }
+        linha.append(";Arrivée\n");
+        out.write(linha.toString());
+        LocalDateTime inicio = calendario.getInicio();
+        String[] momentos = new String[minutosMaximos + 1]; // "Fri. 18:00" por minuto desde a partida
+        Random aleatorio = new Random(semente ^ 0x5DEECE66DL);
+        for (int i = 0; i < numeroAtletas; i++) {
+            linha.setLength(0);
+            linha.append(campo.dorsal(i)).append(';').append(campo.nome(i)).append(';')
+                    .append(escaloes[campo.escalao[i]]);
+            int minutosNaMeta = campo.segundosNaMeta[i] / 60;
+            int anterior = 0;
+            for (int j = 0; j < numeroPostos; j++) {
+                linha.append(';');
+                if (j >= campo.postoDesistencia[i]) {
+                    linha.append('.');
+                    continue;
+                }
+                int minutos = j == numeroPostos - 1 ? minutosNaMeta
+                        : (int) (minutosNaMeta * campo.fracaoPercurso[j] * (1 + 0.04 * aleatorio.nextGaussian()));
+                minutos = Math.max(anterior, Math.min(minutos, minutosNaMeta));
+                anterior = minutos;
+                if (momentos[minutos] == null) {
+                    LocalDateTime passagem = inicio.plusMinutes(minutos);
+                    momentos[minutos] = passagem.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH)
+                            + ". " + String.format("%02d:%02d", passagem.getHour(), passagem.getMinute());
+                }
+                linha.append(momentos[minutos]);
+            }
+            out.write(linha.append('\n').toString());
+        }
+    }
+
+    private static Writer abre(String ficheiro) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(ficheiro), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    private static String duracao(int segundos) {
+        int horas = segundos / 3600;
+        int minutos = segundos / 60 % 60;
+        segundos %= 60;
+        return (horas < 10 ? "0" : "") + horas + (minutos < 10 ? ":0" : ":") + minutos + (segundos < 10 ? ":0" : ":")
+                + segundos;
+    }
+
+    private static void validaDistribuicao(String[] valores, double[] pesos) {
+        if (valores.length == 0 || valores.length != pesos.length) {
+            throw new IllegalArgumentException("São precisos tantos pesos como valores, e pelo menos um valor");
+        }
+        for (double peso : pesos) {
+            if (!(peso >= 0)) {
+                throw new IllegalArgumentException("Peso inválido: " + peso);
+            }
+        }
+    }
+
+    // Somas acumuladas dos pesos, para o sorteio.
+    private static double[] acumulados(double[] pesos) {
+        double[] acumulados = new double[pesos.length];
+        double soma = 0;
+        for (int k = 0; k < pesos.length; k++) {
+            soma += pesos[k];
+            acumulados[k] = soma;
+        }
+        return acumulados;
+    }
+
+    // Sorteia um índice com probabilidade proporcional ao seu peso.
+    private static int sorteia(double[] acumulados, Random aleatorio) {
+        double valor = aleatorio.nextDouble() * acumulados[acumulados.length - 1];
+        int k = Arrays.binarySearch(acumulados, valor);
+        k = k >= 0 ? k + 1 : -k - 1;
+        return Math.min(k, acumulados.length - 1);
+    }
+}
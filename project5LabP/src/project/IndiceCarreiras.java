@@ -0,0 +1,380 @@
+package project;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índice dos resultados dos atletas em várias corridas (por exemplo as várias
+ * edições de uma prova), que liga os resultados do mesmo atleta pelo nome
+ * normalizado e pela nacionalidade. Permite responder a perguntas como "todos
+ * os resultados do atleta X" ou "a evolução do tempo na meta dos 100 primeiros
+ * de uma edição" sem voltar a carregar as corridas.
+ *
+ * O nome é normalizado por normalizaNome(), que ignora os acentos, as
+ * maiúsculas, a pontuação e a ordem das palavras, para que "Daniele ROATTINO" e
+ * "ROATTINO Daniele" sejam o mesmo atleta. Dois atletas diferentes com o mesmo
+ * nome e a mesma nacionalidade não podem ser distinguidos e partilham a mesma
+ * carreira.
+ *
+ * O índice pode ser gravado num ficheiro binário com grava() e recriado com
+ * carrega(), à maneira de CorridaBinaria: um número mágico e a versão do
+ * formato, a tabela de textos (identificadores das corridas, nomes,
+ * nacionalidades e escalões, cada um guardado uma só vez) e os resultados de
+ * cada corrida. Os métodos públicos são sincronizados, para que o índice possa
+ * ser consultado enquanto se acrescentam corridas.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class IndiceCarreiras {
+
+    /**
+     * Número mágico com que começam os ficheiros ("CARR" em ASCII).
+     */
+    public static final int NUMERO_MAGICO = 0x43415252;
+
+    /**
+     * Versão do formato escrito por grava().
+     */
+    public static final int VERSAO = 1;
+
+    // Ordem dos resultados de uma corrida: os que chegaram à meta pela posição
+    // final (os restantes têm POSICAO_DE_QUEM_NAO_CHEGOU_A_META), depois por
+    // dorsal.
+    private static final Comparator<ResultadoCarreira> POR_POSICAO = Comparator
+            .comparingInt(ResultadoCarreira::getPosicaoFinalAbsoluta)
+            .thenComparingInt(ResultadoCarreira::getDorsal);
+
+    private static final Comparator<ResultadoCarreira> POR_CORRIDA = Comparator
+            .comparing(ResultadoCarreira::getIdCorrida).thenComparingInt(ResultadoCarreira::getDorsal);
+
+    // Identificador da corrida -> resultados, por POR_POSICAO.
+    private final Map<String, List<ResultadoCarreira>> porCorrida = new TreeMap<>();
+
+    // Chave do atleta (ver chave()) -> resultados, por POR_CORRIDA.
+    private final Map<String, List<ResultadoCarreira>> porAtleta = new HashMap<>();
+
+    /**
+     * Acrescenta ao índice os resultados de todos os atletas de uma corrida. Se o
+     * índice já tiver uma corrida com o mesmo identificador, os seus resultados
+     * são substituídos.
+     *
+     * @param idCorrida O identificador da corrida, por exemplo "UTMB_2023".
+     * @param corrida   A corrida.
+     */
+    public synchronized void adiciona(String idCorrida, Corrida corrida) {
+        List<ResultadoCarreira> resultados;
+        synchronized (corrida) {
+            resultados = new ArrayList<>(corrida.getNumeroDeAtletas());
+            for (int i = 0; i < corrida.getNumeroDeAtletas(); i++) {
+                Atleta atleta = corrida.getAtletaPorIndice(i);
+                resultados.add(new ResultadoCarreira(idCorrida, atleta.getDorsal(), atleta.getNome(),
+                        atleta.getNacionalidade(), atleta.getEscalao(), atleta.getPosicaoFinalAbsoluta(),
+                        atleta.getPosicaoFinalEscalao(), atleta.getSegundosNaMeta()));
+            }
+        }
+        remove(idCorrida);
+        adiciona(idCorrida, resultados, new HashMap<>());
+    }
+
+    /**
+     * Acrescenta ao índice todas as corridas carregadas por um
+     * CarregadorCorridas, com os seus identificadores.
+     *
+     * @param carregamento O resultado do carregamento.
+     */
+    public synchronized void adiciona(ResultadoCarregamento carregamento) {
+        for (Map.Entry<String, Corrida> corrida : carregamento.getCorridas().entrySet()) {
+            adiciona(corrida.getKey(), corrida.getValue());
+        }
+    }
+
+    // Guarda os resultados de uma corrida nos dois mapas. As chaves já
+    // calculadas são reaproveitadas entre os atletas com o mesmo nome.
+    private void adiciona(String idCorrida, List<ResultadoCarreira> resultados, Map<String, String> nomes) {
+        resultados.sort(POR_POSICAO);
+        porCorrida.put(idCorrida, resultados);
+        for (ResultadoCarreira resultado : resultados) {
+            String nome = nomes.computeIfAbsent(resultado.getNome(), IndiceCarreiras::normalizaNome);
+            List<ResultadoCarreira> carreira = porAtleta.computeIfAbsent(
+                    nome + "|" + normalizaNacionalidade(resultado.getNacionalidade()), chave -> new ArrayList<>());
+            int k = Collections.binarySearch(carreira, resultado, POR_CORRIDA);
+            carreira.add(k < 0 ? -k - 1 : k, resultado);
+        }
+    }
+
+    /**
+     * Retira do índice os resultados de uma corrida.
+     *
+     * @param idCorrida O identificador da corrida.
+     * @return true se o índice tinha a corrida.
+     */
+    public synchronized boolean remove(String idCorrida) {
+        List<ResultadoCarreira> resultados = porCorrida.remove(idCorrida);
+        if (resultados == null) {
+            return false;
+        }
+        for (ResultadoCarreira resultado : resultados) {
+            String chave = chave(resultado.getNome(), resultado.getNacionalidade());
+            List<ResultadoCarreira> carreira = porAtleta.get(chave);
+            if (carreira != null) {
+                carreira.removeIf(r -> r.getIdCorrida().equals(idCorrida));
+                if (carreira.isEmpty()) {
+                    porAtleta.remove(chave);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Um novo array com os identificadores das corridas do índice, por
+     *         ordem alfabética.
+     */
+    public synchronized String[] getCorridas() {
+        return porCorrida.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * @return O número de atletas distintos (nome normalizado e nacionalidade) do
+     *         índice.
+     */
+    public synchronized int getNumeroAtletas() {
+        return porAtleta.size();
+    }
+
+    /**
+     * Retorna todos os resultados de um atleta.
+     *
+     * @param nome          O nome do atleta, com ou sem acentos e em qualquer
+     *                      ordem das palavras.
+     * @param nacionalidade A nacionalidade do atleta.
+     * @return Uma nova lista com os resultados, por ordem do identificador da
+     *         corrida, vazia se o atleta não estiver no índice.
+     */
+    public synchronized List<ResultadoCarreira> resultados(String nome, String nacionalidade) {
+        List<ResultadoCarreira> carreira = porAtleta.get(chave(nome, nacionalidade));
+        return carreira == null ? new ArrayList<>() : new ArrayList<>(carreira);
+    }
+
+    /**
+     * Retorna todos os resultados do atleta a que pertence um resultado.
+     *
+     * @param resultado Um resultado do atleta.
+     * @return Uma nova lista com os resultados, por ordem do identificador da
+     *         corrida.
+     */
+    public List<ResultadoCarreira> carreira(ResultadoCarreira resultado) {
+        return resultados(resultado.getNome(), resultado.getNacionalidade());
+    }
+
+    /**
+     * Retorna os primeiros classificados de uma corrida.
+     *
+     * @param idCorrida O identificador da corrida.
+     * @param k         O número máximo de resultados.
+     * @return Uma nova lista com os resultados dos até k primeiros atletas a
+     *         chegar à meta, por posição final.
+     * @throws IllegalArgumentException Se a corrida não estiver no índice ou k for
+     *                                  negativo.
+     */
+    public synchronized List<ResultadoCarreira> primeiros(String idCorrida, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Número de resultados inválido: " + k);
+        }
+        List<ResultadoCarreira> primeiros = new ArrayList<>(Math.min(k, 1024));
+        for (ResultadoCarreira resultado : resultadosDaCorrida(idCorrida)) {
+            if (primeiros.size() == k || !resultado.chegouAMeta()) {
+                break;
+            }
+            primeiros.add(resultado);
+        }
+        return primeiros;
+    }
+
+    /**
+     * Retorna a carreira de cada um dos primeiros classificados de uma corrida,
+     * por exemplo para comparar os seus tempos na meta de ano para ano.
+     *
+     * @param idCorrida O identificador da corrida.
+     * @param k         O número máximo de atletas.
+     * @return Uma nova lista com a carreira (ver carreira()) de cada um dos até k
+     *         primeiros atletas, por posição final na corrida.
+     * @throws IllegalArgumentException Se a corrida não estiver no índice ou k for
+     *                                  negativo.
+     */
+    public synchronized List<List<ResultadoCarreira>> carreirasDosPrimeiros(String idCorrida, int k) {
+        List<List<ResultadoCarreira>> carreiras = new ArrayList<>();
+        for (ResultadoCarreira resultado : primeiros(idCorrida, k)) {
+            carreiras.add(carreira(resultado));
+        }
+        return carreiras;
+    }
+
+    private List<ResultadoCarreira> resultadosDaCorrida(String idCorrida) {
+        List<ResultadoCarreira> resultados = porCorrida.get(idCorrida);
+        if (resultados == null) {
+            throw new IllegalArgumentException("Corrida inexistente no índice: " + idCorrida);
+        }
+        return resultados;
+    }
+
+    /**
+     * Normaliza o nome de um atleta para o comparar entre corridas: retira os
+     * acentos, passa a maiúsculas, troca a pontuação por espaços e ordena as
+     * palavras.
+     *
+     * @param nome O nome.
+     * @return O nome normalizado, por exemplo "DANIELE ROATTINO" para "Roattino
+     *         Danièle".
+     */
+    public static String normalizaNome(String nome) {
+        String semAcentos = Normalizer.normalize(nome, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        String[] palavras = semAcentos.toUpperCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim()
+                .split(" ");
+        Arrays.sort(palavras);
+        return String.join(" ", palavras);
+    }
+
+    private static String normalizaNacionalidade(String nacionalidade) {
+        return nacionalidade.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String chave(String nome, String nacionalidade) {
+        return normalizaNome(nome) + "|" + normalizaNacionalidade(nacionalidade);
+    }
+
+    /**
+     * Grava o índice num ficheiro binário.
+     *
+     * @param ficheiro O caminho para o ficheiro binário.
+     * @throws IOException Se o ficheiro não puder ser escrito.
+     */
+    public synchronized void grava(String ficheiro) throws IOException {
+        Map<String, Integer> codigos = new HashMap<>();
+        List<String> textos = new ArrayList<>();
+        for (Map.Entry<String, List<ResultadoCarreira>> corrida : porCorrida.entrySet()) {
+            codigo(corrida.getKey(), codigos, textos);
+            for (ResultadoCarreira resultado : corrida.getValue()) {
+                codigo(resultado.getNome(), codigos, textos);
+                codigo(resultado.getNacionalidade(), codigos, textos);
+                codigo(resultado.getEscalao(), codigos, textos);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(ficheiro), 1 << 16))) {
+            out.writeInt(NUMERO_MAGICO);
+            out.writeInt(VERSAO);
+            out.writeInt(textos.size());
+            for (String texto : textos) {
+                byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(porCorrida.size());
+            for (Map.Entry<String, List<ResultadoCarreira>> corrida : porCorrida.entrySet()) {
+                out.writeInt(codigos.get(corrida.getKey()));
+                out.writeInt(corrida.getValue().size());
+                for (ResultadoCarreira resultado : corrida.getValue()) {
+                    out.writeInt(resultado.getDorsal());
+                    out.writeInt(codigos.get(resultado.getNome()));
+                    out.writeInt(codigos.get(resultado.getNacionalidade()));
+                    out.writeInt(codigos.get(resultado.getEscalao()));
+                    out.writeInt(resultado.getPosicaoFinalAbsoluta());
+                    out.writeInt(resultado.getPosicaoFinalEscalao());
+                    out.writeInt(resultado.getSegundosNaMeta());
+                }
+            }
+        }
+    }
+
+    /**
+     * Cria um índice a partir de um ficheiro binário escrito por grava().
+     *
+     * @param ficheiro O caminho para o ficheiro binário.
+     * @return O índice gravado no ficheiro.
+     * @throws IOException Se o ficheiro não puder ser lido, não for um ficheiro
+     *                     de índice, tiver uma versão desconhecida ou estiver
+     *                     incompleto ou corrompido.
+     */
+    public static IndiceCarreiras carrega(String ficheiro) throws IOException {
+        ByteBuffer dados;
+        try (FileChannel canal = new FileInputStream(ficheiro).getChannel()) {
+            dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        try {
+            return carrega(dados);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(ficheiro + " está incompleto", e);
+        }
+    }
+
+    private static IndiceCarreiras carrega(ByteBuffer dados) throws IOException {
+        if (dados.getInt() != NUMERO_MAGICO) {
+            throw new IOException("Não é um ficheiro de índice de carreiras");
+        }
+        int versao = dados.getInt();
+        if (versao != VERSAO) {
+            throw new IOException("Versão do ficheiro de índice de carreiras desconhecida: " + versao);
+        }
+        // as contagens e os códigos de texto são verificados como em CorridaBinaria
+        String[] textos = new String[CorridaBinaria.contagem(dados, Integer.BYTES)];
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < textos.length; i++) {
+            int tamanho = CorridaBinaria.contagem(dados, 1);
+            if (bytes.length < tamanho) {
+                bytes = new byte[tamanho];
+            }
+            dados.get(bytes, 0, tamanho);
+            textos[i] = new String(bytes, 0, tamanho, StandardCharsets.UTF_8);
+        }
+
+        IndiceCarreiras indice = new IndiceCarreiras();
+        Map<String, String> nomes = new HashMap<>();
+        // uma corrida ocupa pelo menos 2 inteiros; um resultado, 7
+        int numeroCorridas = CorridaBinaria.contagem(dados, 2 * Integer.BYTES);
+        for (int c = 0; c < numeroCorridas; c++) {
+            String idCorrida = CorridaBinaria.texto(dados, textos);
+            int numeroResultados = CorridaBinaria.contagem(dados, 7 * Integer.BYTES);
+            List<ResultadoCarreira> resultados = new ArrayList<>(numeroResultados);
+            for (int i = 0; i < numeroResultados; i++) {
+                int dorsal = dados.getInt();
+                String nome = CorridaBinaria.texto(dados, textos);
+                String nacionalidade = CorridaBinaria.texto(dados, textos);
+                String escalao = CorridaBinaria.texto(dados, textos);
+                resultados.add(new ResultadoCarreira(idCorrida, dorsal, nome, nacionalidade, escalao, dados.getInt(),
+                        dados.getInt(), dados.getInt()));
+            }
+            indice.adiciona(idCorrida, resultados, nomes);
+        }
+        return indice;
+    }
+
+    // Retorna o código de um texto na tabela de textos, acrescentando-o se ainda
+    // não existir.
+    private static int codigo(String texto, Map<String, Integer> codigos, List<String> textos) {
+        Integer codigo = codigos.get(texto);
+        if (codigo == null) {
+            codigo = textos.size();
+            codigos.put(texto, codigo);
+            textos.add(texto);
+        }
+        return codigo;
+    }
+}
@@ -0,0 +1,90 @@
+package project;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice dos atletas de uma corrida pelos valores de um atributo de texto, como
+ * o escalão ou a nacionalidade.
+ *
+ * Cada valor distinto é codificado num inteiro pequeno (0, 1, 2, ..., pela ordem
+ * em que aparece) e tem um mapa de bits com os índices dos atletas que têm esse
+ * valor. Os filtros por vários atributos são interseções de mapas de bits e as
+ * contagens são contagens de bits.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+class IndiceValores {
+
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private String[] valores = new String[8];
+    private BitSet[] atletas = new BitSet[8];
+
+    /**
+     * Acrescenta um atleta ao índice.
+     *
+     * @param valor  O valor do atributo do atleta.
+     * @param indice O índice do atleta na corrida.
+     */
+    void adiciona(String valor, int indice) {
+        Integer codigo = codigos.get(valor);
+        if (codigo == null) {
+            codigo = codigos.size();
+            if (codigo == valores.length) {
+                valores = Arrays.copyOf(valores, codigo * 2);
+                atletas = Arrays.copyOf(atletas, codigo * 2);
+            }
+            codigos.put(valor, codigo);
+            valores[codigo] = valor;
+            atletas[codigo] = new BitSet();
+        }
+        atletas[codigo].set(indice);
+    }
+
+    /**
+     * @param valor O valor do atributo.
+     * @return O código do valor, ou -1 se nenhum atleta o tiver.
+     */
+    int codigo(String valor) {
+        Integer codigo = codigos.get(valor);
+        return codigo == null ? -1 : codigo;
+    }
+
+    /**
+     * @return O número de valores distintos.
+     */
+    int numeroValores() {
+        return codigos.size();
+    }
+
+    /**
+     * @param codigo O código de um valor.
+     * @return O valor com esse código.
+     */
+    String valor(int codigo) {
+        return valores[codigo];
+    }
+
+    /**
+     * Retorna o mapa de bits dos atletas com um valor, que não deve ser alterado.
+     *
+     * @param codigo O código do valor.
+     * @return O mapa de bits com os índices dos atletas que têm o valor.
+     */
+    BitSet atletas(int codigo) {
+        return atletas[codigo];
+    }
+
+    /**
+     * Retorna os valores distintos por ordem alfabética.
+     *
+     * @return Um novo array com os valores.
+     */
+    String[] valoresOrdenados() {
+        String[] ordenados = Arrays.copyOf(valores, codigos.size());
+        Arrays.sort(ordenados);
+        return ordenados;
+    }
+}
@@ -0,0 +1,437 @@
+package project;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Leitor de ficheiros csv com campos separados por ';', que interpreta os bytes
+ * do ficheiro diretamente a partir de um ByteBuffer.
+ *
+ * Os inteiros, as durações e os tempos de passagem (por exemplo "Sat. 14:21")
+ * são lidos sem criar Strings intermédias; só os campos de texto pedidos com
+ * lerString() dão origem a uma String, descodificada em UTF-8. A marca BOM com
+ * que alguns ficheiros começam é ignorada, tal como as linhas vazias.
+ *
+ * Cada linha é percorrida campo a campo: depois de proximaLinha() retornar
+ * true, cada chamada a um método ler... ou saltaCampo() consome o campo atual e
+ * avança para o seguinte.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class LeitorCsv implements Closeable {
+
+    /**
+     * Valor retornado por lerTempoDia() quando o campo não contém um tempo de
+     * passagem (por exemplo ".").
+     */
+    public static final int SEM_TEMPO = -1;
+
+    /**
+     * Número de minutos de um dia, usado na codificação dos valores retornados por
+     * lerTempoDia().
+     */
+    public static final int MINUTOS_POR_DIA = 24 * 60;
+
+    private static final int CAPACIDADE_INICIAL = 64 * 1024;
+    private static final byte SEPARADOR = ';';
+    private static final String[] DIAS_DA_SEMANA = { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" };
+
+    // Canal de onde são lidos os bytes; null quando o buffer já contém todo o
+    // conteúdo a ler.
+    private final ReadableByteChannel canal;
+    private ByteBuffer buffer;
+    private boolean canalEsgotado;
+    private boolean bomVerificado;
+    private byte[] auxiliar = new byte[256];
+
+    // Índices no buffer: limites da linha atual (sem o fim de linha), início do
+    // campo atual e início da linha seguinte.
+    private int inicioLinha;
+    private int fimLinha = -1;
+    private int cursor;
+    private int proximaLinha;
+
+    // Contagens para as métricas de carregamento.
+    private long linhasLidas;
+    private long bytesLidos;
+
+    /**
+     * Cria um leitor que lê o ficheiro dado em blocos, através de um canal NIO.
+     *
+     * @param ficheiro O caminho para o ficheiro csv.
+     * @throws FileNotFoundException Se o ficheiro não for encontrado.
+     */
+    public LeitorCsv(String ficheiro) throws FileNotFoundException {
+        this(new FileInputStream(ficheiro).getChannel());
+    }
+
+    /**
+     * Cria um leitor que lê em blocos os bytes do canal dado.
+     *
+     * @param canal O canal de onde são lidos os bytes.
+     */
+    public LeitorCsv(ReadableByteChannel canal) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocate(CAPACIDADE_INICIAL);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Cria um leitor sobre um buffer que já contém todo o conteúdo a ler, entre a
+     * sua posição e o seu limite. O buffer pode ser, por exemplo, um ficheiro
+     * mapeado em memória; os bytes são interpretados no próprio buffer, sem
+     * cópias.
+     *
+     * @param conteudo O buffer com o conteúdo a ler.
+     */
+    public LeitorCsv(ByteBuffer conteudo) {
+        this.canal = null;
+        this.buffer = conteudo.slice();
+        this.canalEsgotado = true;
+        this.bytesLidos = buffer.remaining();
+    }
+
+    /**
+     * Cria um leitor sobre o ficheiro dado mapeado em memória, que é interpretado
+     * no próprio mapeamento. A memória ocupada pelo ficheiro fica fora do heap e é
+     * gerida pelo sistema operativo, pelo que o heap não cresce com o tamanho do
+     * ficheiro. O ficheiro não pode ter mais de 2 GB.
+     *
+     * @param ficheiro O caminho para o ficheiro csv.
+     * @return Um leitor sobre o conteúdo mapeado do ficheiro.
+     * @throws FileNotFoundException Se o ficheiro não for encontrado.
+     */
+    public static LeitorCsv mapeado(String ficheiro) throws FileNotFoundException {
+        try (FileChannel canal = new FileInputStream(ficheiro).getChannel()) {
+            return new LeitorCsv(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Avança para a linha seguinte, ignorando linhas vazias.
+     *
+     * @return true se existir uma linha seguinte, false se o conteúdo terminou.
+     */
+    public boolean proximaLinha() {
+        if (!bomVerificado) {
+            verificaBom();
+        }
+        while (true) {
+            int fim = procuraFimDeLinha(proximaLinha);
+            if (fim == -1) {
+                if (!canalEsgotado) {
+                    carrega();
+                    continue;
+                }
+                if (proximaLinha >= buffer.limit()) {
+                    return false;
+                }
+                fim = buffer.limit();
+            }
+            inicioLinha = proximaLinha;
+            proximaLinha = fim + 1;
+            fimLinha = fim;
+            if (fimLinha > inicioLinha && buffer.get(fimLinha - 1) == '\r') {
+                fimLinha--;
+            }
+            cursor = inicioLinha;
+            if (fimLinha > inicioLinha) {
+                linhasLidas++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Avança um dado número de linhas.
+     *
+     * @param quantas O número de linhas a avançar.
+     * @return true se a última linha avançada existir.
+     */
+    public boolean saltaLinhas(int quantas) {
+        boolean existe = true;
+        for (int i = 0; i < quantas && existe; i++) {
+            existe = proximaLinha();
+        }
+        return existe;
+    }
+
+    /**
+     * Retorna o número de campos da linha atual.
+     *
+     * @return O número de campos da linha atual.
+     */
+    public int contaCampos() {
+        int campos = 1;
+        for (int i = inicioLinha; i < fimLinha; i++) {
+            if (buffer.get(i) == SEPARADOR) {
+                campos++;
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * Indica se a linha atual ainda tem campos por ler.
+     *
+     * @return true se a linha atual ainda tiver campos por ler.
+     */
+    public boolean temCampo() {
+        return cursor <= fimLinha;
+    }
+
+    /**
+     * Avança para o campo seguinte sem interpretar o campo atual.
+     */
+    public void saltaCampo() {
+        cursor = fimCampo() + 1;
+    }
+
+    /**
+     * Lê o campo atual como texto.
+     *
+     * @return O texto do campo atual.
+     */
+    public String lerString() {
+        int fim = fimCampo();
+        String texto = texto(cursor, fim);
+        cursor = fim + 1;
+        return texto;
+    }
+
+    /**
+     * Lê o campo atual como um número inteiro.
+     *
+     * @return O valor do campo atual.
+     * @throws NumberFormatException Se o campo não for um número inteiro.
+     */
+    public int lerInt() {
+        int fim = fimCampo();
+        int valor;
+        if (cursor < fim && buffer.get(cursor) == '-') {
+            valor = -lerDigitos(cursor + 1, fim);
+        } else {
+            valor = lerDigitos(cursor, fim);
+        }
+        cursor = fim + 1;
+        return valor;
+    }
+
+    /**
+     * Lê o campo atual como uma duração no formato horas:minutos:segundos.
+     *
+     * @return A duração em segundos.
+     * @throws NumberFormatException Se o campo não estiver no formato esperado.
+     */
+    public int lerDuracaoSegundos() {
+        int fim = fimCampo();
+        int segundos = 0;
+        int inicio = cursor;
+        for (int i = cursor; i <= fim; i++) {
+            if (i == fim || buffer.get(i) == ':') {
+                segundos = segundos * 60 + lerDigitos(inicio, i);
+                inicio = i + 1;
+            }
+        }
+        cursor = fim + 1;
+        return segundos;
+    }
+
+    /**
+     * Lê o campo atual como um tempo de passagem no formato "dia hora:minutos",
+     * como em "Sat. 14:21", em que o dia é identificado pelas três primeiras letras
+     * do seu nome em inglês.
+     *
+     * O valor retornado codifica o dia da semana (de 1, segunda-feira, a 7,
+     * domingo, ou 0 se o dia não for reconhecido) e os minutos decorridos desde o
+     * início desse dia, e pode ser descodificado com diaDaSemana() e
+     * minutosDoDia().
+     *
+     * @return O tempo de passagem codificado, ou SEM_TEMPO se o campo não contiver
+     *         um tempo.
+     * @throws NumberFormatException Se a hora não estiver no formato esperado.
+     */
+    public int lerTempoDia() {
+        int fim = fimCampo();
+        int espaco = cursor;
+        while (espaco < fim && buffer.get(espaco) != ' ') {
+            espaco++;
+        }
+        if (espaco == fim) {
+            cursor = fim + 1;
+            return SEM_TEMPO;
+        }
+        int dia = diaDaSemana(cursor, espaco);
+        int doisPontos = espaco + 1;
+        while (doisPontos < fim && buffer.get(doisPontos) != ':') {
+            doisPontos++;
+        }
+        int horas = lerDigitos(espaco + 1, doisPontos);
+        int minutos = lerDigitos(doisPontos + 1, fim);
+        cursor = fim + 1;
+        return dia * MINUTOS_POR_DIA + horas * 60 + minutos;
+    }
+
+    /**
+     * Retorna o dia da semana de um tempo de passagem codificado por lerTempoDia().
+     *
+     * @param tempoDia O tempo de passagem codificado.
+     * @return O dia da semana, de 1 (segunda-feira) a 7 (domingo), ou 0 se não
+     *         tiver sido reconhecido.
+     */
+    public static int diaDaSemana(int tempoDia) {
+        return tempoDia / MINUTOS_POR_DIA;
+    }
+
+    /**
+     * Retorna os minutos desde o início do dia de um tempo de passagem codificado
+     * por lerTempoDia().
+     *
+     * @param tempoDia O tempo de passagem codificado.
+     * @return Os minutos decorridos desde o início do dia.
+     */
+    public static int minutosDoDia(int tempoDia) {
+        return tempoDia % MINUTOS_POR_DIA;
+    }
+
+    /**
+     * Retorna o número de linhas não vazias lidas até agora por proximaLinha() e
+     * saltaLinhas().
+     *
+     * @return O número de linhas lidas.
+     */
+    public long getLinhasLidas() {
+        return linhasLidas;
+    }
+
+    /**
+     * Retorna o número de bytes lidos até agora do canal, ou o tamanho do
+     * conteúdo se o leitor foi criado sobre um buffer.
+     *
+     * @return O número de bytes lidos.
+     */
+    public long getBytesLidos() {
+        return bytesLidos;
+    }
+
+    /**
+     * Fecha o canal de onde o leitor lê os bytes, se existir.
+     */
+    @Override
+    public void close() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private int fimCampo() {
+        int i = cursor;
+        while (i < fimLinha && buffer.get(i) != SEPARADOR) {
+            i++;
+        }
+        return i;
+    }
+
+    private int lerDigitos(int inicio, int fim) {
+        if (inicio >= fim) {
+            throw new NumberFormatException("Campo sem dígitos: \"" + texto(inicio, fim) + "\"");
+        }
+        int valor = 0;
+        for (int i = inicio; i < fim; i++) {
+            int digito = buffer.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new NumberFormatException("Campo não numérico: \"" + texto(inicio, fim) + "\"");
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private int diaDaSemana(int inicio, int fim) {
+        if (fim - inicio < 3) {
+            return 0;
+        }
+        for (int d = 0; d < DIAS_DA_SEMANA.length; d++) {
+            String nome = DIAS_DA_SEMANA[d];
+            if (buffer.get(inicio) == nome.charAt(0) && buffer.get(inicio + 1) == nome.charAt(1)
+                    && buffer.get(inicio + 2) == nome.charAt(2)) {
+                return d + 1;
+            }
+        }
+        return 0;
+    }
+
+    private String texto(int inicio, int fim) {
+        int tamanho = Math.max(0, fim - inicio);
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + inicio, tamanho, StandardCharsets.UTF_8);
+        }
+        if (auxiliar.length < tamanho) {
+            auxiliar = new byte[Math.max(tamanho, auxiliar.length * 2)];
+        }
+        buffer.get(inicio, auxiliar, 0, tamanho);
+        return new String(auxiliar, 0, tamanho, StandardCharsets.UTF_8);
+    }
+
+    private int procuraFimDeLinha(int inicio) {
+        for (int i = inicio; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void verificaBom() {
+        while (buffer.limit() < 3 && !canalEsgotado) {
+            carrega();
+        }
+        if (buffer.limit() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF) {
+            proximaLinha = 3;
+        }
+        bomVerificado = true;
+    }
+
+    // Descarta os bytes já lidos, guardando a linha incompleta no início do
+    // buffer, e lê mais bytes do canal. Se a linha não couber no buffer, o buffer é
+    // substituído por outro com o dobro da capacidade.
+    private void carrega() {
+        if (proximaLinha == 0 && buffer.limit() == buffer.capacity()) {
+            ByteBuffer maior = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.position(0);
+            maior.put(buffer);
+            buffer = maior;
+        } else {
+            buffer.position(proximaLinha);
+            buffer.compact();
+        }
+        try {
+            int lidos = canal.read(buffer);
+            if (lidos == -1) {
+                canalEsgotado = true;
+            } else {
+                bytesLidos += lidos;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        proximaLinha = 0;
+    }
+}
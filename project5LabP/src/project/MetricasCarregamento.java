@@ -0,0 +1,253 @@
+package project;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Métricas do carregamento de uma corrida a partir dos ficheiros csv, obtidas
+ * com Corrida.getMetricasCarregamento(): o tempo de cada fase do construtor, as
+ * linhas e os bytes lidos de cada ficheiro, os bytes alocados em cada fase, o
+ * tempo da ordenação de cada posto e o número de pesquisas de atletas por nome e
+ * por dorsal.
+ *
+ * Cada fase é também emitida como um evento project.FaseCarregamento do Java
+ * Flight Recorder (ver EventoFaseCarregamento), e as métricas podem ser
+ * publicadas como MBean com registaMBean(). As corridas recriadas por
+ * CorridaBinaria não leem ficheiros csv e têm as métricas vazias.
+ *
+ * Os bytes alocados são os da thread que carrega a corrida, medidos através de
+ * com.sun.management.ThreadMXBean quando a JVM o suporta; não incluem as
+ * alocações das threads que ordenam os postos em paralelo.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class MetricasCarregamento implements MetricasCarregamentoMXBean {
+
+    /** Leitura do ficheiro de atletas e ordenação dos atletas por dorsal. */
+    public static final String FASE_ATLETAS = "atletas";
+
+    /** Construção dos índices por nome, dorsal, escalão e nacionalidade. */
+    public static final String FASE_INDICES = "indices";
+
+    /** Leitura do ficheiro de registo de passagens. */
+    public static final String FASE_REGISTO_PASSAGENS = "registoPassagens";
+
+    /** Ordenação dos registos de cada posto por tempo de passagem. */
+    public static final String FASE_ORDENACAO_POSTOS = "ordenacaoPostos";
+
+    /** Construção das posições de cada atleta em cada posto. */
+    public static final String FASE_POSICOES_POSTOS = "posicoesPostos";
+
+    /** Leitura do ficheiro de classificações. */
+    public static final String FASE_CLASSIFICACOES = "classificacoes";
+
+    /**
+     * Ordenação por dorsal e indexação por nome dos atletas lidos para fora do
+     * heap (ver OpcoesCarregamento).
+     */
+    public static final String FASE_FORA_DO_HEAP = "foraDoHeap";
+
+    private final Map<String, Long> nanosPorFase = new LinkedHashMap<>();
+    private final Map<String, Long> bytesAlocadosPorFase = new LinkedHashMap<>();
+    private final Map<String, Long> linhasLidas = new LinkedHashMap<>();
+    private final Map<String, Long> bytesLidos = new LinkedHashMap<>();
+    private long[] nanosOrdenacaoPorPosto = new long[0];
+    private long pesquisasPorNome;
+    private long pesquisasPorDorsal;
+    private long pesquisasSemResultado;
+
+    /**
+     * Medição de uma fase em curso, criada por inicia().
+     */
+    class Fase {
+
+        private final String nome;
+        private final long inicio;
+        private final long alocadosNoInicio;
+        private final EventoFaseCarregamento evento = new EventoFaseCarregamento();
+
+        private Fase(String nome) {
+            this.nome = nome;
+            evento.begin();
+            this.alocadosNoInicio = bytesAlocadosThread();
+            this.inicio = System.nanoTime();
+        }
+
+        /**
+         * Termina a fase, registando o seu tempo e os bytes alocados.
+         */
+        void termina() {
+            termina(null);
+        }
+
+        /**
+         * Termina uma fase que leu um ficheiro, registando também as linhas e os
+         * bytes lidos pelo leitor.
+         *
+         * @param leitor O leitor do ficheiro, ou null se a fase não leu nenhum.
+         */
+        void termina(LeitorCsv leitor) {
+            long nanos = System.nanoTime() - inicio;
+            long alocados = bytesAlocadosThread();
+            alocados = alocados < 0 || alocadosNoInicio < 0 ? -1 : alocados - alocadosNoInicio;
+            evento.end();
+            registaFase(nome, nanos, alocados, leitor);
+            if (evento.shouldCommit()) {
+                evento.fase = nome;
+                evento.bytesAlocados = alocados;
+                if (leitor != null) {
+                    evento.linhasLidas = leitor.getLinhasLidas();
+                    evento.bytesLidos = leitor.getBytesLidos();
+                }
+                evento.commit();
+            }
+        }
+    }
+
+    /**
+     * Inicia a medição de uma fase.
+     *
+     * @param fase O nome da fase, uma das constantes FASE_*.
+     * @return A medição, que deve ser terminada com Fase.termina().
+     */
+    Fase inicia(String fase) {
+        return new Fase(fase);
+    }
+
+    private synchronized void registaFase(String fase, long nanos, long alocados, LeitorCsv leitor) {
+        nanosPorFase.merge(fase, nanos, Long::sum);
+        if (alocados >= 0) {
+            bytesAlocadosPorFase.merge(fase, alocados, Long::sum);
+        }
+        if (leitor != null) {
+            linhasLidas.merge(fase, leitor.getLinhasLidas(), Long::sum);
+            bytesLidos.merge(fase, leitor.getBytesLidos(), Long::sum);
+        }
+    }
+
+    /**
+     * Regista o tempo da ordenação de cada posto.
+     *
+     * @param nanos O tempo de cada posto, por índice do posto.
+     */
+    synchronized void registaOrdenacaoPostos(long[] nanos) {
+        this.nanosOrdenacaoPorPosto = nanos.clone();
+    }
+
+    /**
+     * Acrescenta pesquisas de atletas às contagens.
+     *
+     * @param porNome       O número de pesquisas por nome.
+     * @param porDorsal     O número de pesquisas por dorsal.
+     * @param semResultado  Quantas dessas pesquisas não encontraram o atleta.
+     */
+    synchronized void registaPesquisas(long porNome, long porDorsal, long semResultado) {
+        pesquisasPorNome += porNome;
+        pesquisasPorDorsal += porDorsal;
+        pesquisasSemResultado += semResultado;
+    }
+
+    @Override
+    public synchronized long getNanosTotal() {
+        long total = 0;
+        for (long nanos : nanosPorFase.values()) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getNanosPorFase() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(nanosPorFase));
+    }
+
+    @Override
+    public synchronized Map<String, Long> getBytesAlocadosPorFase() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(bytesAlocadosPorFase));
+    }
+
+    @Override
+    public synchronized Map<String, Long> getLinhasLidas() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(linhasLidas));
+    }
+
+    @Override
+    public synchronized Map<String, Long> getBytesLidos() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(bytesLidos));
+    }
+
+    @Override
+    public synchronized long[] getNanosOrdenacaoPorPosto() {
+        return nanosOrdenacaoPorPosto.clone();
+    }
+
+    @Override
+    public synchronized long getPesquisasPorNome() {
+        return pesquisasPorNome;
+    }
+
+    @Override
+    public synchronized long getPesquisasPorDorsal() {
+        return pesquisasPorDorsal;
+    }
+
+    @Override
+    public synchronized long getPesquisasSemResultado() {
+        return pesquisasSemResultado;
+    }
+
+    /**
+     * Publica estas métricas no servidor de MBeans da plataforma, com o nome
+     * project:type=MetricasCarregamento,name=corrida.
+     *
+     * @param corrida O identificador da corrida, por exemplo "UTMB_2023".
+     * @return O nome com que as métricas foram registadas, para as poder remover
+     *         com ManagementFactory.getPlatformMBeanServer().unregisterMBean().
+     * @throws JMException Se o nome for inválido ou já estiver registado.
+     */
+    public ObjectName registaMBean(String corrida) throws JMException {
+        ObjectName nome = new ObjectName("project:type=MetricasCarregamento,name=" + ObjectName.quote(corrida));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, nome);
+        return nome;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Carregamento: %.1f ms%n", getNanosTotal() / 1e6));
+        for (Map.Entry<String, Long> fase : nanosPorFase.entrySet()) {
+            sb.append(String.format("  %-17s %9.1f ms", fase.getKey(), fase.getValue() / 1e6));
+            if (linhasLidas.containsKey(fase.getKey())) {
+                sb.append(String.format("  %,d linhas, %,d bytes", linhasLidas.get(fase.getKey()),
+                        bytesLidos.get(fase.getKey())));
+            }
+            if (bytesAlocadosPorFase.containsKey(fase.getKey())) {
+                sb.append(String.format("  %,d bytes alocados", bytesAlocadosPorFase.get(fase.getKey())));
+            }
+            sb.append(System.lineSeparator());
+        }
+        sb.append(String.format("  ordenação por posto (µs): %s%n",
+                Arrays.toString(Arrays.stream(nanosOrdenacaoPorPosto).map(nanos -> nanos / 1000).toArray())));
+        sb.append(String.format("  pesquisas: %d por nome, %d por dorsal, %d sem resultado", pesquisasPorNome,
+                pesquisasPorDorsal, pesquisasSemResultado));
+        return sb.toString();
+    }
+
+    // Bytes alocados até agora pela thread atual, ou -1 se a JVM não os medir.
+    private static long bytesAlocadosThread() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean medidor = (com.sun.management.ThreadMXBean) threads;
+            if (medidor.isThreadAllocatedMemorySupported() && medidor.isThreadAllocatedMemoryEnabled()) {
+                return medidor.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,64 @@
+package project;
+
+import java.util.Map;
+
+/**
+ * Interface de gestão (JMX) das métricas do carregamento de uma corrida,
+ * implementada por MetricasCarregamento. Os tempos são em nanossegundos e os
+ * mapas são indexados pelo nome da fase (ver as constantes FASE_* de
+ * MetricasCarregamento), pela ordem em que as fases decorreram.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public interface MetricasCarregamentoMXBean {
+
+    /**
+     * @return O tempo total do carregamento, soma dos tempos das fases.
+     */
+    long getNanosTotal();
+
+    /**
+     * @return O tempo de cada fase.
+     */
+    Map<String, Long> getNanosPorFase();
+
+    /**
+     * @return Os bytes alocados no heap pela thread do carregamento em cada fase,
+     *         ou um mapa vazio se a JVM não os medir.
+     */
+    Map<String, Long> getBytesAlocadosPorFase();
+
+    /**
+     * @return O número de linhas lidas de cada ficheiro, indexado pela fase que
+     *         o leu.
+     */
+    Map<String, Long> getLinhasLidas();
+
+    /**
+     * @return O número de bytes lidos de cada ficheiro, indexado pela fase que o
+     *         leu.
+     */
+    Map<String, Long> getBytesLidos();
+
+    /**
+     * @return O tempo da ordenação dos registos de cada posto, por índice do
+     *         posto.
+     */
+    long[] getNanosOrdenacaoPorPosto();
+
+    /**
+     * @return O número de pesquisas de atletas por nome.
+     */
+    long getPesquisasPorNome();
+
+    /**
+     * @return O número de pesquisas de atletas por dorsal.
+     */
+    long getPesquisasPorDorsal();
+
+    /**
+     * @return O número de pesquisas, por nome ou por dorsal, que não encontraram
+     *         o atleta.
+     */
+    long getPesquisasSemResultado();
+}
@@ -0,0 +1,107 @@
+package project;
+
+/**
+ * Opções usadas na construção de uma Corrida a partir dos ficheiros csv.
+ * 
+ * Por omissão, os ficheiros são lidos em blocos, os tempos de passagem são
+ * convertidos com o calendário de Tempo.getCalendarioInicial(), os atletas são
+ * guardados em objetos Atleta e o trabalho de cada posto usa tantas threads
+ * quantos os processadores disponíveis.
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+public class OpcoesCarregamento {
+
+    private CalendarioProva calendario = Tempo.getCalendarioInicial();
+    private boolean mapeado;
+    private boolean foraDoHeap;
+    private int paralelismo = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Retorna o calendário usado para converter os tempos de passagem.
+     * 
+     * @return O calendário da prova.
+     */
+    public CalendarioProva getCalendario() {
+        return calendario;
+    }
+
+    /**
+     * Define o calendário usado para converter os tempos de passagem, isto é, a
+     * data-hora de início da prova.
+     * 
+     * @param calendario O calendário da prova.
+     */
+    public void setCalendario(CalendarioProva calendario) {
+        this.calendario = calendario;
+    }
+
+    /**
+     * Indica se os ficheiros são mapeados em memória.
+     * 
+     * @return true se os ficheiros são mapeados em memória, false se são lidos em
+     *         blocos.
+     */
+    public boolean isMapeado() {
+        return mapeado;
+    }
+
+    /**
+     * Define se os ficheiros são mapeados em memória e interpretados no próprio
+     * mapeamento, em vez de serem lidos em blocos para o heap.
+     * 
+     * @param mapeado true se os ficheiros devem ser mapeados em memória.
+     */
+    public void setMapeado(boolean mapeado) {
+        this.mapeado = mapeado;
+    }
+
+    /**
+     * Indica se os atletas são guardados fora do heap.
+     * 
+     * @return true se os atletas são guardados fora do heap, false se são
+     *         guardados em objetos Atleta.
+     */
+    public boolean isForaDoHeap() {
+        return foraDoHeap;
+    }
+
+    /**
+     * Define se os atletas são guardados fora do heap, numa TabelaAtletas, em vez
+     * de num objeto Atleta por atleta. Os atletas são lidos diretamente para a
+     * tabela, sem passar pelo heap, e os objetos Atleta retornados pela corrida
+     * passam a ser vistas criadas a cada acesso.
+     * 
+     * @param foraDoHeap true se os atletas devem ser guardados fora do heap.
+     */
+    public void setForaDoHeap(boolean foraDoHeap) {
+        this.foraDoHeap = foraDoHeap;
+    }
+
+    /**
+     * Retorna o número máximo de threads usadas no trabalho feito posto a posto.
+     * 
+     * @return O paralelismo.
+     */
+    public int getParalelismo() {
+        return paralelismo;
+    }
+
+    /**
+     * Define o número máximo de threads usadas no trabalho feito posto a posto,
+     * no carregamento (ordenação dos registos e posições em cada posto) e depois
+     * dele (Corrida.analiseParciais() e Corrida.estatisticasPostos()). Os postos
+     * são tratados como tarefas fork-join independentes e o resultado é o mesmo
+     * com qualquer paralelismo; com 1, todo o trabalho é feito na thread que
+     * invoca a corrida.
+     * 
+     * @param paralelismo O número máximo de threads.
+     * @throws IllegalArgumentException Se o paralelismo for menor do que 1.
+     */
+    public void setParalelismo(int paralelismo) {
+        if (paralelismo < 1) {
+            throw new IllegalArgumentException("Paralelismo inválido: " + paralelismo);
+        }
+        this.paralelismo = paralelismo;
+    }
+}
\ No newline at end of file
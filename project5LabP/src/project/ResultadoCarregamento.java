@@ -0,0 +1,74 @@
+package project;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado do carregamento de várias corridas por um CarregadorCorridas: as
+ * corridas carregadas, o tempo que cada carregamento demorou e as falhas
+ * ocorridas, tudo indexado pelo identificador da corrida (por exemplo
+ * "UTMB_2023").
+ * 
+ * @author Rodrigo Frutuoso 61865
+ */
+public class ResultadoCarregamento {
+
+    private final Map<String, Corrida> corridas = new TreeMap<>();
+    private final Map<String, Long> temposCarregamento = new TreeMap<>();
+    private final Map<String, Throwable> falhas = new TreeMap<>();
+
+    /**
+     * Regista uma corrida carregada com sucesso.
+     * 
+     * @param id      O identificador da corrida.
+     * @param corrida A corrida carregada.
+     * @param nanos   O tempo de carregamento, em nanossegundos.
+     */
+    synchronized void registaCorrida(String id, Corrida corrida, long nanos) {
+        corridas.put(id, corrida);
+        temposCarregamento.put(id, nanos);
+    }
+
+    /**
+     * Regista uma corrida cujo carregamento falhou.
+     * 
+     * @param id     O identificador da corrida.
+     * @param falha  A exceção ou o erro (por exemplo, OutOfMemoryError) que
+     *               interrompeu o carregamento.
+     * @param nanos  O tempo decorrido até à falha, em nanossegundos.
+     */
+    synchronized void registaFalha(String id, Throwable falha, long nanos) {
+        falhas.put(id, falha);
+        temposCarregamento.put(id, nanos);
+    }
+
+    /**
+     * Retorna as corridas carregadas com sucesso, por ordem de identificador.
+     * 
+     * @return Um mapa não modificável do identificador para a corrida.
+     */
+    public synchronized Map<String, Corrida> getCorridas() {
+        return Collections.unmodifiableMap(new TreeMap<>(corridas));
+    }
+
+    /**
+     * Retorna o tempo de carregamento de cada corrida, com ou sem sucesso.
+     * 
+     * @return Um mapa não modificável do identificador para o tempo de
+     *         carregamento, em nanossegundos.
+     */
+    public synchronized Map<String, Long> getTemposCarregamento() {
+        return Collections.unmodifiableMap(new TreeMap<>(temposCarregamento));
+    }
+
+    /**
+     * Retorna as falhas ocorridas, por ordem de identificador.
+     * 
+     * @return Um mapa não modificável do identificador para a exceção ou o erro
+     *         que interrompeu o carregamento da corrida.
+     */
+    public synchronized Map<String, Throwable> getFalhas() {
+        return Collections.unmodifiableMap(new TreeMap<>(falhas));
+    }
+}
@@ -0,0 +1,105 @@
+package project;
+
+/**
+ * Resultado de um atleta numa corrida, guardado num IndiceCarreiras: o
+ * identificador da corrida (por exemplo "UTMB_2023"), os dados do atleta nessa
+ * corrida e a sua classificação final.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class ResultadoCarreira {
+
+    private final String idCorrida;
+    private final int dorsal;
+    private final String nome;
+    private final String nacionalidade;
+    private final String escalao;
+    private final int posicaoFinalAbsoluta;
+    private final int posicaoFinalEscalao;
+    private final int segundosNaMeta;
+
+    /**
+     * Construtor da classe ResultadoCarreira.
+     *
+     * @param idCorrida            O identificador da corrida.
+     * @param dorsal               O dorsal do atleta na corrida.
+     * @param nome                 O nome do atleta, tal como consta da corrida.
+     * @param nacionalidade        A nacionalidade do atleta.
+     * @param escalao              O escalão do atleta na corrida.
+     * @param posicaoFinalAbsoluta A posição final absoluta.
+     * @param posicaoFinalEscalao  A posição final no escalão.
+     * @param segundosNaMeta       O tempo na meta, em segundos.
+     */
+    ResultadoCarreira(String idCorrida, int dorsal, String nome, String nacionalidade, String escalao,
+            int posicaoFinalAbsoluta, int posicaoFinalEscalao, int segundosNaMeta) {
+        this.idCorrida = idCorrida;
+        this.dorsal = dorsal;
+        this.nome = nome;
+        this.nacionalidade = nacionalidade;
+        this.escalao = escalao;
+        this.posicaoFinalAbsoluta = posicaoFinalAbsoluta;
+        this.posicaoFinalEscalao = posicaoFinalEscalao;
+        this.segundosNaMeta = segundosNaMeta;
+    }
+
+    public String getIdCorrida() {
+        return idCorrida;
+    }
+
+    public int getDorsal() {
+        return dorsal;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getNacionalidade() {
+        return nacionalidade;
+    }
+
+    public String getEscalao() {
+        return escalao;
+    }
+
+    /**
+     * @return A posição final absoluta, ou
+     *         Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META.
+     */
+    public int getPosicaoFinalAbsoluta() {
+        return posicaoFinalAbsoluta;
+    }
+
+    /**
+     * @return A posição final no escalão, ou
+     *         Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META.
+     */
+    public int getPosicaoFinalEscalao() {
+        return posicaoFinalEscalao;
+    }
+
+    /**
+     * @return O tempo na meta em segundos, que só tem significado se o atleta
+     *         chegou à meta.
+     */
+    public int getSegundosNaMeta() {
+        return segundosNaMeta;
+    }
+
+    /**
+     * @return true se o atleta chegou à meta.
+     */
+    public boolean chegouAMeta() {
+        return posicaoFinalAbsoluta != Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META;
+    }
+
+    @Override
+    public String toString() {
+        String resultado = chegouAMeta()
+                ? String.format("%d.º em %d:%02d:%02d", posicaoFinalAbsoluta, segundosNaMeta / 3600,
+                        segundosNaMeta / 60 % 60, segundosNaMeta % 60)
+                : "não chegou à meta";
+        return idCorrida + ": " + nome + " (" + nacionalidade + ", " + escalao + ", dorsal " + dorsal + ") - "
+                + resultado;
+    }
+}
@@ -130,11 +130,10 @@ public class RunProject5 {
             
             // testando ordenação por posição final com atletas reais
             
-            Atleta[] todosOsAtletas = corrida.getAtletas().clone(); // não clona os atletas; só a estrutura
-            Atleta.ordena(todosOsAtletas, new ComparaAtletaPosFinalAbsoluta());
+            Atleta[] primeirosNaMeta = corrida.topK(new ComparaAtletaPosFinalAbsoluta(), 10); // sem ordenar todos
             writer.println();
             writer.println("Primeiros 10 atletas na meta, de acordo com o atributo posição final: ");
-            printDetalhesAtletas(todosOsAtletas, writer, 10);
+            printDetalhesAtletas(primeirosNaMeta, writer, 10);
             
             // testando calculaPosicoesPostos()
             
@@ -154,12 +153,13 @@ public class RunProject5 {
             
             // testando os filtros com atletas reais
             
-            Atleta[] mulheres40a44anos = Atleta.seleccionaEscalaoEouNacionalidade(todosOsAtletas,
-                    "40-44W", "todas");
-            Atleta[] coreanos = Atleta.seleccionaEscalaoEouNacionalidade(todosOsAtletas,
-                    "todos", "KOR (KR)");
-            Atleta[] francesas40a44anos = Atleta.seleccionaEscalaoEouNacionalidade(todosOsAtletas,
-                    "40-44W", "FRA (FR)");
+            Comparator<Atleta> porPosicaoFinal = new ComparaAtletaPosFinalAbsoluta();
+            Atleta[] mulheres40a44anos = corrida.consulta().escalao("40-44W")
+                    .ordenadaPor(porPosicaoFinal).executa();
+            Atleta[] coreanos = corrida.consulta().nacionalidade("KOR (KR)")
+                    .ordenadaPor(porPosicaoFinal).executa();
+            Atleta[] francesas40a44anos = corrida.consulta().escalao("40-44W").nacionalidade("FRA (FR)")
+                    .ordenadaPor(porPosicaoFinal).executa();
             writer.println();
             writer.println("Todas as mulheres de 40 a 44 anos, de qualquer nacionalidade: ");
             printDetalhesAtletas(mulheres40a44anos, writer, 5000);
@@ -198,9 +198,9 @@ public class RunProject5 {
         for (int i = 0; i < quantos; i++) {
             writer.println(String.format("%4d   %4d %25s  %3d:%2d:%2d  %7s  %8s %6d %6d", i + 1,
                     vec[i].getDorsal(), vec[i].getNome(),
-                    vec[i].getTempoNaMeta()[0],
-                    vec[i].getTempoNaMeta()[1],
-                    vec[i].getTempoNaMeta()[2],
+                    vec[i].getTempoNaMeta(0),
+                    vec[i].getTempoNaMeta(1),
+                    vec[i].getTempoNaMeta(2),
                     vec[i].getEscalao(),
                     vec[i].getNacionalidade(),
                     vec[i].getPosicaoFinalAbsoluta(),
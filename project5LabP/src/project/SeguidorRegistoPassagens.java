@@ -0,0 +1,315 @@
+package project;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Segue um ficheiro de registo de passagens que vai crescendo durante a prova,
+ * com o formato de UTMB_2023-progress.csv, e aplica as linhas acrescentadas a
+ * uma Corrida através de Corrida.registaPassagem().
+ *
+ * O seguidor guarda a posição (em bytes) até onde já leu o ficheiro e, em cada
+ * atualização, lê e interpreta apenas os bytes acrescentados desde então, em
+ * blocos de tamanho fixo. Uma linha que não cabe no fim de um bloco passa para
+ * o bloco seguinte; uma linha ainda incompleta no fim do ficheiro (sem fim de
+ * linha) fica para a atualização seguinte. Cada linha é a linha completa de um
+ * atleta: são aplicados os tempos que diferem dos que a corrida já tem.
+ *
+ * As linhas já lidas também podem ser reescritas no próprio ficheiro. Para o
+ * detetar, o seguidor guarda um CRC-32 de cada linha lida, pela ordem em que
+ * aparecem no ficheiro. Se a data de modificação do ficheiro mudar sem que o
+ * tamanho cresça, as linhas já lidas são lidas de novo e comparadas com os CRC
+ * guardados; se o tamanho crescer, só é comparada a última linha lida, para que
+ * seguir o ficheiro continue a custar apenas a leitura do que foi acrescentado.
+ * Em ambos os casos só são interpretadas e aplicadas as linhas cujo CRC mudou.
+ * Uma linha anterior à última, reescrita ao mesmo tempo que são acrescentadas
+ * linhas, só é detetada na próxima alteração que não faça crescer o ficheiro;
+ * alterações que não mudem a data de modificação (que em alguns sistemas de
+ * ficheiros tem a resolução de um segundo) não são detetadas.
+ *
+ * O ficheiro só volta a ser lido e aplicado desde o início se ficar mais pequeno
+ * do que a posição guardada, caso em que se considera que foi truncado ou
+ * substituído por outro.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class SeguidorRegistoPassagens implements Closeable {
+
+    private static final int TAMANHO_BLOCO = 64 * 1024;
+
+    private final String ficheiro;
+    private final Corrida corrida;
+    private final int[] tempos;
+    private long posicao;
+
+    // Verificação das linhas já lidas: a posição onde a leitura começou (se for 0,
+    // a primeira linha é o cabeçalho), o CRC-32 de cada linha lida desde aí, o
+    // início da última linha lida e a data de modificação do ficheiro na última
+    // atualização.
+    private long inicioLido;
+    private int[] crcs = new int[1024];
+    private int numeroLinhas;
+    private long inicioUltimaLinha;
+    private FileTime modificacao;
+    private long passagensAplicadas;
+    private long linhasIgnoradas;
+    private volatile Exception ultimaFalha;
+    private ScheduledExecutorService agendador;
+
+    /**
+     * Construtor da classe SeguidorRegistoPassagens.
+     *
+     * @param ficheiro     O caminho para o ficheiro csv com o registo de
+     *                     passagens.
+     * @param corrida      A corrida a atualizar.
+     * @param desdeOInicio true se o ficheiro deve ser lido desde o início (por
+     *                     exemplo, se a corrida foi carregada antes de o ficheiro
+     *                     existir); false se só interessam as linhas acrescentadas
+     *                     a partir de agora.
+     * @throws FileNotFoundException Se o ficheiro não for encontrado.
+     */
+    public SeguidorRegistoPassagens(String ficheiro, Corrida corrida, boolean desdeOInicio)
+            throws FileNotFoundException {
+        this.ficheiro = ficheiro;
+        this.corrida = corrida;
+        this.tempos = new int[corrida.getNumeroPostosControlo()];
+        try (FileChannel canal = new FileInputStream(ficheiro).getChannel()) {
+            this.posicao = desdeOInicio ? 0 : canal.size();
+            this.inicioLido = posicao;
+            this.inicioUltimaLinha = posicao;
+            this.modificacao = Files.getLastModifiedTime(Paths.get(ficheiro));
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lê os bytes acrescentados ao ficheiro desde a última atualização e aplica à
+     * corrida as linhas completas que contêm, bem como as linhas já lidas que
+     * tenham sido reescritas. Se o ficheiro tiver sido truncado ou substituído,
+     * volta a lê-lo desde o início.
+     *
+     * @return O número de passagens aplicadas à corrida.
+     * @throws FileNotFoundException Se o ficheiro não for encontrado.
+     */
+    public synchronized int atualiza() throws FileNotFoundException {
+        try (FileChannel canal = new FileInputStream(ficheiro).getChannel()) {
+            long tamanho = canal.size();
+            FileTime modificado = Files.getLastModifiedTime(Paths.get(ficheiro));
+            boolean alterado = !modificado.equals(modificacao);
+            modificacao = modificado;
+            int aplicadas;
+            if (tamanho < posicao) {
+                inicioLido = 0;
+                numeroLinhas = 0;
+                aplicadas = le(canal, 0, 0);
+            } else if (alterado && tamanho == posicao) {
+                aplicadas = le(canal, inicioLido, 0);
+            } else if (alterado && numeroLinhas > 0 && terminaLinha(canal, inicioUltimaLinha)) {
+                aplicadas = le(canal, inicioUltimaLinha, numeroLinhas - 1);
+            } else if (alterado && numeroLinhas > 0) {
+                // as linhas mudaram de posição: todas são comparadas
+                aplicadas = le(canal, inicioLido, 0);
+            } else if (tamanho > posicao) {
+                aplicadas = le(canal, posicao, numeroLinhas);
+            } else {
+                aplicadas = 0;
+            }
+            passagensAplicadas += aplicadas;
+            return aplicadas;
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Começa a atualizar a corrida periodicamente, numa thread própria.
+     *
+     * @param intervaloMilissegundos O intervalo entre atualizações, em
+     *                               milissegundos.
+     * @throws IllegalStateException Se o seguidor já tiver sido iniciado.
+     */
+    public synchronized void inicia(long intervaloMilissegundos) {
+        if (agendador != null) {
+            throw new IllegalStateException("O seguidor já foi iniciado");
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "seguidor " + ficheiro);
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::atualizaPeriodicamente, 0, intervaloMilissegundos,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Para as atualizações periódicas, se tiverem sido iniciadas.
+     */
+    @Override
+    public synchronized void close() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+            agendador = null;
+        }
+    }
+
+    /**
+     * @return A posição, em bytes, até onde o ficheiro já foi lido.
+     */
+    public synchronized long getPosicao() {
+        return posicao;
+    }
+
+    /**
+     * @return O número total de passagens aplicadas à corrida.
+     */
+    public synchronized long getPassagensAplicadas() {
+        return passagensAplicadas;
+    }
+
+    /**
+     * @return O número de linhas ignoradas por não poderem ser interpretadas ou
+     *         por terem um dorsal desconhecido.
+     */
+    public synchronized long getLinhasIgnoradas() {
+        return linhasIgnoradas;
+    }
+
+    /**
+     * @return A exceção da última atualização periódica que falhou, ou null se
+     *         nenhuma falhou.
+     */
+    public Exception getUltimaFalha() {
+        return ultimaFalha;
+    }
+
+    // Indica se a posição dada é o início de uma linha, isto é, se é o início da
+    // leitura ou se o byte anterior é um fim de linha.
+    private boolean terminaLinha(FileChannel canal, long inicio) throws IOException {
+        if (inicio == inicioLido) {
+            return true;
+        }
+        ByteBuffer anterior = ByteBuffer.allocate(1);
+        return canal.read(anterior, inicio - 1) == 1 && anterior.get(0) == '\n';
+    }
+
+    // Lê o ficheiro desde a posição dada até ao fim, em blocos, e trata cada linha
+    // completa, que tem o número de ordem dado a partir da primeira. Atualiza a
+    // posição até onde o ficheiro foi lido e o número de linhas lidas.
+    private int le(FileChannel canal, long inicio, int primeiraLinha) throws IOException {
+        ByteBuffer bloco = ByteBuffer.allocate(TAMANHO_BLOCO);
+        long base = inicio;
+        int linha = primeiraLinha;
+        int aplicadas = 0;
+        boolean esgotado = false;
+        while (!esgotado) {
+            if (!bloco.hasRemaining()) {
+                // a linha não cabe no bloco
+                ByteBuffer maior = ByteBuffer.allocate(bloco.capacity() * 2);
+                maior.put(bloco.flip());
+                bloco = maior;
+            }
+            int pesquisado = bloco.position();
+            esgotado = canal.read(bloco, base + pesquisado) <= 0;
+            bloco.flip();
+            int inicioLinha = 0;
+            for (int i = pesquisado; i < bloco.limit(); i++) {
+                if (bloco.get(i) == '\n') {
+                    aplicadas += trataLinha(bloco, inicioLinha, i + 1, linha++);
+                    inicioUltimaLinha = base + inicioLinha;
+                    inicioLinha = i + 1;
+                }
+            }
+            bloco.position(inicioLinha);
+            bloco.compact();
+            base += inicioLinha;
+        }
+        posicao = base;
+        numeroLinhas = linha;
+        return aplicadas;
+    }
+
+    // Compara o CRC-32 da linha entre inicio e fim com o guardado para o seu
+    // número de ordem e, se for uma linha nova ou tiver mudado, guarda-o e aplica
+    // a linha à corrida.
+    private int trataLinha(ByteBuffer bloco, int inicio, int fim, int linha) {
+        ByteBuffer bytes = bloco.duplicate().limit(fim).position(inicio);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        int valor = (int) crc.getValue();
+        if (linha < numeroLinhas && crcs[linha] == valor) {
+            return 0;
+        }
+        if (linha == crcs.length) {
+            crcs = Arrays.copyOf(crcs, crcs.length * 2);
+        }
+        crcs[linha] = valor;
+        if (linha == 0 && inicioLido == 0) {
+            return 0; // cabeçalho
+        }
+        LeitorCsv leitor = new LeitorCsv(bytes);
+        if (!leitor.proximaLinha()) {
+            return 0;
+        }
+        try {
+            return aplicaLinha(leitor);
+        } catch (IllegalArgumentException e) {
+            linhasIgnoradas++;
+            return 0;
+        }
+    }
+
+    // Usado nas atualizações periódicas: uma falha (por exemplo, o ficheiro estar
+    // a ser substituído) não pode interromper as atualizações seguintes.
+    private void atualizaPeriodicamente() {
+        try {
+            atualiza();
+        } catch (FileNotFoundException | RuntimeException e) {
+            ultimaFalha = e;
+        }
+    }
+
+    // Interpreta toda a linha antes de alterar a corrida, para que uma linha com
+    // erros não seja aplicada só em parte.
+    private int aplicaLinha(LeitorCsv leitor) {
+        int dorsal = leitor.lerInt();
+        leitor.saltaCampo();
+        leitor.saltaCampo();
+        Atleta atleta = corrida.getAtletaPorDorsal(dorsal);
+        if (atleta == null) {
+            throw new IllegalArgumentException("Dorsal desconhecido: " + dorsal);
+        }
+        for (int i = 0; i < tempos.length; i++) {
+            int tempoDia = leitor.temCampo() ? leitor.lerTempoDia() : LeitorCsv.SEM_TEMPO;
+            tempos[i] = tempoDia == LeitorCsv.SEM_TEMPO ? Corrida.MINUTOS_DE_QUEM_NAO_PASSOU
+                    : corrida.getCalendario().minutosEmProva(tempoDia);
+        }
+        int aplicadas = 0;
+        synchronized (corrida) {
+            for (int i = 0; i < tempos.length; i++) {
+                if (!atleta.temTemposPassagem() || atleta.getTempoPassagem(i) != tempos[i]) {
+                    corrida.registaPassagem(dorsal, i, tempos[i]);
+                    aplicadas++;
+                }
+            }
+        }
+        return aplicadas;
+    }
+}
@@ -0,0 +1,139 @@
+package project;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Seleciona os k primeiros de uma sequência de elementos segundo um comparador,
+ * sem ordenar a sequência toda: os elementos são oferecidos um a um e só os k
+ * melhores até ao momento são guardados, num amontoado (heap) cuja raiz é o pior
+ * deles. Cada elemento oferecido custa O(log k), e apenas uma comparação se não
+ * entrar na seleção.
+ *
+ * Elementos equivalentes para o comparador ficam pela ordem em que foram
+ * oferecidos, tal como numa ordenação estável da sequência toda.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+class SelecaoTopK<T> {
+
+    private final Comparator<? super T> comparador;
+    private final int k;
+    private Object[] elementos;
+    private long[] ordens;
+    private int tamanho;
+    private long oferecidos;
+
+    /**
+     * @param k          O número de elementos a selecionar.
+     * @param comparador O comparador que define a ordem.
+     * @param capacidade O número de elementos que se prevê selecionar, que pode
+     *                   ser menor do que k se a sequência for mais curta.
+     * @throws IllegalArgumentException Se k for negativo.
+     */
+    SelecaoTopK(int k, Comparator<? super T> comparador, int capacidade) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Número de elementos inválido: " + k);
+        }
+        this.k = k;
+        this.comparador = comparador;
+        int inicial = Math.max(1, Math.min(k, capacidade));
+        this.elementos = new Object[inicial];
+        this.ordens = new long[inicial];
+    }
+
+    /**
+     * Oferece um elemento à seleção.
+     *
+     * @param elemento O elemento.
+     */
+    void oferece(T elemento) {
+        long ordem = oferecidos++;
+        if (tamanho < k) {
+            if (tamanho == elementos.length) {
+                int capacidade = (int) Math.min(k, 2L * tamanho);
+                elementos = Arrays.copyOf(elementos, capacidade);
+                ordens = Arrays.copyOf(ordens, capacidade);
+            }
+            sobe(tamanho++, elemento, ordem);
+        } else if (k > 0 && compara(elemento, ordem, 0) < 0) {
+            desce(0, elemento, ordem);
+        }
+    }
+
+    /**
+     * @return O número de elementos selecionados.
+     */
+    int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Retorna os elementos selecionados, do primeiro para o último. A seleção fica
+     * vazia.
+     *
+     * @param destino Um array com pelo menos tamanho() posições.
+     * @return O array destino, com os elementos nas primeiras tamanho() posições.
+     */
+    T[] retira(T[] destino) {
+        while (tamanho > 0) {
+            destino[tamanho - 1] = elemento(0);
+            tamanho--;
+            if (tamanho > 0) {
+                desce(0, elemento(tamanho), ordens[tamanho]);
+            }
+            elementos[tamanho] = null;
+        }
+        return destino;
+    }
+
+    // Compara um elemento com o da posição i do amontoado; os empates são
+    // desfeitos pela ordem em que foram oferecidos.
+    private int compara(T elemento, long ordem, int i) {
+        int c = comparador.compare(elemento, elemento(i));
+        return c != 0 ? c : Long.compare(ordem, ordens[i]);
+    }
+
+    // Coloca um elemento na posição i ou acima dela, subindo enquanto for pior do
+    // que o pai.
+    private void sobe(int i, T elemento, long ordem) {
+        while (i > 0) {
+            int pai = (i - 1) >>> 1;
+            if (compara(elemento, ordem, pai) <= 0) {
+                break;
+            }
+            elementos[i] = elementos[pai];
+            ordens[i] = ordens[pai];
+            i = pai;
+        }
+        elementos[i] = elemento;
+        ordens[i] = ordem;
+    }
+
+    // Coloca um elemento na posição i ou abaixo dela, descendo enquanto algum filho
+    // for pior do que ele.
+    private void desce(int i, T elemento, long ordem) {
+        while (true) {
+            int filho = 2 * i + 1;
+            if (filho >= tamanho) {
+                break;
+            }
+            if (filho + 1 < tamanho && compara(elemento(filho + 1), ordens[filho + 1], filho) > 0) {
+                filho++;
+            }
+            if (compara(elemento, ordem, filho) >= 0) {
+                break;
+            }
+            elementos[i] = elementos[filho];
+            ordens[i] = ordens[filho];
+            i = filho;
+        }
+        elementos[i] = elemento;
+        ordens[i] = ordem;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elemento(int i) {
+        return (T) elementos[i];
+    }
+}
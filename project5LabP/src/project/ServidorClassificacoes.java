@@ -0,0 +1,346 @@
+package project;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import project.comparators.ComparaAtletaPosFinalAbsoluta;
+
+/**
+ * Servidor HTTP embebido que publica as classificações de uma corrida em JSON,
+ * para serem mostradas por uma página web. As vistas disponíveis (todas com o
+ * método GET) são:
+ *
+ * <pre>
+ * /classificacao                 os primeiros da classificação geral
+ * /escaloes                      a lista dos escalões
+ * /escaloes/{escalao}            os primeiros de um escalão
+ * /nacionalidades                a lista das nacionalidades
+ * /nacionalidades/{nacionalidade} os primeiros de uma nacionalidade
+ * /postos/{posto}                os primeiros a passar num posto, a partir de 0
+ * </pre>
+ *
+ * As classificações têm no máximo getLimite() atletas. A resposta de cada vista
+ * é gerada uma só vez e guardada já serializada, com a versão da corrida (ver
+ * Corrida.getVersao()) a que corresponde e a geração do servidor, que muda a
+ * cada setLimite(); só volta a ser gerada quando a corrida é alterada, por
+ * exemplo por registaPassagem(), ou quando o limite muda. A geração e a versão
+ * são também enviadas como ETag, para que os clientes possam evitar descarregar
+ * uma vista que não mudou.
+ *
+ * Cada pedido é tratado numa thread virtual quando a JVM as suporta (ver
+ * Executores.threadsVirtuais()), pelo que o servidor aguenta muitos clientes
+ * simultâneos. Os pedidos a vistas em cache e atualizadas são servidos sem
+ * bloquear a corrida nem a cache; só a geração de uma vista nova ou
+ * desatualizada bloqueia a corrida, fora de qualquer bloqueio da cache. Pedidos
+ * simultâneos à mesma vista desatualizada podem gerá-la mais do que uma vez.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+public class ServidorClassificacoes {
+
+    /**
+     * Número de atletas de cada classificação, se não for definido outro com
+     * setLimite().
+     */
+    public static final int LIMITE_POR_OMISSAO = 100;
+
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    private final Corrida corrida;
+    private final HttpServer servidor;
+    private final ExecutorService executor = Executores.threadsVirtuais();
+    private final Map<String, RespostaEmCache> cache = new ConcurrentHashMap<>();
+    private final AtomicLong respostasGeradas = new AtomicLong();
+    private volatile int limite = LIMITE_POR_OMISSAO;
+
+    // Número de alterações do limite, que mudam todas as respostas sem mudar a
+    // versão da corrida.
+    private final AtomicLong geracao = new AtomicLong();
+
+    // Resposta de uma vista, já serializada, com a geração do servidor e a versão
+    // da corrida em que foi gerada.
+    private static class RespostaEmCache {
+
+        private final long geracao;
+        private final long versao;
+        private final byte[] corpo;
+
+        RespostaEmCache(long geracao, long versao, byte[] corpo) {
+            this.geracao = geracao;
+            this.versao = versao;
+            this.corpo = corpo;
+        }
+
+        // Indica se esta resposta é mais recente do que outra da mesma vista.
+        boolean maisRecenteQue(RespostaEmCache outra) {
+            return geracao != outra.geracao ? geracao > outra.geracao : versao >= outra.versao;
+        }
+    }
+
+    /**
+     * Cria um servidor para uma corrida, que só aceita pedidos depois de
+     * inicia().
+     *
+     * @param corrida A corrida a publicar.
+     * @param porta   A porta onde o servidor escuta, ou 0 para uma porta livre
+     *                qualquer (ver getPorta()).
+     * @throws IOException Se não for possível abrir a porta.
+     */
+    public ServidorClassificacoes(Corrida corrida, int porta) throws IOException {
+        this.corrida = corrida;
+        this.servidor = HttpServer.create(new InetSocketAddress(porta), 0);
+        servidor.createContext("/", this::trata);
+        servidor.setExecutor(executor);
+    }
+
+    /**
+     * Começa a aceitar pedidos.
+     */
+    public void inicia() {
+        servidor.start();
+    }
+
+    /**
+     * Para o servidor, fechando as ligações abertas.
+     */
+    public void termina() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return A porta onde o servidor escuta.
+     */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * @return O número máximo de atletas de cada classificação.
+     */
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Define o número máximo de atletas de cada classificação. As respostas em
+     * cache são descartadas e a geração do servidor, enviada no ETag, muda, para
+     * que os clientes não reutilizem as respostas com o limite anterior.
+     *
+     * @param limite O número de atletas.
+     * @throws IllegalArgumentException Se o limite não for positivo.
+     */
+    public void setLimite(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite inválido: " + limite);
+        }
+        this.limite = limite;
+        geracao.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * @return O número de respostas geradas desde a criação do servidor, isto é,
+     *         de pedidos que não foram servidos a partir da cache.
+     */
+    public long getRespostasGeradas() {
+        return respostasGeradas.get();
+    }
+
+    private void trata(HttpExchange troca) throws IOException {
+        try {
+            if (!troca.getRequestMethod().equals("GET")) {
+                troca.getResponseHeaders().set("Allow", "GET");
+                envia(troca, 405, erro("Método não suportado: " + troca.getRequestMethod()));
+                return;
+            }
+            String vista = troca.getRequestURI().getPath();
+            RespostaEmCache resposta = cache.get(vista);
+            if (resposta == null || resposta.geracao != geracao.get() || resposta.versao != corrida.getVersao()) {
+                resposta = gera(vista);
+                if (resposta != null) {
+                    guarda(vista, resposta);
+                }
+            }
+            if (resposta == null) {
+                envia(troca, 404, erro("Vista inexistente: " + vista));
+                return;
+            }
+            String etag = "\"" + resposta.geracao + "." + resposta.versao + "\"";
+            troca.getResponseHeaders().set("ETag", etag);
+            troca.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (etag.equals(troca.getRequestHeaders().getFirst("If-None-Match"))) {
+                troca.sendResponseHeaders(304, -1);
+                return;
+            }
+            envia(troca, 200, resposta.corpo);
+        } catch (IllegalArgumentException e) {
+            envia(troca, 400, erro(e.getMessage()));
+        } finally {
+            troca.close();
+        }
+    }
+
+    private static void envia(HttpExchange troca, int codigo, byte[] corpo) throws IOException {
+        troca.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        troca.sendResponseHeaders(codigo, corpo.length);
+        try (OutputStream out = troca.getResponseBody()) {
+            out.write(corpo);
+        }
+    }
+
+    // Guarda uma resposta gerada na cache, a não ser que outro pedido tenha
+    // entretanto guardado uma resposta mais recente para a mesma vista.
+    private void guarda(String vista, RespostaEmCache resposta) {
+        cache.merge(vista, resposta, (anterior, nova) -> nova.maisRecenteQue(anterior) ? nova : anterior);
+    }
+
+    // Gera a resposta de uma vista com a corrida bloqueada, para que a versão
+    // guardada corresponda aos dados serializados. A geração é lida antes do
+    // limite, que setLimite() altera antes de mudar a geração, para que uma
+    // resposta nunca fique com uma geração mais recente do que o seu limite.
+    // Retorna null se a vista não existir, para que os caminhos inválidos não
+    // fiquem na cache.
+    private RespostaEmCache gera(String vista) {
+        long geracaoAtual = geracao.get();
+        synchronized (corrida) {
+            respostasGeradas.incrementAndGet();
+            String json = json(vista.split("/", -1));
+            return json == null ? null
+                    : new RespostaEmCache(geracaoAtual, corrida.getVersao(), json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Retorna o JSON de uma vista, dada pelos segmentos do caminho (o primeiro é
+    // vazio), ou null se a vista não existir.
+    private String json(String[] caminho) {
+        if (caminho.length == 2 && caminho[1].equals("classificacao")) {
+            return classificacao(corrida.consulta());
+        }
+        if (caminho.length == 2 && caminho[1].equals("escaloes")) {
+            return lista(corrida.getEscaloes());
+        }
+        if (caminho.length == 3 && caminho[1].equals("escaloes")) {
+            return contem(corrida.getEscaloes(), caminho[2])
+                    ? classificacao(corrida.consulta().escalao(caminho[2]))
+                    : null;
+        }
+        if (caminho.length == 2 && caminho[1].equals("nacionalidades")) {
+            return lista(corrida.getNacionalidades());
+        }
+        if (caminho.length == 3 && caminho[1].equals("nacionalidades")) {
+            return contem(corrida.getNacionalidades(), caminho[2])
+                    ? classificacao(corrida.consulta().nacionalidade(caminho[2]))
+                    : null;
+        }
+        if (caminho.length == 3 && caminho[1].equals("postos")) {
+            return posto(caminho[2]);
+        }
+        return null;
+    }
+
+    private String classificacao(ConsultaAtletas consulta) {
+        Atleta[] atletas = consulta.chegaramAMeta().ordenadaPor(new ComparaAtletaPosFinalAbsoluta())
+                .limite(limite).executa();
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < atletas.length; i++) {
+            Atleta atleta = atletas[i];
+            sb.append(i == 0 ? "" : ",").append("{\"posicao\":").append(atleta.getPosicaoFinalAbsoluta())
+                    .append(",\"posicaoEscalao\":").append(atleta.getPosicaoFinalEscalao());
+            atleta(sb, atleta);
+            sb.append(String.format(",\"tempo\":\"%d:%02d:%02d\"}", atleta.getTempoNaMeta(0),
+                    atleta.getTempoNaMeta(1), atleta.getTempoNaMeta(2)));
+        }
+        return sb.append("]").toString();
+    }
+
+    private String posto(String texto) {
+        int posto;
+        try {
+            posto = Integer.parseInt(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Posto inválido: " + texto);
+        }
+        if (posto < 0 || posto >= corrida.getNumeroPostosControlo()) {
+            return null;
+        }
+        Atleta[] atletas = corrida.topKNoPosto(posto, limite);
+        StringBuilder sb = new StringBuilder("[");
+        for (int j = 0; j < atletas.length; j++) {
+            sb.append(j == 0 ? "" : ",").append("{\"posicao\":").append(j + 1);
+            atleta(sb, atletas[j]);
+            sb.append(",\"minutos\":").append(corrida.getTempoPassagemRegisto(posto, j)).append("}");
+        }
+        return sb.append("]").toString();
+    }
+
+    private static void atleta(StringBuilder sb, Atleta atleta) {
+        sb.append(",\"dorsal\":").append(atleta.getDorsal()).append(",\"nome\":");
+        texto(sb, atleta.getNome());
+        sb.append(",\"nacionalidade\":");
+        texto(sb, atleta.getNacionalidade());
+        sb.append(",\"escalao\":");
+        texto(sb, atleta.getEscalao());
+    }
+
+    private static String lista(String[] valores) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < valores.length; i++) {
+            sb.append(i == 0 ? "" : ",");
+            texto(sb, valores[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+    private static byte[] erro(String mensagem) {
+        StringBuilder sb = new StringBuilder("{\"erro\":");
+        texto(sb, mensagem);
+        return sb.append("}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Acrescenta um texto como string JSON, com os caracteres especiais
+    // escapados.
+    private static void texto(StringBuilder sb, String texto) {
+        sb.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static boolean contem(String[] ordenados, String valor) {
+        return Arrays.binarySearch(ordenados, valor) >= 0;
+    }
+
+    /**
+     * Publica a corrida UTMB 2023 da diretoria input.
+     *
+     * @param args A porta, opcional (8080 por omissão).
+     * @throws IOException Se os ficheiros não puderem ser lidos ou a porta aberta.
+     */
+    public static void main(String[] args) throws IOException {
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        ServidorClassificacoes servidor = new ServidorClassificacoes(corrida,
+                args.length > 0 ? Integer.parseInt(args[0]) : 8080);
+        servidor.inicia();
+        System.out.println("A servir a corrida em http://localhost:" + servidor.getPorta() + "/classificacao");
+    }
+}
@@ -0,0 +1,366 @@
+package project;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Dados dos atletas de uma corrida guardados fora do heap, numa zona de memória
+ * direta, em vez de num objeto Atleta (com as suas strings e arrays) por
+ * atleta.
+ *
+ * A tabela é preenchida diretamente durante a leitura do ficheiro de atletas,
+ * com acrescenta(), e depois ordenada por dorsal com ordenaEIndexa(), sem
+ * passar por um array de objetos Atleta. Cada atleta ocupa um registo de
+ * largura fixa com inteiros: o dorsal, a posição do nome no dicionário de
+ * nomes, os códigos da nacionalidade e do escalão, as posições finais, o tempo
+ * na meta em segundos e a indicação de que tem tempos de passagem. Os tempos de
+ * passagem, um inteiro por posto, ficam numa segunda zona, reservada quando o
+ * número de postos é conhecido (ver alocaTemposPassagem()).
+ *
+ * Os nomes são guardados em UTF-8, precedidos do seu tamanho, num dicionário
+ * fora do heap, e são pesquisados através de uma tabela de dispersão de
+ * inteiros sobre esses bytes, sem guardar as strings no heap. As nacionalidades
+ * e os escalões, que são poucos, são guardados uma única vez como strings,
+ * retornadas sem cópia pelos getters.
+ *
+ * Os atletas são acedidos através de objetos Atleta (ver
+ * Atleta(TabelaAtletas, int)), que leem e escrevem diretamente na tabela.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+class TabelaAtletas {
+
+    private static final int DORSAL = 0;
+    private static final int NOME = 1;
+    private static final int NACIONALIDADE = 2;
+    private static final int ESCALAO = 3;
+    private static final int POSICAO_FINAL_ABSOLUTA = 4;
+    private static final int POSICAO_FINAL_ESCALAO = 5;
+    private static final int SEGUNDOS_NA_META = 6;
+    private static final int TEM_TEMPOS_PASSAGEM = 7;
+    private static final int BYTES_POR_ATLETA = 8 * Integer.BYTES;
+
+    private int numeroAtletas;
+    private int numeroPostos;
+    private ByteBuffer registos;
+    private ByteBuffer temposPassagem = aloca(0);
+
+    // Dicionário de nomes, um por atleta, cada um precedido do seu tamanho.
+    private ByteBuffer nomes;
+    private int tamanhoNomes;
+
+    // Nacionalidades e escalões distintos, pelo seu código.
+    private final List<String> valores = new ArrayList<>();
+    private final Map<String, Integer> codigosValores = new HashMap<>();
+
+    // Tabela de dispersão com endereçamento aberto: cada posição tem o índice (a
+    // partir de 1) do primeiro atleta com um dado nome, ou 0. É construída por
+    // ordenaEIndexa(); até lá é null e a tabela aceita novos atletas.
+    private int[] indicesPorNome;
+
+    /**
+     * Cria uma tabela vazia.
+     *
+     * @param capacidade O número de atletas esperado, usado apenas para a reserva
+     *                   inicial de memória.
+     */
+    TabelaAtletas(int capacidade) {
+        this.registos = aloca(Math.max(capacidade, 16) * BYTES_POR_ATLETA);
+        this.nomes = aloca(Math.max(capacidade, 16) * 16);
+    }
+
+    /**
+     * Acrescenta um atleta ao fim da tabela, sem tempos de passagem e com as
+     * posições finais e o tempo na meta a 0.
+     *
+     * @param dorsal        O dorsal do atleta.
+     * @param nome          O nome do atleta.
+     * @param nacionalidade A nacionalidade do atleta.
+     * @param escalao       O escalão do atleta.
+     * @return O índice do atleta na tabela, até à ordenação por ordenaEIndexa().
+     * @throws IllegalStateException se a tabela já tiver sido ordenada.
+     */
+    int acrescenta(int dorsal, String nome, String nacionalidade, String escalao) {
+        if (indicesPorNome != null) {
+            throw new IllegalStateException("A tabela de atletas já foi ordenada");
+        }
+        if ((numeroAtletas + 1) * BYTES_POR_ATLETA > registos.capacity()) {
+            registos = aumenta(registos, numeroAtletas * BYTES_POR_ATLETA, BYTES_POR_ATLETA);
+        }
+        byte[] bytes = nome.getBytes(StandardCharsets.UTF_8);
+        if (tamanhoNomes + Integer.BYTES + bytes.length > nomes.capacity()) {
+            nomes = aumenta(nomes, tamanhoNomes, Integer.BYTES + bytes.length);
+        }
+        nomes.putInt(tamanhoNomes, bytes.length);
+        nomes.put(tamanhoNomes + Integer.BYTES, bytes);
+
+        int indice = numeroAtletas++;
+        escreve(indice, DORSAL, dorsal);
+        escreve(indice, NOME, tamanhoNomes);
+        escreve(indice, NACIONALIDADE, codigo(nacionalidade));
+        escreve(indice, ESCALAO, codigo(escalao));
+        tamanhoNomes += Integer.BYTES + bytes.length;
+        return indice;
+    }
+
+    /**
+     * Ordena os atletas por ordem crescente de dorsal, mantendo a ordem de
+     * inserção dos atletas com o mesmo dorsal, e constrói o índice por nome. Em
+     * caso de nomes repetidos, o índice guarda a primeira ocorrência. Depois de
+     * ordenada, a tabela não aceita novos atletas.
+     */
+    void ordenaEIndexa() {
+        long[] chaves = new long[numeroAtletas];
+        for (int i = 0; i < numeroAtletas; i++) {
+            chaves[i] = (long) le(i, DORSAL) << 32 | i;
+        }
+        Arrays.sort(chaves);
+        ByteBuffer ordenados = aloca(numeroAtletas * BYTES_POR_ATLETA);
+        for (int k = 0; k < numeroAtletas; k++) {
+            ordenados.put(k * BYTES_POR_ATLETA, registos, (int) chaves[k] * BYTES_POR_ATLETA, BYTES_POR_ATLETA);
+        }
+        registos = ordenados;
+
+        int[] indices = new int[Integer.highestOneBit(Math.max(numeroAtletas, 1)) * 4];
+        int mascara = indices.length - 1;
+        for (int i = 0; i < numeroAtletas; i++) {
+            int nome = le(i, NOME);
+            int k = dispersao(nomes, nome + Integer.BYTES, nomes.getInt(nome)) & mascara;
+            while (indices[k] != 0 && !iguais(le(indices[k] - 1, NOME), nomes, nome)) {
+                k = (k + 1) & mascara;
+            }
+            if (indices[k] == 0) {
+                indices[k] = i + 1;
+            }
+        }
+        this.indicesPorNome = indices;
+    }
+
+    /**
+     * Reserva a zona dos tempos de passagem, que ficam por definir.
+     *
+     * @param numeroPostos O número de postos de controlo.
+     */
+    void alocaTemposPassagem(int numeroPostos) {
+        this.temposPassagem = aloca(numeroAtletas * numeroPostos * Integer.BYTES);
+        this.numeroPostos = numeroPostos;
+    }
+
+    /**
+     * @return O número de atletas da tabela.
+     */
+    int numeroAtletas() {
+        return numeroAtletas;
+    }
+
+    /**
+     * Pesquisa um atleta pelo nome, através do índice construído por
+     * ordenaEIndexa().
+     *
+     * @param nome O nome do atleta.
+     * @return O índice do primeiro atleta com esse nome, ou -1 se não existir.
+     */
+    int indicePorNome(String nome) {
+        ByteBuffer bytes = ByteBuffer.wrap(nome.getBytes(StandardCharsets.UTF_8));
+        int mascara = indicesPorNome.length - 1;
+        int k = dispersao(bytes, 0, bytes.capacity()) & mascara;
+        while (indicesPorNome[k] != 0) {
+            int indice = indicesPorNome[k] - 1;
+            if (iguais(le(indice, NOME), bytes, -1)) {
+                return indice;
+            }
+            k = (k + 1) & mascara;
+        }
+        return -1;
+    }
+
+    /**
+     * Pesquisa um atleta pelo dorsal, por pesquisa binária sobre os atletas
+     * ordenados por ordenaEIndexa().
+     *
+     * @param dorsal O dorsal do atleta.
+     * @return O índice do primeiro atleta com esse dorsal, ou -1 se não existir.
+     */
+    int indicePorDorsal(int dorsal) {
+        int inicio = 0;
+        int fim = numeroAtletas;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (le(meio, DORSAL) < dorsal) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio < numeroAtletas && le(inicio, DORSAL) == dorsal ? inicio : -1;
+    }
+
+    // Os métodos seguintes leem ou escrevem os campos do atleta com o índice dado,
+    // com o significado dos métodos de Atleta com o mesmo nome.
+
+    int getDorsal(int indice) {
+        return le(indice, DORSAL);
+    }
+
+    // Cria a string com o nome guardado no dicionário.
+    String getNome(int indice) {
+        int posicao = le(indice, NOME);
+        byte[] bytes = new byte[nomes.getInt(posicao)];
+        nomes.get(posicao + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    String getNacionalidade(int indice) {
+        return valores.get(le(indice, NACIONALIDADE));
+    }
+
+    String getEscalao(int indice) {
+        return valores.get(le(indice, ESCALAO));
+    }
+
+    int getPosicaoFinalAbsoluta(int indice) {
+        return le(indice, POSICAO_FINAL_ABSOLUTA);
+    }
+
+    int getPosicaoFinalEscalao(int indice) {
+        return le(indice, POSICAO_FINAL_ESCALAO);
+    }
+
+    int getSegundosNaMeta(int indice) {
+        return le(indice, SEGUNDOS_NA_META);
+    }
+
+    /**
+     * @param indice O índice do atleta.
+     * @return Um novo array com os tempos de passagem do atleta, ou null se não
+     *         tiverem sido definidos.
+     */
+    int[] getTemposPassagem(int indice) {
+        if (!temTemposPassagem(indice)) {
+            return null;
+        }
+        int[] tempos = new int[numeroPostos];
+        for (int j = 0; j < numeroPostos; j++) {
+            tempos[j] = temposPassagem.getInt(posicaoTempo(indice, j));
+        }
+        return tempos;
+    }
+
+    int getTempoPassagem(int indice, int posto) {
+        if (!temTemposPassagem(indice)) {
+            throw new NullPointerException("Tempos de passagem não definidos");
+        }
+        return temposPassagem.getInt(posicaoTempo(indice, Objects.checkIndex(posto, numeroPostos)));
+    }
+
+    boolean temTemposPassagem(int indice) {
+        return le(indice, TEM_TEMPOS_PASSAGEM) != 0;
+    }
+
+    void setPosicaoFinalAbsoluta(int indice, int posicao) {
+        escreve(indice, POSICAO_FINAL_ABSOLUTA, posicao);
+    }
+
+    void setPosicaoFinalEscalao(int indice, int posicao) {
+        escreve(indice, POSICAO_FINAL_ESCALAO, posicao);
+    }
+
+    void setSegundosNaMeta(int indice, int segundos) {
+        escreve(indice, SEGUNDOS_NA_META, segundos);
+    }
+
+    // Lança IllegalArgumentException se o número de tempos não for o número de
+    // postos reservado por alocaTemposPassagem().
+    void setTemposPassagem(int indice, int[] tempos) {
+        if (tempos.length != numeroPostos) {
+            throw new IllegalArgumentException(
+                    "São esperados " + numeroPostos + " tempos de passagem: " + Arrays.toString(tempos));
+        }
+        Objects.checkIndex(indice, numeroAtletas);
+        for (int j = 0; j < numeroPostos; j++) {
+            temposPassagem.putInt(posicaoTempo(indice, j), tempos[j]);
+        }
+        escreve(indice, TEM_TEMPOS_PASSAGEM, 1);
+    }
+
+    void setTempoPassagem(int indice, int posto, int tempoPassagem) {
+        if (!temTemposPassagem(indice)) {
+            throw new NullPointerException("Tempos de passagem não definidos");
+        }
+        temposPassagem.putInt(posicaoTempo(indice, Objects.checkIndex(posto, numeroPostos)), tempoPassagem);
+    }
+
+    private int le(int indice, int campo) {
+        return registos.getInt(Objects.checkIndex(indice, numeroAtletas) * BYTES_POR_ATLETA + campo * Integer.BYTES);
+    }
+
+    private void escreve(int indice, int campo, int valor) {
+        registos.putInt(Objects.checkIndex(indice, numeroAtletas) * BYTES_POR_ATLETA + campo * Integer.BYTES, valor);
+    }
+
+    private int posicaoTempo(int indice, int posto) {
+        return (indice * numeroPostos + posto) * Integer.BYTES;
+    }
+
+    // Código da nacionalidade ou do escalão dado, acrescentado se for novo.
+    private int codigo(String valor) {
+        Integer codigo = codigosValores.get(valor);
+        if (codigo == null) {
+            codigo = valores.size();
+            valores.add(valor);
+            codigosValores.put(valor, codigo);
+        }
+        return codigo;
+    }
+
+    // Indica se o nome na posição dada do dicionário é igual ao texto guardado em
+    // outro, na posição dada, precedido do seu tamanho, ou ao conteúdo todo de
+    // outro, se a posição for -1.
+    private boolean iguais(int posicao, ByteBuffer outro, int posicaoOutro) {
+        int tamanho = nomes.getInt(posicao);
+        int inicioOutro = posicaoOutro + Integer.BYTES;
+        if (posicaoOutro == -1) {
+            inicioOutro = 0;
+            if (tamanho != outro.capacity()) {
+                return false;
+            }
+        } else if (tamanho != outro.getInt(posicaoOutro)) {
+            return false;
+        }
+        int inicio = posicao + Integer.BYTES;
+        for (int k = 0; k < tamanho; k++) {
+            if (nomes.get(inicio + k) != outro.get(inicioOutro + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int dispersao(ByteBuffer bytes, int inicio, int tamanho) {
+        int h = 0;
+        for (int k = 0; k < tamanho; k++) {
+            h = 31 * h + bytes.get(inicio + k);
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static ByteBuffer aloca(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // Nova zona com os primeiros usados bytes de zona e espaço para mais
+    // necessarios bytes, pelo menos o dobro da capacidade anterior.
+    private static ByteBuffer aumenta(ByteBuffer zona, int usados, int necessarios) {
+        ByteBuffer nova = aloca(Math.max(zona.capacity() * 2, usados + necessarios));
+        nova.put(0, zona, 0, usados);
+        return nova;
+    }
+}
@@ -0,0 +1,622 @@
+package project;
+
+import java.util.Arrays;
+
+/**
+ * Registos de passagem de uma corrida guardados por colunas: para cada posto de
+ * controlo, um array com os dorsais e um array com os tempos de passagem, em
+ * minutos desde a partida, em que o elemento j de ambos descreve o mesmo
+ * registo.
+ *
+ * Depois de ordena(int), os registos de cada posto ficam por ordem crescente de
+ * tempo de passagem, mantendo-se a ordem de leitura entre registos com o mesmo
+ * tempo. Cada registo é identificado pela sua posição depois da ordenação, um
+ * identificador que não muda quando o registo é alterado.
+ *
+ * Para que as passagens registadas durante a prova custem O(log n), com n
+ * registos por posto, o primeiro altera() de um posto (ou o primeiro
+ * acrescenta()) converte-o, em tempo linear, numa árvore de pesquisa (ver
+ * ArvorePosto) ordenada por tempo e, entre registos com o mesmo tempo, pela
+ * ordem em que foram lidos ou alterados. As colunas desse posto passam então a
+ * ser indexadas pelo identificador do registo e as consultas por posição
+ * descem a árvore.
+ *
+ * @author Rodrigo Frutuoso 61865
+ */
+class TabelaPassagens {
+
+    // Amplitude de tempos (em minutos) até à qual um posto é sempre ordenado por
+    // contagem; acima dela e de 4 vezes o número de registos, o array de contagens
+    // deixaria de compensar e usa-se uma ordenação por comparação.
+    private static final int AMPLITUDE_MAXIMA_CONTAGEM = 1 << 16;
+
+    private final int[][] dorsais;
+    private final int[][] minutos;
+    private int numeroRegistos;
+    private long[] nanosOrdenacao = new long[0];
+
+    // Árvore de cada posto já alterado, ou null se o posto ainda está ordenado nas
+    // colunas; o próprio array é null enquanto nenhum posto tiver sido alterado.
+    private ArvorePosto[] arvores;
+
+    /**
+     * Cria uma tabela vazia.
+     *
+     * @param numeroPostos O número de postos de controlo.
+     * @param capacidade   O número de registos por posto previsto.
+     */
+    TabelaPassagens(int numeroPostos, int capacidade) {
+        this.dorsais = new int[numeroPostos][capacidade];
+        this.minutos = new int[numeroPostos][capacidade];
+    }
+
+    /**
+     * Cria uma tabela a partir de colunas já ordenadas, que passam a pertencer à
+     * tabela.
+     *
+     * @param dorsais Os dorsais de cada posto.
+     * @param minutos Os tempos de passagem de cada posto.
+     * @requires todas as colunas têm o mesmo tamanho
+     */
+    TabelaPassagens(int[][] dorsais, int[][] minutos) {
+        this.dorsais = dorsais;
+        this.minutos = minutos;
+        this.numeroRegistos = dorsais.length == 0 ? 0 : dorsais[0].length;
+    }
+
+    /**
+     * Acrescenta, no fim de cada posto, os registos de passagem de um atleta.
+     *
+     * @param dorsal         O número do dorsal do atleta.
+     * @param temposPassagem Os tempos de passagem do atleta em cada posto.
+     * @requires temposPassagem.length == numeroPostos()
+     */
+    void adiciona(int dorsal, int[] temposPassagem) {
+        if (dorsais.length > 0 && numeroRegistos == dorsais[0].length) {
+            int capacidade = Math.max(16, numeroRegistos * 2);
+            for (int i = 0; i < dorsais.length; i++) {
+                dorsais[i] = Arrays.copyOf(dorsais[i], capacidade);
+                minutos[i] = Arrays.copyOf(minutos[i], capacidade);
+            }
+        }
+        for (int i = 0; i < dorsais.length; i++) {
+            dorsais[i][numeroRegistos] = dorsal;
+            minutos[i][numeroRegistos] = temposPassagem[i];
+        }
+        numeroRegistos++;
+    }
+
+    /**
+     * Ordena os registos de cada posto por ordem crescente de tempo de passagem.
+     * Registos com o mesmo tempo mantêm a ordem relativa. Os postos são
+     * independentes e são ordenados como tarefas fork-join; o tempo de cada um
+     * fica disponível em nanosOrdenacao().
+     *
+     * @param paralelismo O número máximo de threads a usar.
+     */
+    void ordena(int paralelismo) {
+        for (int i = 0; i < dorsais.length; i++) {
+            if (dorsais[i].length != numeroRegistos) {
+                dorsais[i] = Arrays.copyOf(dorsais[i], numeroRegistos);
+                minutos[i] = Arrays.copyOf(minutos[i], numeroRegistos);
+            }
+        }
+        long[] nanos = new long[dorsais.length];
+        Executores.paraCada(paralelismo, dorsais.length, posto -> {
+            long inicio = System.nanoTime();
+            ordenaPosto(posto);
+            nanos[posto] = System.nanoTime() - inicio;
+        });
+        this.nanosOrdenacao = nanos;
+    }
+
+    /**
+     * @return O tempo da última ordenação de cada posto, em nanossegundos, ou um
+     *         array vazio se a tabela não tiver sido ordenada por ordena(int).
+     */
+    long[] nanosOrdenacao() {
+        return nanosOrdenacao;
+    }
+
+    // Ordena um posto por contagem sobre os tempos de passagem, que são minutos
+    // inteiros num intervalo limitado. A distribuição é feita pela ordem de
+    // leitura, pelo que a ordenação é estável.
+    private void ordenaPosto(int posto) {
+        int[] tempos = minutos[posto];
+        int minimo = Integer.MAX_VALUE;
+        int maximo = Integer.MIN_VALUE;
+        for (int j = 0; j < numeroRegistos; j++) {
+            minimo = Math.min(minimo, tempos[j]);
+            maximo = Math.max(maximo, tempos[j]);
+        }
+        if (numeroRegistos == 0) {
+            return;
+        }
+        long amplitude = (long) maximo - minimo + 1;
+        if (amplitude > Math.max(AMPLITUDE_MAXIMA_CONTAGEM, 4L * numeroRegistos)) {
+            ordenaPostoPorComparacao(posto);
+            return;
+        }
+        int[] inicios = new int[(int) amplitude + 1];
+        for (int j = 0; j < numeroRegistos; j++) {
+            inicios[tempos[j] - minimo + 1]++;
+        }
+        for (int k = 1; k < inicios.length; k++) {
+            inicios[k] += inicios[k - 1];
+        }
+        int[] dorsaisOrdenados = new int[numeroRegistos];
+        int[] temposOrdenados = new int[numeroRegistos];
+        for (int j = 0; j < numeroRegistos; j++) {
+            int destino = inicios[tempos[j] - minimo]++;
+            dorsaisOrdenados[destino] = dorsais[posto][j];
+            temposOrdenados[destino] = tempos[j];
+        }
+        dorsais[posto] = dorsaisOrdenados;
+        minutos[posto] = temposOrdenados;
+    }
+
+    // Ordena um posto através de chaves (tempo, posição de leitura) empacotadas
+    // num long, que são todas distintas e dão por isso uma ordenação estável.
+    private void ordenaPostoPorComparacao(int posto) {
+        long[] chaves = new long[numeroRegistos];
+        for (int j = 0; j < numeroRegistos; j++) {
+            chaves[j] = ((long) minutos[posto][j] << 32) | j;
+        }
+        Arrays.sort(chaves);
+        int[] dorsaisOrdenados = new int[numeroRegistos];
+        for (int j = 0; j < numeroRegistos; j++) {
+            int origem = (int) chaves[j];
+            dorsaisOrdenados[j] = dorsais[posto][origem];
+            minutos[posto][j] = (int) (chaves[j] >> 32);
+        }
+        dorsais[posto] = dorsaisOrdenados;
+    }
+
+    /**
+     * @return O número de postos de controlo.
+     */
+    int numeroPostos() {
+        return dorsais.length;
+    }
+
+    /**
+     * @return O número de registos de cada posto.
+     */
+    int numeroRegistos() {
+        return numeroRegistos;
+    }
+
+    /**
+     * @param posto   O índice do posto.
+     * @param posicao O índice do registo no posto, a partir de 0.
+     * @return O dorsal do registo.
+     */
+    int dorsal(int posto, int posicao) {
+        ArvorePosto arvore = arvoreSeExistir(posto);
+        return dorsais[posto][arvore == null ? posicao : arvore.registo(posicao)];
+    }
+
+    /**
+     * @param posto   O índice do posto.
+     * @param posicao O índice do registo no posto, a partir de 0.
+     * @return O tempo de passagem do registo, em minutos desde a partida.
+     */
+    int minutos(int posto, int posicao) {
+        ArvorePosto arvore = arvoreSeExistir(posto);
+        return minutos[posto][arvore == null ? posicao : arvore.registo(posicao)];
+    }
+
+    /**
+     * @param posto   O índice do posto.
+     * @param registo O identificador do registo.
+     * @return O tempo de passagem do registo, em minutos desde a partida, em O(1)
+     *         mesmo que o posto tenha sido alterado.
+     */
+    int minutosDoRegisto(int posto, int registo) {
+        return minutos[posto][registo];
+    }
+
+    /**
+     * Retorna a posição atual de um registo num posto, em O(log n) se o posto já
+     * tiver sido alterado.
+     *
+     * @param posto   O índice do posto.
+     * @param registo O identificador do registo.
+     * @return O índice do registo no posto, a partir de 0.
+     */
+    int posicao(int posto, int registo) {
+        ArvorePosto arvore = arvoreSeExistir(posto);
+        return arvore == null ? registo : arvore.posicao(registo);
+    }
+
+    /**
+     * Retorna as posições atuais de todos os registos de um posto, em tempo
+     * linear, para quem percorre todos os registos (em vez de invocar posicao()
+     * para cada um).
+     *
+     * @param posto O índice do posto.
+     * @return Um novo array com a posição de cada registo, por identificador, ou
+     *         null se o posto não tiver sido alterado e a posição de cada registo
+     *         for o seu identificador.
+     */
+    int[] posicoes(int posto) {
+        ArvorePosto arvore = arvoreSeExistir(posto);
+        if (arvore == null) {
+            return null;
+        }
+        int[] posicoes = new int[numeroRegistos];
+        arvore.numera(arvore.raiz, posicoes, 0);
+        return posicoes;
+    }
+
+    /**
+     * Altera o tempo de passagem de um registo de um posto já ordenado, que passa
+     * a ficar depois de todos os registos com tempo menor ou igual. Custa O(log
+     * n), exceto na primeira alteração do posto, que o converte numa árvore.
+     *
+     * @param posto   O índice do posto.
+     * @param registo O identificador do registo.
+     * @param tempo   O novo tempo de passagem, em minutos desde a partida.
+     */
+    void altera(int posto, int registo, int tempo) {
+        arvore(posto).altera(registo, tempo);
+    }
+
+    /**
+     * Acrescenta a uma tabela já ordenada um registo com o mesmo tempo de
+     * passagem em todos os postos, colocado em cada posto depois de todos os
+     * registos com tempo menor ou igual.
+     *
+     * @param dorsal O número do dorsal do atleta.
+     * @param tempo  O tempo de passagem, em minutos desde a partida.
+     * @return O identificador do novo registo, o mesmo em todos os postos.
+     */
+    int acrescenta(int dorsal, int tempo) {
+        int registo = numeroRegistos;
+        for (int i = 0; i < dorsais.length; i++) {
+            ArvorePosto arvore = arvore(i);
+            if (dorsais[i].length == registo) {
+                int capacidade = Math.max(16, registo * 2);
+                dorsais[i] = Arrays.copyOf(dorsais[i], capacidade);
+                minutos[i] = Arrays.copyOf(minutos[i], capacidade);
+            }
+            dorsais[i][registo] = dorsal;
+            minutos[i][registo] = tempo;
+            arvore.insere(registo);
+        }
+        numeroRegistos++;
+        return registo;
+    }
+
+    // Primeiro índice em [de, ate) com tempo >= valor, ou ate se não existir.
+    int limiteInferior(int posto, int valor, int de, int ate) {
+        ArvorePosto arvore = arvoreSeExistir(posto);
+        if (arvore != null) {
+            return Math.min(Math.max(arvore.conta(valor, false), de), ate);
+        }
+        while (de < ate) {
+            int meio = (de + ate) >>> 1;
+            if (minutos[posto][meio] < valor) {
+                de = meio + 1;
+            } else {
+                ate = meio;
+            }
+        }
+        return de;
+    }
+
+    // Primeiro índice em [de, ate) com tempo > valor, ou ate se não existir.
+    int limiteSuperior(int posto, int valor, int de, int ate) {
+        ArvorePosto arvore = arvoreSeExistir(posto);
+        if (arvore != null) {
+            return Math.min(Math.max(arvore.conta(valor, true), de), ate);
+        }
+        while (de < ate) {
+            int meio = (de + ate) >>> 1;
+            if (minutos[posto][meio] <= valor) {
+                de = meio + 1;
+            } else {
+                ate = meio;
+            }
+        }
+        return de;
+    }
+
+    /**
+     * Copia as colunas de um posto, por ordem, para dois arrays, em tempo linear.
+     *
+     * @param posto           O índice do posto.
+     * @param dorsaisPosto    O array onde ficam os dorsais.
+     * @param minutosPosto    O array onde ficam os tempos de passagem.
+     * @requires os dois arrays têm pelo menos numeroRegistos() elementos
+     */
+    void colunas(int posto, int[] dorsaisPosto, int[] minutosPosto) {
+        ArvorePosto arvore = arvoreSeExistir(posto);
+        if (arvore == null) {
+            System.arraycopy(dorsais[posto], 0, dorsaisPosto, 0, numeroRegistos);
+            System.arraycopy(minutos[posto], 0, minutosPosto, 0, numeroRegistos);
+        } else {
+            arvore.copia(arvore.raiz, dorsaisPosto, minutosPosto, 0);
+        }
+    }
+
+    /**
+     * Cria os objetos RegistoPassagem de um posto, pela ordem da tabela.
+     *
+     * @param posto O índice do posto.
+     * @return Um novo array com os registos do posto.
+     */
+    RegistoPassagem[] registos(int posto) {
+        int[] dorsaisPosto = new int[numeroRegistos];
+        int[] minutosPosto = new int[numeroRegistos];
+        colunas(posto, dorsaisPosto, minutosPosto);
+        RegistoPassagem[] registos = new RegistoPassagem[numeroRegistos];
+        for (int j = 0; j < numeroRegistos; j++) {
+            registos[j] = new RegistoPassagem(dorsaisPosto[j], minutosPosto[j]);
+        }
+        return registos;
+    }
+
+    private ArvorePosto arvoreSeExistir(int posto) {
+        return arvores == null ? null : arvores[posto];
+    }
+
+    // Retorna a árvore de um posto, convertendo-o se ainda estiver ordenado nas
+    // colunas.
+    private ArvorePosto arvore(int posto) {
+        if (arvores == null) {
+            arvores = new ArvorePosto[dorsais.length];
+        }
+        if (arvores[posto] == null) {
+            arvores[posto] = new ArvorePosto(posto);
+        }
+        return arvores[posto];
+    }
+
+    /**
+     * Árvore de pesquisa (treap) sobre os registos de um posto, guardada em arrays
+     * indexados pelo identificador do registo, tal como as colunas do posto. A
+     * chave de cada registo é o par (tempo de passagem, sequência), em que a
+     * sequência cresce com cada registo alterado ou acrescentado, pelo que os
+     * registos com o mesmo tempo ficam pela ordem em que lá chegaram. A
+     * prioridade de cada registo é um hash do seu identificador e cada nó guarda
+     * o tamanho da sua subárvore, para as procuras por posição.
+     */
+    private class ArvorePosto {
+
+        private final int posto;
+        private int[] esquerda;
+        private int[] direita;
+        private int[] tamanho;
+        private int[] sequencia;
+        private int raiz = -1;
+        private int proximaSequencia;
+
+        // Segunda metade do resultado de divide().
+        private int direitaDividida;
+
+        // Constrói a árvore a partir das colunas ordenadas, em tempo linear, com
+        // uma pilha do ramo direito (construção de uma árvore cartesiana).
+        ArvorePosto(int posto) {
+            this.posto = posto;
+            int n = numeroRegistos;
+            esquerda = new int[n];
+            direita = new int[n];
+            tamanho = new int[n];
+            sequencia = new int[n];
+            int[] pilha = new int[n];
+            int topo = 0;
+            for (int id = 0; id < n; id++) {
+                sequencia[id] = id;
+                direita[id] = -1;
+                int ultimo = -1;
+                while (topo > 0 && prioridade(pilha[topo - 1]) < prioridade(id)) {
+                    ultimo = pilha[--topo];
+                }
+                esquerda[id] = ultimo;
+                if (topo > 0) {
+                    direita[pilha[topo - 1]] = id;
+                }
+                pilha[topo++] = id;
+            }
+            raiz = topo > 0 ? pilha[0] : -1;
+            calculaTamanhos(raiz);
+            proximaSequencia = n;
+        }
+
+        private int calculaTamanhos(int no) {
+            if (no == -1) {
+                return 0;
+            }
+            tamanho[no] = 1 + calculaTamanhos(esquerda[no]) + calculaTamanhos(direita[no]);
+            return tamanho[no];
+        }
+
+        int posicao(int id) {
+            int posicao = 0;
+            int no = raiz;
+            while (no != id) {
+                if (menor(id, no)) {
+                    no = esquerda[no];
+                } else {
+                    posicao += tamanho(esquerda[no]) + 1;
+                    no = direita[no];
+                }
+            }
+            return posicao + tamanho(esquerda[id]);
+        }
+
+        // Identificador do registo numa posição.
+        int registo(int posicao) {
+            int no = raiz;
+            while (true) {
+                int antes = tamanho(esquerda[no]);
+                if (posicao < antes) {
+                    no = esquerda[no];
+                } else if (posicao == antes) {
+                    return no;
+                } else {
+                    posicao -= antes + 1;
+                    no = direita[no];
+                }
+            }
+        }
+
+        // Número de registos com tempo menor do que valor (ou igual, se inclusive).
+        int conta(int valor, boolean inclusive) {
+            int conta = 0;
+            int no = raiz;
+            while (no != -1) {
+                int tempo = minutos[posto][no];
+                if (tempo < valor || inclusive && tempo == valor) {
+                    conta += tamanho(esquerda[no]) + 1;
+                    no = direita[no];
+                } else {
+                    no = esquerda[no];
+                }
+            }
+            return conta;
+        }
+
+        void altera(int id, int tempo) {
+            raiz = remove(raiz, id);
+            minutos[posto][id] = tempo;
+            insere(id);
+        }
+
+        // Insere um registo cujo tempo já está na coluna do posto.
+        void insere(int id) {
+            if (id >= esquerda.length) {
+                int capacidade = Math.max(16, 2 * id);
+                esquerda = Arrays.copyOf(esquerda, capacidade);
+                direita = Arrays.copyOf(direita, capacidade);
+                tamanho = Arrays.copyOf(tamanho, capacidade);
+                sequencia = Arrays.copyOf(sequencia, capacidade);
+            }
+            sequencia[id] = proximaSequencia++;
+            esquerda[id] = -1;
+            direita[id] = -1;
+            tamanho[id] = 1;
+            raiz = insere(raiz, id);
+        }
+
+        private int insere(int no, int id) {
+            if (no == -1) {
+                return id;
+            }
+            if (prioridade(id) > prioridade(no)) {
+                esquerda[id] = divide(no, id);
+                direita[id] = direitaDividida;
+                atualiza(id);
+                return id;
+            }
+            if (menor(id, no)) {
+                esquerda[no] = insere(esquerda[no], id);
+            } else {
+                direita[no] = insere(direita[no], id);
+            }
+            tamanho[no]++;
+            return no;
+        }
+
+        private int remove(int no, int id) {
+            if (no == id) {
+                return junta(esquerda[no], direita[no]);
+            }
+            if (menor(id, no)) {
+                esquerda[no] = remove(esquerda[no], id);
+            } else {
+                direita[no] = remove(direita[no], id);
+            }
+            tamanho[no]--;
+            return no;
+        }
+
+        // Divide a subárvore de no nos registos com chave menor do que a de id,
+        // que retorna, e nos restantes, que ficam em direitaDividida.
+        private int divide(int no, int id) {
+            if (no == -1) {
+                direitaDividida = -1;
+                return -1;
+            }
+            if (menor(no, id)) {
+                direita[no] = divide(direita[no], id);
+                atualiza(no);
+                return no;
+            }
+            int menores = divide(esquerda[no], id);
+            esquerda[no] = direitaDividida;
+            atualiza(no);
+            direitaDividida = no;
+            return menores;
+        }
+
+        // Junta duas subárvores em que todas as chaves de a são menores do que as
+        // de b.
+        private int junta(int a, int b) {
+            if (a == -1) {
+                return b;
+            }
+            if (b == -1) {
+                return a;
+            }
+            if (prioridade(a) > prioridade(b)) {
+                direita[a] = junta(direita[a], b);
+                atualiza(a);
+                return a;
+            }
+            esquerda[b] = junta(a, esquerda[b]);
+            atualiza(b);
+            return b;
+        }
+
+        // Copia a subárvore de no, por ordem, a partir da posição dada; retorna a
+        // posição seguinte.
+        int copia(int no, int[] dorsaisPosto, int[] minutosPosto, int posicao) {
+            if (no == -1) {
+                return posicao;
+            }
+            posicao = copia(esquerda[no], dorsaisPosto, minutosPosto, posicao);
+            dorsaisPosto[posicao] = dorsais[posto][no];
+            minutosPosto[posicao] = minutos[posto][no];
+            return copia(direita[no], dorsaisPosto, minutosPosto, posicao + 1);
+        }
+
+        // Guarda a posição de cada registo da subárvore de no, a partir da posição
+        // dada; retorna a posição seguinte.
+        int numera(int no, int[] posicoes, int posicao) {
+            if (no == -1) {
+                return posicao;
+            }
+            posicao = numera(esquerda[no], posicoes, posicao);
+            posicoes[no] = posicao;
+            return numera(direita[no], posicoes, posicao + 1);
+        }
+
+        private boolean menor(int a, int b) {
+            int tempoA = minutos[posto][a];
+            int tempoB = minutos[posto][b];
+            return tempoA < tempoB || tempoA == tempoB && sequencia[a] < sequencia[b];
+        }
+
+        private int tamanho(int no) {
+            return no == -1 ? 0 : tamanho[no];
+        }
+
+        private void atualiza(int no) {
+            tamanho[no] = 1 + tamanho(esquerda[no]) + tamanho(direita[no]);
+        }
+    }
+
+    // Prioridade de um registo na árvore: um hash do identificador (finalizador
+    // do MurmurHash3), que dá prioridades independentes da ordem dos registos.
+    private static int prioridade(int id) {
+        int h = id;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
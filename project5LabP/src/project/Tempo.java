@@ -11,6 +11,7 @@ import java.time.temporal.ChronoUnit;
 public class Tempo {
     
     private static final LocalDateTime DATA_HORA_INICIAL = LocalDateTime.of(2023, 9, 1, 18, 0);
+    private static final CalendarioProva CALENDARIO_INICIAL = new CalendarioProva(DATA_HORA_INICIAL);
     private final LocalDateTime dataHora;
     private final int minutosEmProva; // = (dataHora - DATA_HORA_INICIAL) expresso em minutos
     
@@ -37,6 +38,27 @@ public class Tempo {
         return new Tempo(DATA_HORA_INICIAL.plusMinutes(tempoDePassagem));
     }
 
+    /**
+     * Calcula os minutos em prova de uma passagem dada pelo dia da semana, hora e
+     * minuto, sem criar objetos: usa a tabela de conversão do calendário que
+     * começa em DATA_HORA_INICIAL.
+     * 
+     * @param diaSemana de 1 (segunda-feira) a 7 (domingo), ou 0 para o dia da partida
+     * @param hora a hora da passagem
+     * @param minuto o minuto da passagem
+     * @return os minutos decorridos desde DATA_HORA_INICIAL
+     */
+    public static int minutosEmProva(int diaSemana, int hora, int minuto) {
+        return CALENDARIO_INICIAL.minutosEmProva(diaSemana, hora, minuto);
+    }
+
+    /**
+     * @return o calendário da prova que começa em DATA_HORA_INICIAL
+     */
+    public static CalendarioProva getCalendarioInicial() {
+        return CALENDARIO_INICIAL;
+    }
+
    // Comentado porque não queremos expor o tipo LocalDateTime.
     
 //    public LocalDateTime getDataHoraAbsoluta() {
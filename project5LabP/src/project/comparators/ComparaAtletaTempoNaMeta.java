@@ -1,6 +1,5 @@
 package project.comparators;
 
-import java.util.Arrays;
 import java.util.Comparator;
 import project.Atleta;
 
@@ -14,6 +13,6 @@ import project.Atleta;
  */
 public class ComparaAtletaTempoNaMeta implements Comparator<Atleta> {
     public int compare(Atleta a1, Atleta a2) {
-        return Arrays.compare(a1.getTempoNaMeta(), a2.getTempoNaMeta());
+        return Integer.compare(a1.getSegundosNaMeta(), a2.getSegundosNaMeta());
     }
 }
@@ -0,0 +1,113 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.FileNotFoundException;
+
+import project.*;
+
+public class AnaliseParciaisTests {
+
+    private static Corrida corrida;
+
+    static {
+        try {
+            corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                    "input/UTMB_2023-progress.csv");
+        } catch (FileNotFoundException e) {
+            System.err.println("Pelo menos 1 ficheiro de inicialização não foi encontrado.");
+            e.printStackTrace();
+            corrida = null;
+        }
+    }
+
+    @Test
+    public void test_DuracoesEPosicoes() {
+        AnaliseParciais analise = corrida.analiseParciais();
+        assertEquals(corrida.getNumeroPostosControlo() - 1, analise.getNumeroSegmentos());
+        for (int i = 0; i < corrida.getNumeroDeAtletas(); i++) {
+            int[] posicoes = corrida.calculaPosicoesPostos(corrida.getAtletaPorIndice(i).getDorsal());
+            int[] tempos = new int[posicoes.length];
+            for (int j = 0; j < posicoes.length; j++) {
+                tempos[j] = corrida.getTempoPassagemRegisto(j, posicoes[j] - 1);
+            }
+            for (int s = 0; s < analise.getNumeroSegmentos(); s++) {
+                boolean passou = tempos[s] != Corrida.MINUTOS_DE_QUEM_NAO_PASSOU
+                        && tempos[s + 1] != Corrida.MINUTOS_DE_QUEM_NAO_PASSOU;
+                if (passou) {
+                    assertEquals(tempos[s + 1] - tempos[s], analise.getDuracao(i, s));
+                    assertEquals(posicoes[s] - posicoes[s + 1], analise.getLugaresGanhos(i, s));
+                } else {
+                    assertEquals(AnaliseParciais.SEM_PARCIAL, analise.getDuracao(i, s));
+                    assertEquals(AnaliseParciais.SEM_PARCIAL, analise.getLugaresGanhos(i, s));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_UltrapassagensComoContagemDireta() {
+        AnaliseParciais analise = corrida.analiseParciais();
+        int n = corrida.getNumeroDeAtletas();
+        int feitas = 0;
+        for (int s : new int[] { 0, 5, 17, 22 }) {
+            for (int a = 0; a < n; a += 7) {
+                int ultrapassou = 0;
+                int ultrapassado = 0;
+                if (analise.getDuracao(a, s) != AnaliseParciais.SEM_PARCIAL) {
+                    for (int b = 0; b < n; b++) {
+                        if (b == a || analise.getDuracao(b, s) == AnaliseParciais.SEM_PARCIAL) {
+                            continue;
+                        }
+                        boolean aFrenteAntes = analise.getPosicao(b, s) < analise.getPosicao(a, s);
+                        boolean aFrenteDepois = analise.getPosicao(b, s + 1) < analise.getPosicao(a, s + 1);
+                        if (aFrenteAntes && !aFrenteDepois) {
+                            ultrapassou++;
+                        } else if (!aFrenteAntes && aFrenteDepois) {
+                            ultrapassado++;
+                        }
+                    }
+                }
+                assertEquals(ultrapassou, analise.getUltrapassagens(a, s));
+                assertEquals(ultrapassado, analise.getUltrapassadoPor(a, s));
+                feitas += ultrapassou;
+            }
+        }
+        assertEquals(true, feitas > 0);
+    }
+
+    @Test
+    public void test_AnaliseReutilizadaAteAlteracao() throws FileNotFoundException {
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        AnaliseParciais analise = corrida.analiseParciais();
+        assertSame(analise, corrida.analiseParciais());
+
+        // o primeiro no posto 2 passa a chegar ao posto 3 depois de todos
+        int dorsal = corrida.getDorsalRegisto(2, 0);
+        int indice = corrida.indiceAtletaPorDorsal(dorsal);
+        int passaram = 0;
+        for (int i = 0; i < analise.getNumeroAtletas(); i++) {
+            if (analise.getDuracao(i, 2) != AnaliseParciais.SEM_PARCIAL) {
+                passaram++;
+            }
+        }
+        corrida.registaPassagem(dorsal, 3, 4000);
+        AnaliseParciais depois = corrida.analiseParciais();
+        assertNotSame(analise, depois);
+        assertEquals(corrida.getVersao(), depois.getVersao());
+        int passaramNoPosto3 = 0;
+        for (int i = 0; i < depois.getNumeroAtletas(); i++) {
+            if (depois.getPosicao(i, 3) != 0) {
+                passaramNoPosto3++;
+            }
+        }
+        assertEquals(passaramNoPosto3, depois.getPosicao(indice, 3));
+        assertEquals(1 - passaramNoPosto3, depois.getLugaresGanhos(indice, 2));
+        assertEquals(passaram - 1, depois.getUltrapassadoPor(indice, 2));
+        assertEquals(0, depois.getUltrapassagens(indice, 2));
+    }
+}
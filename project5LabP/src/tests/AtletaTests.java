@@ -87,6 +87,20 @@ public class AtletaTests {
         assertEquals("José Ninguém", quatroAtletas[3].getNome());
     }
     
+    @Test
+    public void test_TempoNaMetaEmSegundos() {
+        assertEquals(46 * 3600 + 29 * 60 + 59, zeNinguem.getSegundosNaMeta());
+        assertEquals(46, zeNinguem.getTempoNaMeta(0));
+        assertEquals(29, zeNinguem.getTempoNaMeta(1));
+        assertEquals(59, zeNinguem.getTempoNaMeta(2));
+        Atleta atleta = new Atleta(1, "Ana", "POR (PT)", "40-44W");
+        atleta.setSegundosNaMeta(23 * 3600 + 30 * 60 + 34);
+        assertEquals(23, atleta.getTempoNaMeta()[0]);
+        assertEquals(30, atleta.getTempoNaMeta()[1]);
+        assertEquals(34, atleta.getTempoNaMeta()[2]);
+        assertEquals(0, new ComparaAtletaTempoNaMeta().compare(atleta, zeSilva));
+    }
+    
     @Test
     public void test_OrdenacaoPorNacionalidadeUsandoComparator() { 
         quatroAtletas = new Atleta[] {zeSilva, johnDoe, mariaNinguem, zeNinguem};
@@ -0,0 +1,51 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+import project.*;
+
+public class CarregadorCorridasTests {
+
+    @Test
+    public void test_CarregaDiretoriaInput() throws FileNotFoundException, InterruptedException {
+        ResultadoCarregamento resultado = new CarregadorCorridas(2, false).carrega("input");
+        assertEquals(1, resultado.getCorridas().size());
+        assertEquals(0, resultado.getFalhas().size());
+        assertEquals(2687, resultado.getCorridas().get("UTMB_2023").getNumeroDeAtletas());
+        assertTrue(resultado.getTemposCarregamento().get("UTMB_2023") > 0);
+    }
+
+    @Test
+    public void test_CarregaComThreadsVirtuais() throws FileNotFoundException, InterruptedException {
+        ResultadoCarregamento resultado = new CarregadorCorridas(4, true).carrega("input");
+        assertEquals(24, resultado.getCorridas().get("UTMB_2023").getNumeroPostosControlo());
+    }
+
+    @Test
+    public void test_FicheiroEmFaltaFicaRegistadoComoFalha() throws IOException, InterruptedException {
+        File diretoria = Files.createTempDirectory("corridas").toFile();
+        File atletas = new File(diretoria, "Incompleta_2023" + CarregadorCorridas.SUFIXO_ATLETAS);
+        try (PrintWriter writer = new PrintWriter(atletas)) {
+            writer.println("Incompleta 2023;;;;");
+        }
+        ResultadoCarregamento resultado = new CarregadorCorridas(1, false).carrega(diretoria.getPath());
+        assertEquals(0, resultado.getCorridas().size());
+        assertTrue(resultado.getFalhas().get("Incompleta_2023") instanceof FileNotFoundException);
+        atletas.delete();
+        diretoria.delete();
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void test_DiretoriaInexistente() throws FileNotFoundException {
+        CarregadorCorridas.identificadoresCorridas("nao-existe");
+    }
+
+}
@@ -0,0 +1,106 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import project.*;
+import project.comparators.*;
+
+public class ConsultaAtletasTests {
+
+    private static Corrida corrida;
+
+    static {
+        try {
+            corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                    "input/UTMB_2023-progress.csv");
+        } catch (FileNotFoundException e) {
+            System.err.println("Pelo menos 1 ficheiro de inicialização não foi encontrado.");
+            e.printStackTrace();
+            corrida = null;
+        }
+    }
+
+    @Test
+    public void test_SemRestricoes() {
+        assertArrayEquals(corrida.getAtletas(), corrida.consulta().executa());
+        assertEquals(2687, corrida.consulta().conta());
+    }
+
+    @Test
+    public void test_PrimeirosNaMeta() {
+        Atleta[] todosOsAtletas = corrida.getAtletas();
+        Atleta.ordena(todosOsAtletas, new ComparaAtletaPosFinalAbsoluta());
+        Atleta[] primeiros = corrida.consulta().ordenadaPor(new ComparaAtletaPosFinalAbsoluta()).limite(10)
+                .executa();
+        assertArrayEquals(Arrays.copyOf(todosOsAtletas, 10), primeiros);
+    }
+
+    @Test
+    public void test_EscalaoENacionalidadeOrdenados() {
+        Atleta[] francesas40a44anos = corrida.consulta().escalao("40-44W").nacionalidade("FRA (FR)")
+                .ordenadaPor(new ComparaAtletaPosFinalAbsoluta()).limite(5).executa();
+        assertEquals(5, francesas40a44anos.length);
+        assertEquals("Helene LEGER", francesas40a44anos[0].getNome());
+        assertEquals("Vanessa RONCHAUD", francesas40a44anos[4].getNome());
+        assertEquals(8, corrida.consulta().escalao("40-44W").nacionalidade("FRA (FR)").conta());
+    }
+
+    @Test
+    public void test_ChegaramENaoChegaramAMeta() {
+        int chegaram = corrida.consulta().chegaramAMeta().conta();
+        int naoChegaram = corrida.consulta().naoChegaramAMeta().conta();
+        assertEquals(corrida.getNumeroDeAtletas(), chegaram + naoChegaram);
+        for (Atleta atleta : corrida.consulta().naoChegaramAMeta().executa()) {
+            assertEquals(Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META, atleta.getPosicaoFinalAbsoluta());
+        }
+        Atleta[] ultimo = corrida.consulta().chegaramAMeta().ordenadaPor(
+                new ComparaAtletaPosFinalAbsoluta().reversed()).limite(1).executa();
+        int ultimaPosicao = 0;
+        for (Atleta atleta : corrida.getAtletas()) {
+            if (atleta.getPosicaoFinalAbsoluta() != Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META) {
+                ultimaPosicao = Math.max(ultimaPosicao, atleta.getPosicaoFinalAbsoluta());
+            }
+        }
+        assertEquals(ultimaPosicao, ultimo[0].getPosicaoFinalAbsoluta());
+    }
+
+    @Test
+    public void test_TempoNoPosto() {
+        RegistoPassagem[][] registos = corrida.getRegistosPassagem();
+        List<Integer> esperados = new ArrayList<>();
+        for (RegistoPassagem registo : registos[11]) {
+            if (registo.getTempoPassagem() >= 1200 && registo.getTempoPassagem() <= 1260) {
+                esperados.add(registo.getDorsal());
+            }
+        }
+        Atleta[] atletas = corrida.consulta().tempoNoPosto(11, 1200, 1260).ordenadaPor(new ComparaAtletaDorsal())
+                .executa();
+        assertEquals(esperados.size(), atletas.length);
+        for (Atleta atleta : atletas) {
+            assertTrue(esperados.contains(atleta.getDorsal()));
+        }
+        assertEquals(0, corrida.consulta().tempoNoPosto(11, 1200, 1260).tempoNoPosto(23, 0, 100).conta());
+    }
+
+    @Test
+    public void test_LimiteSemOrdem() {
+        Atleta[] coreanos = corrida.consulta().nacionalidade("KOR (KR)").limite(3).executa();
+        assertArrayEquals(Arrays.copyOf(corrida.seleccionaEscalaoEouNacionalidade("todos", "KOR (KR)"), 3),
+                coreanos);
+        assertEquals(0, corrida.consulta().limite(0).executa().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_PostoInexistente() {
+        corrida.consulta().tempoNoPosto(24, 0, 100).executa();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import project.*;
+
+public class CorridaBinariaTests {
+
+    private static File ficheiroTemporario() throws IOException {
+        File ficheiro = File.createTempFile("corrida", ".bin");
+        ficheiro.deleteOnExit();
+        return ficheiro;
+    }
+
+    @Test
+    public void test_GravaECarrega() throws IOException {
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        File ficheiro = ficheiroTemporario();
+        CorridaBinaria.grava(corrida, ficheiro.getPath());
+        Corrida carregada = CorridaBinaria.carrega(ficheiro.getPath());
+
+        assertEquals(corrida.getNumeroDeAtletas(), carregada.getNumeroDeAtletas());
+        assertEquals(corrida.getNumeroPostosControlo(), carregada.getNumeroPostosControlo());
+        assertEquals(corrida.getNumeroRegistosPorPosto(), carregada.getNumeroRegistosPorPosto());
+        assertEquals(corrida.getCalendario().toString(), carregada.getCalendario().toString());
+        for (int i = 0; i < corrida.getNumeroDeAtletas(); i++) {
+            Atleta original = corrida.getAtletaPorIndice(i);
+            Atleta copia = carregada.getAtletaPorIndice(i);
+            assertEquals(original.toString(), copia.toString());
+            assertArrayEquals(original.getTempoNaMeta(), copia.getTempoNaMeta());
+            // só o primeiro atleta com cada nome tem tempos de passagem
+            if (corrida.indiceAtletaPorNome(original.getNome()) == i) {
+                assertArrayEquals(original.getTemposPassagem(), copia.getTemposPassagem());
+            }
+        }
+        for (int j = 0; j < corrida.getNumeroPostosControlo(); j++) {
+            for (int k = 0; k < corrida.getNumeroRegistosPorPosto(); k++) {
+                assertEquals(corrida.getDorsalRegisto(j, k), carregada.getDorsalRegisto(j, k));
+                assertEquals(corrida.getTempoPassagemRegisto(j, k), carregada.getTempoPassagemRegisto(j, k));
+            }
+        }
+        assertArrayEquals(corrida.calculaPosicoesPostos(700), carregada.calculaPosicoesPostos(700));
+        assertEquals(1000, carregada.indiceAtletaPorNome("Daniele ROATTINO"));
+    }
+
+    @Test
+    public void test_GravaDepoisDeRegistarPassagem() throws IOException {
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        int dorsal = corrida.getAtletaPorIndice(195).getDorsal();
+        corrida.registaPassagem(dorsal, 18, 1300);
+        File ficheiro = ficheiroTemporario();
+        CorridaBinaria.grava(corrida, ficheiro.getPath());
+        Corrida carregada = CorridaBinaria.carrega(ficheiro.getPath());
+        assertEquals(1300, carregada.getAtletaPorDorsal(dorsal).getTemposPassagem()[18]);
+        assertEquals(corrida.posicaoNoPosto(dorsal, 18), carregada.posicaoNoPosto(dorsal, 18));
+    }
+
+    @Test
+    public void test_FicheiroDesconhecido() throws IOException {
+        File ficheiro = ficheiroTemporario();
+        try (FileOutputStream out = new FileOutputStream(ficheiro)) {
+            out.write("Bib;Name;Nationality".getBytes());
+        }
+        try {
+            CorridaBinaria.carrega(ficheiro.getPath());
+            fail("Devia ter lançado IOException");
+        } catch (IOException e) {
+            // esperado
+        }
+    }
+
+    @Test
+    public void test_FicheiroCorrompido() throws IOException {
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        File ficheiro = ficheiroTemporario();
+        CorridaBinaria.grava(corrida, ficheiro.getPath());
+        byte[] bytes = Files.readAllBytes(ficheiro.toPath());
+
+        // código do nome do primeiro atleta fora da tabela de textos
+        ByteBuffer dados = ByteBuffer.wrap(bytes);
+        dados.position(10 * Integer.BYTES);
+        int numeroTextos = dados.getInt();
+        for (int i = 0; i < numeroTextos; i++) {
+            int tamanho = dados.getInt();
+            dados.position(dados.position() + tamanho);
+        }
+        dados.putInt(dados.position() + Integer.BYTES, numeroTextos);
+        Files.write(ficheiro.toPath(), bytes);
+        try {
+            CorridaBinaria.carrega(ficheiro.getPath());
+            fail("Devia ter lançado IOException");
+        } catch (IOException e) {
+            // esperado
+        }
+
+        // número de atletas maior do que o ficheiro comporta
+        dados.putInt(7 * Integer.BYTES, Integer.MAX_VALUE);
+        Files.write(ficheiro.toPath(), bytes);
+        try {
+            CorridaBinaria.carrega(ficheiro.getPath());
+            fail("Devia ter lançado IOException");
+        } catch (IOException e) {
+            // esperado
+        }
+
+        // ficheiro truncado
+        Files.write(ficheiro.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        try {
+            CorridaBinaria.carrega(ficheiro.getPath());
+            fail("Devia ter lançado IOException");
+        } catch (IOException e) {
+            // esperado
+        }
+    }
+
+    @Test
+    public void test_NumeroDePostosEnorme() throws IOException {
+        File ficheiro = ficheiroTemporario();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(ficheiro))) {
+            out.writeInt(CorridaBinaria.NUMERO_MAGICO);
+            out.writeInt(CorridaBinaria.VERSAO);
+            for (int campo : new int[] { 2023, 9, 1, 18, 0 }) {
+                out.writeInt(campo);
+            }
+            out.writeInt(0); // atletas
+            out.writeInt(Integer.MAX_VALUE - 8); // postos
+            out.writeInt(0); // registos por posto
+            out.writeInt(0); // textos
+            out.write(new byte[16]);
+        }
+        assertEquals(60, ficheiro.length());
+        try {
+            CorridaBinaria.carrega(ficheiro.getPath());
+            fail("Devia ter lançado IOException");
+        } catch (IOException e) {
+            // esperado
+        }
+    }
+
+    @Test
+    public void test_VersaoAnterior() throws IOException {
+        File ficheiro = ficheiroTemporario();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(ficheiro))) {
+            out.writeInt(CorridaBinaria.NUMERO_MAGICO);
+            out.writeInt(1);
+        }
+        try {
+            CorridaBinaria.carrega(ficheiro.getPath());
+            fail("Devia ter lançado IOException");
+        } catch (IOException e) {
+            // esperado
+        }
+    }
+
+}
\ No newline at end of file
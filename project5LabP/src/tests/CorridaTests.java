@@ -1,9 +1,19 @@
 package tests;
 
 import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
 
 import project.*;
 import project.comparators.*;
@@ -242,4 +252,313 @@ public class CorridaTests {
         assertEquals(6000, amandine.getTemposPassagem()[23]);
     }
 
+    @Test
+    public void test_IndiceAtletaPorNome() {
+        assertEquals(1000, corrida.indiceAtletaPorNome("Daniele ROATTINO"));
+        assertEquals(-1, corrida.indiceAtletaPorNome("José Ninguém"));
+    }
+
+    @Test
+    public void test_IndiceAtletaPorDorsal() {
+        assertEquals(1000, corrida.indiceAtletaPorDorsal(1101));
+        assertEquals(-1, corrida.indiceAtletaPorDorsal(99999));
+        assertEquals("Daniele ROATTINO", corrida.getAtletaPorDorsal(1101).getNome());
+    }
+
+    @Test
+    public void test_calculaPosicoesPostosVariosDorsais() {
+        int[][] posicoes = corrida.calculaPosicoesPostos(new int[] {700, 99999});
+        assertEquals(623, posicoes[0][0]);
+        assertEquals(723, posicoes[0][23]);
+        assertEquals(0, posicoes[1][0]);
+        assertEquals(1096, corrida.posicaoNoPosto(700, 16));
+    }
+
+    @Test
+    public void test_CarregaMapeadoIgualAoConstrutor() throws FileNotFoundException {
+        Corrida mapeada = Corrida.carregaMapeado("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        assertEquals(corrida.getNumeroDeAtletas(), mapeada.getNumeroDeAtletas());
+        assertEquals(corrida.getNumeroPostosControlo(), mapeada.getNumeroPostosControlo());
+        Atleta daniele = mapeada.getAtletaPorIndice(1000);
+        assertEquals("Daniele ROATTINO", daniele.getNome());
+        assertEquals(667, daniele.getPosicaoFinalAbsoluta());
+        assertEquals(2296, daniele.getTemposPassagem()[23]);
+        assertEquals(723, mapeada.calculaPosicoesPostos(700)[23]);
+    }
+
+    @Test
+    public void test_RegistosPassagemPorColunas() {
+        assertEquals(2687, corrida.getNumeroRegistosPorPosto());
+        assertEquals(3, corrida.getDorsalRegisto(corrida.getNumeroPostosControlo() - 1, 0));
+        assertEquals(1235, corrida.getDorsalRegisto(11, 1000));
+        assertEquals(corrida.getRegistosPassagem()[11][1000].getTempoPassagem(),
+                corrida.getTempoPassagemRegisto(11, 1000));
+    }
+
+    @Test
+    public void test_CalendarioComOutraHoraDePartida() throws FileNotFoundException {
+        OpcoesCarregamento opcoes = new OpcoesCarregamento();
+        opcoes.setCalendario(new CalendarioProva(2023, 9, 1, 17, 0));
+        Corrida umaHoraAntes = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv", opcoes);
+        Atleta daniele = umaHoraAntes.getAtletaPorIndice(1000);
+        assertEquals(60, daniele.getTemposPassagem()[0]);
+        assertEquals(511 + 60, daniele.getTemposPassagem()[6]);
+        assertEquals(6000, umaHoraAntes.getAtletaPorIndice(195).getTemposPassagem()[23]);
+    }
+
+    @Test
+    public void test_RegistaPassagem() throws FileNotFoundException {
+        Corrida aoVivo = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        Atleta amandine = aoVivo.getAtletaPorIndice(195);
+        int dorsal = amandine.getDorsal();
+        int ultimoAntes = 0;
+        while (aoVivo.getTempoPassagemRegisto(18, ultimoAntes) <= 1300) {
+            ultimoAntes++;
+        }
+        aoVivo.registaPassagem(dorsal, 18, 1300);
+        assertEquals(1, aoVivo.getVersao());
+        assertEquals(1300, amandine.getTemposPassagem()[18]);
+        assertEquals(ultimoAntes + 1, aoVivo.calculaPosicoesPostos(dorsal)[18]);
+        assertEquals(dorsal, aoVivo.getDorsalRegisto(18, ultimoAntes));
+        assertEquals(aoVivo.calculaPosicoesPostos(700)[17], corrida.calculaPosicoesPostos(700)[17]);
+        RegistoPassagem[][] registos = aoVivo.getRegistosPassagem();
+        for (int j = 1; j < registos[18].length; j++) {
+            assertTrue(registos[18][j - 1].getTempoPassagem() <= registos[18][j].getTempoPassagem());
+            assertEquals(j + 1, aoVivo.posicaoNoPosto(registos[18][j].getDorsal(), 18));
+        }
+        aoVivo.registaPassagem(dorsal, 18, Corrida.MINUTOS_DE_QUEM_NAO_PASSOU);
+        assertEquals(6000, amandine.getTemposPassagem()[18]);
+        int posicao = aoVivo.calculaPosicoesPostos(dorsal)[18];
+        assertTrue(aoVivo.getTempoPassagemRegisto(18, posicao - 2) == Corrida.MINUTOS_DE_QUEM_NAO_PASSOU
+                || posicao == 1);
+    }
+
+    @Test
+    public void test_RegistaPassagemComoModeloSimples() throws FileNotFoundException {
+        Corrida aoVivo = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        // modelo: os registos de cada posto numa lista, com cada passagem movida
+        // para depois de todos os registos com tempo menor ou igual
+        RegistoPassagem[][] iniciais = aoVivo.getRegistosPassagem();
+        List<List<RegistoPassagem>> modelo = new ArrayList<>();
+        for (RegistoPassagem[] posto : iniciais) {
+            modelo.add(new ArrayList<>(Arrays.asList(posto)));
+        }
+        Random aleatorio = new Random(42);
+        for (int evento = 0; evento < 3000; evento++) {
+            int dorsal = aoVivo.getAtletaPorIndice(aleatorio.nextInt(aoVivo.getNumeroDeAtletas())).getDorsal();
+            int posto = aleatorio.nextInt(aoVivo.getNumeroPostosControlo());
+            int minutos = aleatorio.nextInt(10) == 0 ? Corrida.MINUTOS_DE_QUEM_NAO_PASSOU
+                    : 200 * posto + aleatorio.nextInt(300);
+            if (modelo.get(0).stream().noneMatch(r -> r.getDorsal() == dorsal)) {
+                for (List<RegistoPassagem> registos : modelo) {
+                    insereDepoisDosIguais(registos, new RegistoPassagem(dorsal, Corrida.MINUTOS_DE_QUEM_NAO_PASSOU));
+                }
+            }
+            List<RegistoPassagem> registos = modelo.get(posto);
+            registos.removeIf(r -> r.getDorsal() == dorsal);
+            insereDepoisDosIguais(registos, new RegistoPassagem(dorsal, minutos));
+            aoVivo.registaPassagem(dorsal, posto, minutos);
+            assertEquals(registos.indexOf(registos.stream().filter(r -> r.getDorsal() == dorsal).findFirst()
+                    .get()) + 1, aoVivo.posicaoNoPosto(dorsal, posto));
+        }
+        assertEquals(modelo.get(0).size(), aoVivo.getNumeroRegistosPorPosto());
+        RegistoPassagem[][] finais = aoVivo.getRegistosPassagem();
+        for (int j = 0; j < finais.length; j++) {
+            for (int k = 0; k < finais[j].length; k++) {
+                assertEquals(modelo.get(j).get(k).getDorsal(), finais[j][k].getDorsal());
+                assertEquals(modelo.get(j).get(k).getDorsal(), aoVivo.getDorsalRegisto(j, k));
+                assertEquals(modelo.get(j).get(k).getTempoPassagem(), aoVivo.getTempoPassagemRegisto(j, k));
+            }
+        }
+        Atleta[] primeiros = aoVivo.topKNoPosto(5, 10);
+        for (int k = 0; k < primeiros.length; k++) {
+            assertEquals(modelo.get(5).get(k).getDorsal(), primeiros[k].getDorsal());
+        }
+    }
+
+    private static void insereDepoisDosIguais(List<RegistoPassagem> registos, RegistoPassagem registo) {
+        int destino = 0;
+        while (destino < registos.size() && registos.get(destino).getTempoPassagem() <= registo.getTempoPassagem()) {
+            destino++;
+        }
+        registos.add(destino, registo);
+    }
+
+    @Test
+    public void test_AtletasForaDoHeap() throws FileNotFoundException {
+        OpcoesCarregamento opcoes = new OpcoesCarregamento();
+        opcoes.setForaDoHeap(true);
+        Corrida foraDoHeap = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv", opcoes);
+        assertEquals(corrida.getNumeroDeAtletas(), foraDoHeap.getNumeroDeAtletas());
+        for (int i = 0; i < corrida.getNumeroDeAtletas(); i++) {
+            Atleta original = corrida.getAtletaPorIndice(i);
+            Atleta vista = foraDoHeap.getAtletaPorIndice(i);
+            assertEquals(original.getDorsal(), vista.getDorsal());
+            assertEquals(original.getNome(), vista.getNome());
+            assertEquals(original.getNacionalidade(), vista.getNacionalidade());
+            assertEquals(original.getEscalao(), vista.getEscalao());
+            assertEquals(original.getPosicaoFinalAbsoluta(), vista.getPosicaoFinalAbsoluta());
+            assertEquals(original.getPosicaoFinalEscalao(), vista.getPosicaoFinalEscalao());
+            assertArrayEquals(original.getTempoNaMeta(), vista.getTempoNaMeta());
+            assertEquals(original.hashCode(), vista.hashCode());
+            assertEquals(vista, foraDoHeap.getAtletaPorIndice(i));
+            assertEquals(corrida.indiceAtletaPorNome(original.getNome()),
+                    foraDoHeap.indiceAtletaPorNome(vista.getNome()));
+            assertEquals(corrida.indiceAtletaPorDorsal(original.getDorsal()),
+                    foraDoHeap.indiceAtletaPorDorsal(vista.getDorsal()));
+        }
+        assertEquals(-1, foraDoHeap.indiceAtletaPorNome("Ninguém"));
+        assertEquals(-1, foraDoHeap.indiceAtletaPorDorsal(-1));
+        assertEquals(corrida.getAtletasOrdenados(new ComparaAtletaNome()).get(0).getDorsal(),
+                foraDoHeap.getAtletasOrdenados(new ComparaAtletaNome()).get(0).getDorsal());
+        Atleta daniele = foraDoHeap.getAtletaPorIndice(1000);
+        assertArrayEquals(corrida.getAtletaPorIndice(1000).getTemposPassagem(), daniele.getTemposPassagem());
+        assertEquals(daniele, foraDoHeap.getAtletaPorDorsal(daniele.getDorsal()));
+        assertArrayEquals(corrida.calculaPosicoesPostos(700), foraDoHeap.calculaPosicoesPostos(700));
+
+        foraDoHeap.registaPassagem(daniele.getDorsal(), 23, 2000);
+        assertEquals(2000, daniele.getTempoPassagem(23));
+        assertEquals(2000, foraDoHeap.getAtletaPorIndice(1000).getTemposPassagem()[23]);
+    }
+
+    @Test
+    public void test_SeleccionaEscalaoEouNacionalidadePorBitmaps() {
+        Atleta[] francesas40a44anos = corrida.seleccionaEscalaoEouNacionalidade("40-44W", "FRA (FR)");
+        assertEquals(8, francesas40a44anos.length);
+        for (int i = 1; i < francesas40a44anos.length; i++) {
+            assertTrue(francesas40a44anos[i - 1].getDorsal() < francesas40a44anos[i].getDorsal());
+        }
+        assertArrayEquals(Atleta.seleccionaEscalaoEouNacionalidade(corrida.getAtletas(), "todos", "KOR (KR)"),
+                corrida.seleccionaEscalaoEouNacionalidade("todos", "KOR (KR)"));
+        assertEquals(63, corrida.contaEscalaoEouNacionalidade("40-44W", "todas"));
+        assertEquals(27, corrida.contaEscalaoEouNacionalidade("todos", "KOR (KR)"));
+        assertEquals(2687, corrida.contaEscalaoEouNacionalidade("todos", "todas"));
+        assertEquals(0, corrida.contaEscalaoEouNacionalidade("40-44W", "XXX (XX)"));
+        assertEquals(0, corrida.seleccionaEscalaoEouNacionalidade("99-99M", "todas").length);
+
+        int total = 0;
+        for (String escalao : corrida.getEscaloes()) {
+            for (String nacionalidade : corrida.getNacionalidades()) {
+                total += corrida.contaEscalaoEouNacionalidade(escalao, nacionalidade);
+            }
+        }
+        assertEquals(corrida.getNumeroDeAtletas(), total);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_TopKIgualAOrdenacaoCompleta() {
+        Object[] comparadores = new Object[] { new ComparaAtletaDorsal(), new ComparaAtletaNome(),
+                new ComparaAtletaPosFinalAbsoluta(), new ComparaAtletaTempoNaMeta(),
+                new ComparaAtletaNacionalidade(), new ComparaAtletaEscalao(), new ComparaAtletaPosFinalEscalao() };
+        for (Object comparador : comparadores) {
+            Atleta[] todosOsAtletas = corrida.getAtletas();
+            Atleta.ordena(todosOsAtletas, (Comparator<Atleta>) comparador);
+            assertArrayEquals(Arrays.copyOf(todosOsAtletas, 10), corrida.topK((Comparator<Atleta>) comparador, 10));
+        }
+        assertEquals(corrida.getNumeroDeAtletas(), corrida.topK(new ComparaAtletaNome(), 5000).length);
+        assertEquals(0, corrida.topK(new ComparaAtletaNome(), 0).length);
+    }
+
+    @Test
+    public void test_TopKPorEscalao() {
+        Atleta[] todosOsAtletas = corrida.getAtletas();
+        Atleta.ordena(todosOsAtletas, new ComparaAtletaPosFinalAbsoluta());
+        Atleta[] mulheres40a44anos = Atleta.seleccionaEscalaoEouNacionalidade(todosOsAtletas, "40-44W", "todas");
+        assertArrayEquals(Arrays.copyOf(mulheres40a44anos, 3),
+                corrida.topK(new ComparaAtletaPosFinalAbsoluta(), 3, "40-44W", "todas"));
+    }
+
+    @Test
+    public void test_TopKNoPosto() {
+        Atleta[] primeiros = corrida.topKNoPosto(11, 5);
+        assertEquals(5, primeiros.length);
+        for (int j = 0; j < primeiros.length; j++) {
+            assertEquals(corrida.getDorsalRegisto(11, j), primeiros[j].getDorsal());
+        }
+        int passaram = corrida.consulta().tempoNoPosto(23, 0, Corrida.MINUTOS_DE_QUEM_NAO_PASSOU - 1).conta();
+        assertEquals(passaram, corrida.topKNoPosto(23, 5000).length);
+    }
+
+    @Test
+    public void test_AtletasOrdenadosPartilhados() throws FileNotFoundException {
+        Corrida aoVivo = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        List<Atleta> porNome = aoVivo.getAtletasOrdenados(new ComparaAtletaNome());
+        Atleta[] todosOsAtletas = aoVivo.getAtletas();
+        Atleta.ordena(todosOsAtletas, new ComparaAtletaNome());
+        assertArrayEquals(todosOsAtletas, porNome.toArray());
+        assertSame(porNome, aoVivo.getAtletasOrdenados(new ComparaAtletaNome()));
+        assertNotSame(porNome, aoVivo.getAtletasOrdenados(new ComparaAtletaEscalao()));
+        try {
+            porNome.set(0, porNome.get(1));
+            fail("A lista devia ser imutável");
+        } catch (UnsupportedOperationException e) {
+            // esperado
+        }
+
+        // nenhum comparador depende dos tempos de passagem
+        aoVivo.registaPassagem(porNome.get(0).getDorsal(), 3, 300);
+        assertSame(porNome, aoVivo.getAtletasOrdenados(new ComparaAtletaNome()));
+
+        List<Atleta> porPosicao = aoVivo.getAtletasOrdenados(new ComparaAtletaPosFinalAbsoluta());
+        Atleta ultimo = porPosicao.get(porPosicao.size() - 1);
+        ultimo.setPosicaoFinalAbsoluta(0);
+        List<Atleta> depois = aoVivo.getAtletasOrdenados(new ComparaAtletaPosFinalAbsoluta());
+        assertNotSame(porPosicao, depois);
+        assertEquals(ultimo, depois.get(0));
+        // a ordenação por nome não depende da classificação
+        assertSame(porNome, aoVivo.getAtletasOrdenados(new ComparaAtletaNome()));
+
+        todosOsAtletas = aoVivo.getAtletas();
+        Atleta.ordena(todosOsAtletas, new ComparaAtletaTempoNaMeta());
+        assertArrayEquals(todosOsAtletas, aoVivo.getAtletasOrdenados(new ComparaAtletaTempoNaMeta()).toArray());
+    }
+
+    @Test
+    public void test_ParalelismoNaoAlteraResultados() throws FileNotFoundException {
+        OpcoesCarregamento opcoes = new OpcoesCarregamento();
+        opcoes.setParalelismo(1);
+        Corrida serie = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv", opcoes);
+        opcoes.setParalelismo(7);
+        Corrida paralela = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv", opcoes);
+        for (int j = 0; j < serie.getNumeroPostosControlo(); j++) {
+            for (int k = 0; k < serie.getNumeroRegistosPorPosto(); k++) {
+                assertEquals(serie.getDorsalRegisto(j, k), paralela.getDorsalRegisto(j, k));
+            }
+        }
+        int[] dorsais = new int[serie.getNumeroDeAtletas()];
+        for (int i = 0; i < dorsais.length; i++) {
+            dorsais[i] = serie.getAtletaPorIndice(i).getDorsal();
+        }
+        int[][] posicoesSerie = serie.calculaPosicoesPostos(dorsais);
+        int[][] posicoesParalela = paralela.calculaPosicoesPostos(dorsais);
+        for (int i = 0; i < dorsais.length; i++) {
+            assertArrayEquals(posicoesSerie[i], posicoesParalela[i]);
+        }
+        AnaliseParciais analiseSerie = serie.analiseParciais();
+        AnaliseParciais analiseParalela = paralela.analiseParciais();
+        EstatisticasPostos estatisticasSerie = serie.estatisticasPostos(60);
+        EstatisticasPostos estatisticasParalela = paralela.estatisticasPostos(60);
+        for (int s = 0; s < analiseSerie.getNumeroSegmentos(); s++) {
+            assertArrayEquals(analiseSerie.getDuracoes(s), analiseParalela.getDuracoes(s));
+            assertArrayEquals(analiseSerie.getUltrapassagens(s), analiseParalela.getUltrapassagens(s));
+            assertEquals(estatisticasSerie.getSegmento(s, "todos").toString(),
+                    estatisticasParalela.getSegmento(s, "todos").toString());
+        }
+        try {
+            opcoes.setParalelismo(0);
+            fail("Devia ter lançado IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // esperado
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import project.*;
+
+public class EstatisticasPostosTests {
+
+    private static Corrida corrida;
+
+    static {
+        try {
+            corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                    "input/UTMB_2023-progress.csv");
+        } catch (FileNotFoundException e) {
+            System.err.println("Pelo menos 1 ficheiro de inicialização não foi encontrado.");
+            e.printStackTrace();
+            corrida = null;
+        }
+    }
+
+    // Quantil pela posição mais próxima, sobre os valores ordenados.
+    private static int quantilExato(int[] ordenados, double q) {
+        return ordenados[(int) Math.max(1, Math.ceil(q * ordenados.length)) - 1];
+    }
+
+    @Test
+    public void test_QuantisExatosPorEscalao() {
+        EstatisticasPostos estatisticas = corrida.estatisticasPostos(60);
+        int posto = 12;
+        for (String escalao : new String[] { "todos", "40-44M", "20-34W" }) {
+            List<Integer> tempos = new ArrayList<>();
+            for (int j = 0; j < corrida.getNumeroRegistosPorPosto(); j++) {
+                int minutos = corrida.getTempoPassagemRegisto(posto, j);
+                Atleta atleta = corrida.getAtletaPorDorsal(corrida.getDorsalRegisto(posto, j));
+                if (minutos != Corrida.MINUTOS_DE_QUEM_NAO_PASSOU
+                        && (escalao.equals("todos") || atleta.getEscalao().equals(escalao))) {
+                    tempos.add(minutos);
+                }
+            }
+            int[] ordenados = tempos.stream().mapToInt(Integer::intValue).sorted().toArray();
+            DistribuicaoTempos distribuicao = estatisticas.getPassagens(posto, escalao);
+            assertTrue(distribuicao.isExata());
+            assertEquals(ordenados.length, distribuicao.getContagem());
+            assertEquals(ordenados[0], distribuicao.getMinimo());
+            assertEquals(ordenados[ordenados.length - 1], distribuicao.getMaximo());
+            assertEquals(quantilExato(ordenados, 0.5), distribuicao.getMediana(), 0);
+            assertEquals(quantilExato(ordenados, 0.9), distribuicao.getP90(), 0);
+            assertEquals(quantilExato(ordenados, 0.99), distribuicao.getP99(), 0);
+            assertEquals(ordenados.length, Arrays.stream(distribuicao.getHistograma()).sum());
+            assertEquals(ordenados[ordenados.length - 1] / 60 + 1, distribuicao.getHistograma().length);
+        }
+    }
+
+    @Test
+    public void test_Segmentos() {
+        EstatisticasPostos estatisticas = corrida.estatisticasPostos(30);
+        AnaliseParciais analise = corrida.analiseParciais();
+        for (int s = 0; s < analise.getNumeroSegmentos(); s++) {
+            int[] duracoes = Arrays.stream(analise.getDuracoes(s)).filter(d -> d != AnaliseParciais.SEM_PARCIAL)
+                    .sorted().toArray();
+            DistribuicaoTempos distribuicao = estatisticas.getSegmento(s, "todos");
+            assertEquals(duracoes.length, distribuicao.getContagem());
+            if (duracoes.length > 0) {
+                assertEquals(quantilExato(duracoes, 0.5), distribuicao.getMediana(), 0);
+                assertEquals(quantilExato(duracoes, 0.9), distribuicao.getP90(), 0);
+            }
+        }
+        long porEscalao = 0;
+        for (String escalao : estatisticas.getEscaloes()) {
+            porEscalao += estatisticas.getSegmento(10, escalao).getContagem();
+        }
+        assertEquals(estatisticas.getSegmento(10, "todos").getContagem(), porEscalao);
+        assertEquals(0, estatisticas.getSegmento(10, "inexistente").getContagem());
+    }
+
+    @Test
+    public void test_PassagensAoVivo() {
+        EstatisticasPostos estatisticas = corrida.estatisticasPostos(60);
+        long antes = estatisticas.getPassagens(23, "todos").getContagem();
+        estatisticas.adicionaPassagem(23, "40-44M", 10);
+        assertEquals(antes + 1, estatisticas.getPassagens(23, "todos").getContagem());
+        assertEquals(10, estatisticas.getPassagens(23, "40-44M").getMinimo());
+        try {
+            estatisticas.adicionaPassagem(24, "40-44M", 10);
+            fail("Devia ter lançado IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // esperado
+        }
+    }
+
+    @Test
+    public void test_EsbocoAproximadoEJuncao() {
+        Random aleatorio = new Random(7);
+        int n = 200000;
+        int[] valores = new int[n];
+        EsbocoQuantis esboco = new EsbocoQuantis(0.01, 1000);
+        EsbocoQuantis metade = new EsbocoQuantis(0.01, 1000);
+        for (int k = 0; k < n; k++) {
+            valores[k] = (int) (600 + 300 * aleatorio.nextGaussian()) - 100;
+            (k % 2 == 0 ? esboco : metade).adiciona(valores[k]);
+        }
+        esboco.junta(metade);
+        assertEquals(n, esboco.getContagem());
+        assertTrue(!esboco.isExato());
+        Arrays.sort(valores);
+        for (double q : new double[] { 0.01, 0.1, 0.5, 0.9, 0.99, 1 }) {
+            int exato = quantilExato(valores, q);
+            assertTrue(Math.abs(esboco.quantil(q) - exato) <= 0.01 * Math.abs(exato) + 1e-9);
+        }
+
+        EsbocoQuantis pequeno = new EsbocoQuantis(0.01, 1000);
+        for (int v : new int[] { 5, 1, 4, 2, 3 }) {
+            pequeno.adiciona(v);
+        }
+        assertTrue(pequeno.isExato());
+        assertEquals(3, pequeno.quantil(0.5), 0);
+        assertEquals(1, pequeno.quantil(0), 0);
+        assertEquals(5, pequeno.quantil(1), 0);
+    }
+}
@@ -0,0 +1,122 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import project.*;
+
+public class GeradorCorridaTests {
+
+    private static String prefixoTemporario() throws IOException {
+        File diretoria = Files.createTempDirectory("gerador").toFile();
+        diretoria.deleteOnExit();
+        for (String sufixo : new String[] { CarregadorCorridas.SUFIXO_ATLETAS, CarregadorCorridas.SUFIXO_CLASSIFICACOES,
+                CarregadorCorridas.SUFIXO_REGISTO_PASSAGENS }) {
+            new File(diretoria, "CAMPO" + sufixo).deleteOnExit();
+        }
+        return new File(diretoria, "CAMPO").getPath();
+    }
+
+    private static Corrida carrega(String prefixo) throws IOException {
+        return new Corrida(prefixo + CarregadorCorridas.SUFIXO_ATLETAS, prefixo + CarregadorCorridas.SUFIXO_CLASSIFICACOES,
+                prefixo + CarregadorCorridas.SUFIXO_REGISTO_PASSAGENS);
+    }
+
+    @Test
+    public void test_CorridaGeradaCarrega() throws IOException {
+        GeradorCorrida gerador = new GeradorCorrida();
+        gerador.setNumeroAtletas(500);
+        gerador.setNumeroPostos(10);
+        gerador.setTaxaDesistencia(0.2);
+        gerador.setEscaloes(new String[] { "A", "B" }, new double[] { 3, 1 });
+        gerador.setNacionalidades(new String[] { "POR (PT)" }, new double[] { 1 });
+        String prefixo = prefixoTemporario();
+        gerador.escreve(prefixo);
+        Corrida corrida = carrega(prefixo);
+
+        assertEquals(500, corrida.getNumeroDeAtletas());
+        assertEquals(10, corrida.getNumeroPostosControlo());
+        assertEquals(500, corrida.consulta().nacionalidade("POR (PT)").conta());
+        int chegaram = corrida.consulta().chegaramAMeta().conta();
+        assertTrue(chegaram > 300 && chegaram < 500);
+        assertEquals(chegaram, corrida.consulta().escalao("A").chegaramAMeta().conta()
+                + corrida.consulta().escalao("B").chegaramAMeta().conta());
+
+        // o primeiro da classificação tem o menor tempo na meta
+        int minimo = Integer.MAX_VALUE;
+        Atleta primeiro = null;
+        for (int i = 0; i < corrida.getNumeroDeAtletas(); i++) {
+            Atleta atleta = corrida.getAtletaPorIndice(i);
+            assertEquals(10, atleta.getTemposPassagem().length);
+            if (atleta.getPosicaoFinalAbsoluta() == 1) {
+                primeiro = atleta;
+            }
+            if (atleta.getPosicaoFinalAbsoluta() != Corrida.POSICAO_DE_QUEM_NAO_CHEGOU_A_META) {
+                minimo = Math.min(minimo, atleta.getSegundosNaMeta());
+            }
+        }
+        assertEquals(minimo, primeiro.getSegundosNaMeta());
+    }
+
+    @Test
+    public void test_ProvaDeVariosDias() throws IOException {
+        GeradorCorrida gerador = new GeradorCorrida();
+        gerador.setNumeroAtletas(200);
+        gerador.setNumeroPostos(30);
+        gerador.setTaxaDesistencia(0);
+        gerador.setCalendario(new CalendarioProva(2023, 9, 1, 18, 0));
+        gerador.setDuracao(3 * 24 * 60, 5 * 24 * 60);
+        String prefixo = prefixoTemporario();
+        gerador.escreve(prefixo);
+        Corrida corrida = carrega(prefixo);
+
+        assertEquals(200, corrida.consulta().chegaramAMeta().conta());
+        for (int i = 0; i < corrida.getNumeroDeAtletas(); i++) {
+            int[] tempos = corrida.getAtletaPorIndice(i).getTemposPassagem();
+            assertEquals(0, tempos[0]);
+            for (int j = 1; j < tempos.length; j++) {
+                assertTrue(tempos[j] >= tempos[j - 1]);
+            }
+            // o tempo na meta coincide com o tempo de passagem na meta
+            assertEquals(corrida.getAtletaPorIndice(i).getSegundosNaMeta() / 60, tempos[tempos.length - 1]);
+            assertTrue(tempos[tempos.length - 1] >= 3 * 24 * 60);
+        }
+    }
+
+    @Test
+    public void test_MesmaSementeMesmosFicheiros() throws IOException {
+        String[] prefixos = { prefixoTemporario(), prefixoTemporario() };
+        for (String prefixo : prefixos) {
+            GeradorCorrida gerador = new GeradorCorrida();
+            gerador.setNumeroAtletas(300);
+            gerador.setSemente(42);
+            gerador.escreve(prefixo);
+        }
+        for (String sufixo : new String[] { CarregadorCorridas.SUFIXO_ATLETAS, CarregadorCorridas.SUFIXO_CLASSIFICACOES,
+                CarregadorCorridas.SUFIXO_REGISTO_PASSAGENS }) {
+            assertEquals(Files.readAllLines(Paths.get(prefixos[0] + sufixo)),
+                    Files.readAllLines(Paths.get(prefixos[1] + sufixo)));
+        }
+    }
+
+    @Test
+    public void test_DuracaoDemasiadoLonga() throws IOException {
+        GeradorCorrida gerador = new GeradorCorrida();
+        gerador.setNumeroAtletas(10);
+        gerador.setCalendario(new CalendarioProva(2023, 9, 1, 18, 0));
+        gerador.setDuracao(24 * 60, 7 * 24 * 60);
+        try {
+            gerador.escreve(prefixoTemporario());
+            fail("Devia ter lançado IllegalStateException");
+        } catch (IllegalStateException e) {
+            // esperado
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import project.*;
+
+public class IndiceCarreirasTests {
+
+    private static Corrida corrida;
+
+    static {
+        try {
+            corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                    "input/UTMB_2023-progress.csv");
+        } catch (FileNotFoundException e) {
+            System.err.println("Pelo menos 1 ficheiro de inicialização não foi encontrado.");
+            e.printStackTrace();
+            corrida = null;
+        }
+    }
+
+    @Test
+    public void test_NormalizaNome() {
+        assertEquals("DANIELE ROATTINO", IndiceCarreiras.normalizaNome("Daniele ROATTINO"));
+        assertEquals("DANIELE ROATTINO", IndiceCarreiras.normalizaNome("ROATTINO  Danièle"));
+        assertEquals("JEAN LOUIS MARTIN", IndiceCarreiras.normalizaNome("Jean-Louis MARTIN"));
+    }
+
+    @Test
+    public void test_ResultadosDeUmAtletaEmDuasCorridas() {
+        IndiceCarreiras indice = new IndiceCarreiras();
+        indice.adiciona("UTMB_2023", corrida);
+        indice.adiciona("UTMB_2024", corrida);
+
+        assertArrayEquals(new String[] { "UTMB_2023", "UTMB_2024" }, indice.getCorridas());
+        Atleta atleta = corrida.getAtletaPorIndice(1000);
+        List<ResultadoCarreira> resultados = indice.resultados("roattino daniele", atleta.getNacionalidade());
+        assertEquals(2, resultados.size());
+        assertEquals("UTMB_2023", resultados.get(0).getIdCorrida());
+        assertEquals("UTMB_2024", resultados.get(1).getIdCorrida());
+        for (ResultadoCarreira resultado : resultados) {
+            assertEquals(atleta.getDorsal(), resultado.getDorsal());
+            assertEquals(atleta.getPosicaoFinalAbsoluta(), resultado.getPosicaoFinalAbsoluta());
+            assertEquals(atleta.getSegundosNaMeta(), resultado.getSegundosNaMeta());
+        }
+        assertTrue(indice.resultados("Daniele ROATTINO", "XYZ").isEmpty());
+
+        // voltar a acrescentar uma corrida substitui os seus resultados
+        indice.adiciona("UTMB_2024", corrida);
+        assertEquals(2, indice.resultados("Daniele ROATTINO", atleta.getNacionalidade()).size());
+        assertTrue(indice.remove("UTMB_2024"));
+        assertFalse(indice.remove("UTMB_2024"));
+        assertEquals(1, indice.resultados("Daniele ROATTINO", atleta.getNacionalidade()).size());
+    }
+
+    @Test
+    public void test_Primeiros() {
+        IndiceCarreiras indice = new IndiceCarreiras();
+        indice.adiciona("UTMB_2023", corrida);
+
+        List<ResultadoCarreira> primeiros = indice.primeiros("UTMB_2023", 100);
+        assertEquals(100, primeiros.size());
+        assertEquals(1, primeiros.get(0).getPosicaoFinalAbsoluta());
+        for (int p = 0; p < primeiros.size(); p++) {
+            ResultadoCarreira resultado = primeiros.get(p);
+            // há posições repetidas nas classificações, por isso só se verifica a ordem
+            assertTrue(p == 0 || primeiros.get(p - 1).getPosicaoFinalAbsoluta() <= resultado.getPosicaoFinalAbsoluta());
+            assertEquals(resultado.getNome(), corrida.getAtletaPorDorsal(resultado.getDorsal()).getNome());
+        }
+        List<ResultadoCarreira> todos = indice.primeiros("UTMB_2023", Integer.MAX_VALUE);
+        for (ResultadoCarreira resultado : todos) {
+            assertTrue(resultado.chegouAMeta());
+        }
+        assertTrue(todos.size() < corrida.getNumeroDeAtletas());
+
+        List<List<ResultadoCarreira>> carreiras = indice.carreirasDosPrimeiros("UTMB_2023", 10);
+        assertEquals(10, carreiras.size());
+        assertEquals(primeiros.get(0).getNome(), carreiras.get(0).get(0).getNome());
+        try {
+            indice.primeiros("UTMB_1900", 10);
+            fail("Deveria ter lançado IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // esperado
+        }
+    }
+
+    @Test
+    public void test_GravaECarrega() throws IOException {
+        IndiceCarreiras indice = new IndiceCarreiras();
+        indice.adiciona("UTMB_2023", corrida);
+        indice.adiciona("UTMB_2024", corrida);
+        File ficheiro = File.createTempFile("carreiras", ".bin");
+        ficheiro.deleteOnExit();
+        indice.grava(ficheiro.getPath());
+        IndiceCarreiras carregado = IndiceCarreiras.carrega(ficheiro.getPath());
+
+        assertArrayEquals(indice.getCorridas(), carregado.getCorridas());
+        assertEquals(indice.getNumeroAtletas(), carregado.getNumeroAtletas());
+        List<ResultadoCarreira> originais = indice.primeiros("UTMB_2023", Integer.MAX_VALUE);
+        List<ResultadoCarreira> copias = carregado.primeiros("UTMB_2023", Integer.MAX_VALUE);
+        assertEquals(originais.size(), copias.size());
+        for (int p = 0; p < originais.size(); p++) {
+            assertEquals(originais.get(p).toString(), copias.get(p).toString());
+            assertEquals(originais.get(p).getPosicaoFinalEscalao(), copias.get(p).getPosicaoFinalEscalao());
+        }
+        Atleta atleta = corrida.getAtletaPorIndice(1000);
+        assertEquals(2, carregado.resultados(atleta.getNome(), atleta.getNacionalidade()).size());
+    }
+
+    // grava um ficheiro de índice com o cabeçalho certo seguido dos inteiros dados
+    private static File ficheiroComInteiros(int... inteiros) throws IOException {
+        File ficheiro = File.createTempFile("carreiras", ".bin");
+        ficheiro.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(ficheiro))) {
+            out.writeInt(IndiceCarreiras.NUMERO_MAGICO);
+            out.writeInt(IndiceCarreiras.VERSAO);
+            for (int inteiro : inteiros) {
+                out.writeInt(inteiro);
+            }
+        }
+        return ficheiro;
+    }
+
+    @Test
+    public void test_CarregaFicheiroCorrompido() throws IOException {
+        File[] corrompidos = {
+                ficheiroComInteiros(-1), // número de textos negativo
+                ficheiroComInteiros(1, -1, 0), // tamanho de texto negativo
+                ficheiroComInteiros(Integer.MAX_VALUE, 0), // demasiados textos
+                ficheiroComInteiros(0, 1, 0, 0), // código de texto fora da tabela
+                ficheiroComInteiros(1, 0, 1, 0, -1), // número de resultados negativo
+                ficheiroComInteiros(1, 0, 1, 0, Integer.MAX_VALUE, 0), // demasiados resultados
+                ficheiroComInteiros(1, 0, 1, 0, 1, 7, 5, 0, 0, 1, 1, 0), // código de nome fora da tabela
+                ficheiroComInteiros(0, Integer.MAX_VALUE / 2, 0, 0) // demasiadas corridas
+        };
+        for (File ficheiro : corrompidos) {
+            try {
+                IndiceCarreiras.carrega(ficheiro.getPath());
+                fail("Deveria ter lançado IOException");
+            } catch (IOException e) {
+                // esperado
+            }
+        }
+    }
+
+    @Test
+    public void test_CarregaFicheiroInvalido() throws IOException {
+        try {
+            IndiceCarreiras.carrega("input/UTMB_2023-starters.csv");
+            fail("Deveria ter lançado IOException");
+        } catch (IOException e) {
+            // esperado
+        }
+    }
+}
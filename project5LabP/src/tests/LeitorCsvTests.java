@@ -0,0 +1,68 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import project.*;
+
+public class LeitorCsvTests {
+
+    private static LeitorCsv leitor(String conteudo) {
+        return new LeitorCsv(ByteBuffer.wrap(conteudo.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void test_IgnoraBom() {
+        LeitorCsv leitor = leitor("\uFEFF1;José Ninguém;POR (PT)\n");
+        assertTrue(leitor.proximaLinha());
+        assertEquals(3, leitor.contaCampos());
+        assertEquals(1, leitor.lerInt());
+        assertEquals("José Ninguém", leitor.lerString());
+        assertEquals("POR (PT)", leitor.lerString());
+        assertFalse(leitor.temCampo());
+        assertFalse(leitor.proximaLinha());
+    }
+
+    @Test
+    public void test_LinhasComFimDeLinhaWindowsESemFimDeLinha() {
+        LeitorCsv leitor = leitor("a;b\r\n\r\nc;d");
+        assertTrue(leitor.proximaLinha());
+        leitor.saltaCampo();
+        assertEquals("b", leitor.lerString());
+        assertTrue(leitor.proximaLinha());
+        assertEquals("c", leitor.lerString());
+        assertEquals("d", leitor.lerString());
+        assertFalse(leitor.proximaLinha());
+    }
+
+    @Test
+    public void test_LerTempoDia() {
+        LeitorCsv leitor = leitor("Sat. 14:21;.;Fri. 18:00\n");
+        leitor.proximaLinha();
+        int tempo = leitor.lerTempoDia();
+        assertEquals(6, LeitorCsv.diaDaSemana(tempo));
+        assertEquals(14 * 60 + 21, LeitorCsv.minutosDoDia(tempo));
+        assertEquals(LeitorCsv.SEM_TEMPO, leitor.lerTempoDia());
+        assertEquals(5, LeitorCsv.diaDaSemana(leitor.lerTempoDia()));
+    }
+
+    @Test
+    public void test_LerDuracaoSegundos() {
+        LeitorCsv leitor = leitor("38:16:55\n");
+        leitor.proximaLinha();
+        assertEquals(38 * 3600 + 16 * 60 + 55, leitor.lerDuracaoSegundos());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void test_LerIntCampoNaoNumerico() {
+        LeitorCsv leitor = leitor("abc\n");
+        leitor.proximaLinha();
+        leitor.lerInt();
+    }
+
+}
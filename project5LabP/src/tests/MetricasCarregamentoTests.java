@@ -0,0 +1,118 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import project.*;
+
+public class MetricasCarregamentoTests {
+
+    private static final String[] FICHEIROS = { "input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+            "input/UTMB_2023-progress.csv" };
+
+    private static long linhasNaoVazias(String ficheiro) throws IOException {
+        return Files.readAllLines(Paths.get(ficheiro), StandardCharsets.UTF_8).stream().filter(l -> !l.isEmpty())
+                .count();
+    }
+
+    private static void verificaContagens(Corrida corrida) throws IOException {
+        MetricasCarregamento metricas = corrida.getMetricasCarregamento();
+        Map<String, Long> linhas = metricas.getLinhasLidas();
+        Map<String, Long> bytes = metricas.getBytesLidos();
+        assertEquals(linhasNaoVazias(FICHEIROS[0]), (long) linhas.get(MetricasCarregamento.FASE_ATLETAS));
+        assertEquals(linhasNaoVazias(FICHEIROS[1]), (long) linhas.get(MetricasCarregamento.FASE_CLASSIFICACOES));
+        assertEquals(linhasNaoVazias(FICHEIROS[2]), (long) linhas.get(MetricasCarregamento.FASE_REGISTO_PASSAGENS));
+        assertEquals(new File(FICHEIROS[0]).length(), (long) bytes.get(MetricasCarregamento.FASE_ATLETAS));
+        assertEquals(new File(FICHEIROS[1]).length(), (long) bytes.get(MetricasCarregamento.FASE_CLASSIFICACOES));
+        assertEquals(new File(FICHEIROS[2]).length(),
+                (long) bytes.get(MetricasCarregamento.FASE_REGISTO_PASSAGENS));
+
+        // uma pesquisa por linha do registo de passagens e por classificação
+        assertEquals(corrida.getNumeroRegistosPorPosto() + linhasNaoVazias(FICHEIROS[1]) - 3,
+                metricas.getPesquisasPorNome());
+        assertEquals((long) corrida.getNumeroPostosControlo() * corrida.getNumeroRegistosPorPosto(),
+                metricas.getPesquisasPorDorsal());
+        assertEquals(0, metricas.getPesquisasSemResultado());
+        assertEquals(corrida.getNumeroPostosControlo(), metricas.getNanosOrdenacaoPorPosto().length);
+    }
+
+    @Test
+    public void test_FasesDoCarregamento() throws IOException {
+        Corrida corrida = new Corrida(FICHEIROS[0], FICHEIROS[1], FICHEIROS[2]);
+        MetricasCarregamento metricas = corrida.getMetricasCarregamento();
+        assertArrayEquals(new Object[] { MetricasCarregamento.FASE_ATLETAS, MetricasCarregamento.FASE_INDICES,
+                MetricasCarregamento.FASE_REGISTO_PASSAGENS, MetricasCarregamento.FASE_ORDENACAO_POSTOS,
+                MetricasCarregamento.FASE_POSICOES_POSTOS, MetricasCarregamento.FASE_CLASSIFICACOES },
+                metricas.getNanosPorFase().keySet().toArray());
+        long total = 0;
+        for (long nanos : metricas.getNanosPorFase().values()) {
+            assertTrue(nanos > 0);
+            total += nanos;
+        }
+        assertEquals(total, metricas.getNanosTotal());
+        verificaContagens(corrida);
+    }
+
+    @Test
+    public void test_CarregamentoMapeadoEForaDoHeap() throws IOException {
+        OpcoesCarregamento opcoes = new OpcoesCarregamento();
+        opcoes.setMapeado(true);
+        opcoes.setForaDoHeap(true);
+        Corrida corrida = new Corrida(FICHEIROS[0], FICHEIROS[1], FICHEIROS[2], opcoes);
+        assertTrue(corrida.getMetricasCarregamento().getNanosPorFase()
+                .containsKey(MetricasCarregamento.FASE_FORA_DO_HEAP));
+        verificaContagens(corrida);
+    }
+
+    @Test
+    public void test_EventosJfr() throws IOException {
+        File gravacao = File.createTempFile("carregamento", ".jfr");
+        gravacao.deleteOnExit();
+        try (Recording recording = new Recording()) {
+            recording.enable("project.FaseCarregamento");
+            recording.start();
+            new Corrida(FICHEIROS[0], FICHEIROS[1], FICHEIROS[2]);
+            recording.stop();
+            recording.dump(gravacao.toPath());
+        }
+        List<RecordedEvent> eventos = RecordingFile.readAllEvents(gravacao.toPath());
+        assertEquals(6, eventos.size());
+        for (RecordedEvent evento : eventos) {
+            if (evento.getString("fase").equals(MetricasCarregamento.FASE_ATLETAS)) {
+                assertEquals(new File(FICHEIROS[0]).length(), evento.getLong("bytesLidos"));
+            }
+        }
+    }
+
+    @Test
+    public void test_MBean() throws IOException, JMException {
+        Corrida corrida = new Corrida(FICHEIROS[0], FICHEIROS[1], FICHEIROS[2]);
+        MetricasCarregamento metricas = corrida.getMetricasCarregamento();
+        ObjectName nome = metricas.registaMBean("UTMB_2023");
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(metricas.getPesquisasPorDorsal(), servidor.getAttribute(nome, "PesquisasPorDorsal"));
+            assertEquals(metricas.getNanosTotal(), servidor.getAttribute(nome, "NanosTotal"));
+        } finally {
+            servidor.unregisterMBean(nome);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import project.*;
+
+public class SeguidorRegistoPassagensTests {
+
+    private static File copiaRegistoPassagens() throws IOException {
+        File copia = File.createTempFile("progress", ".csv");
+        copia.deleteOnExit();
+        Files.copy(new File("input/UTMB_2023-progress.csv").toPath(), copia.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        return copia;
+    }
+
+    private static void acrescenta(File ficheiro, String texto) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(ficheiro, true)) {
+            out.write(texto.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // linha do ficheiro de progresso da atleta com o dorsal dado, com o tempo do
+    // posto indicado substituído
+    private static String linhaAlterada(int dorsal, int posto, String tempo) throws IOException {
+        List<String> linhas = Files.readAllLines(new File("input/UTMB_2023-progress.csv").toPath());
+        for (String linha : linhas) {
+            if (linha.startsWith(dorsal + ";")) {
+                String[] partes = linha.split(";", -1);
+                partes[posto + 3] = tempo;
+                return String.join(";", partes);
+            }
+        }
+        throw new IllegalArgumentException("Dorsal não encontrado: " + dorsal);
+    }
+
+    @Test
+    public void test_AplicaLinhasAcrescentadas() throws IOException {
+        File progresso = copiaRegistoPassagens();
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                progresso.getPath());
+        Atleta amandine = corrida.getAtletaPorIndice(195);
+        try (SeguidorRegistoPassagens seguidor = new SeguidorRegistoPassagens(progresso.getPath(), corrida, false)) {
+            assertEquals(0, seguidor.atualiza());
+
+            String linha = linhaAlterada(amandine.getDorsal(), 18, "Sun. 02:38");
+            acrescenta(progresso, linha.substring(0, 10));
+            assertEquals(0, seguidor.atualiza()); // linha ainda incompleta
+            assertEquals(6000, amandine.getTemposPassagem()[18]);
+
+            acrescenta(progresso, linha.substring(10) + "\n");
+            assertEquals(1, seguidor.atualiza());
+            assertEquals(32 * 60 + 38, amandine.getTemposPassagem()[18]);
+            assertEquals(1, corrida.getVersao());
+            assertEquals(progresso.length(), seguidor.getPosicao());
+
+            acrescenta(progresso, "99999;Ninguém;20-34M;.\nlixo\n");
+            assertEquals(0, seguidor.atualiza());
+            assertEquals(2, seguidor.getLinhasIgnoradas());
+        }
+    }
+
+    // reescreve no próprio ficheiro a primeira ocorrência de um texto por outro
+    // do mesmo tamanho e avança a data de modificação
+    private static void reescreve(File ficheiro, String antes, String depois) throws IOException {
+        String conteudo = new String(Files.readAllBytes(ficheiro.toPath()), StandardCharsets.UTF_8);
+        FileTime modificacao = Files.getLastModifiedTime(ficheiro.toPath());
+        try (RandomAccessFile out = new RandomAccessFile(ficheiro, "rw")) {
+            out.seek(conteudo.substring(0, conteudo.indexOf(antes)).getBytes(StandardCharsets.UTF_8).length);
+            out.write(depois.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.setLastModifiedTime(ficheiro.toPath(), FileTime.fromMillis(modificacao.toMillis() + 2000));
+    }
+
+    @Test
+    public void test_LinhasReescritas() throws IOException {
+        File progresso = copiaRegistoPassagens();
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                progresso.getPath());
+        Atleta jim = corrida.getAtletaPorDorsal(3);
+        Atleta ismael = corrida.getAtletaPorDorsal(2910);
+        int antesJim = jim.getTempoPassagem(1);
+        int antesIsmael = ismael.getTempoPassagem(1);
+        try (SeguidorRegistoPassagens seguidor = new SeguidorRegistoPassagens(progresso.getPath(), corrida, true)) {
+            seguidor.atualiza();
+            // uma passagem registada por outra via não é desfeita por linhas que
+            // não mudaram
+            Atleta amandine = corrida.getAtletaPorIndice(195);
+            corrida.registaPassagem(amandine.getDorsal(), 18, 32 * 60 + 38);
+
+            // uma linha a meio, sem o ficheiro crescer
+            reescreve(progresso, "3;Jim WALMSLEY;20-34M;Fri. 18:00;Fri. 19:08",
+                    "3;Jim WALMSLEY;20-34M;Fri. 18:00;Fri. 19:09");
+            assertEquals(1, seguidor.atualiza()); // só a linha reescrita é aplicada
+            assertEquals(32 * 60 + 38, amandine.getTempoPassagem(18));
+            assertEquals(antesJim + 1, jim.getTempoPassagem(1));
+            assertEquals(progresso.length(), seguidor.getPosicao());
+
+            // a última linha, com outra acrescentada
+            reescreve(progresso, "2910;Ismael BONVIN;40-44M;Fri. 18:00;Fri. 19:55",
+                    "2910;Ismael BONVIN;40-44M;Fri. 18:00;Fri. 19:56");
+            acrescenta(progresso, "lixo\n");
+            assertEquals(1, seguidor.atualiza());
+            assertEquals(1, seguidor.getLinhasIgnoradas());
+            assertEquals(antesIsmael + 1, ismael.getTempoPassagem(1));
+            assertEquals(antesJim + 1, jim.getTempoPassagem(1));
+            assertEquals(progresso.length(), seguidor.getPosicao());
+
+            // sem alterações, nada é aplicado
+            assertEquals(0, seguidor.atualiza());
+
+            // só a data de modificação muda: nenhuma linha é aplicada de novo
+            Files.setLastModifiedTime(progresso.toPath(),
+                    FileTime.fromMillis(progresso.lastModified() + 2000));
+            assertEquals(0, seguidor.atualiza());
+            assertEquals(1, seguidor.getLinhasIgnoradas());
+            assertEquals(antesJim + 1, jim.getTempoPassagem(1));
+        }
+    }
+
+    @Test
+    public void test_LinhaMaiorQueUmBloco() throws IOException {
+        File progresso = copiaRegistoPassagens();
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                progresso.getPath());
+        Atleta amandine = corrida.getAtletaPorIndice(195);
+        try (SeguidorRegistoPassagens seguidor = new SeguidorRegistoPassagens(progresso.getPath(), corrida, false)) {
+            // uma linha com mais de 64 KB, seguida de uma linha válida
+            acrescenta(progresso, "lixo;" + "x".repeat(200 * 1024) + "\n"
+                    + linhaAlterada(amandine.getDorsal(), 18, "Sun. 02:38") + "\n");
+            assertEquals(1, seguidor.atualiza());
+            assertEquals(1, seguidor.getLinhasIgnoradas());
+            assertEquals(32 * 60 + 38, amandine.getTemposPassagem()[18]);
+            assertEquals(progresso.length(), seguidor.getPosicao());
+        }
+    }
+
+    @Test
+    public void test_LerDesdeOInicioNaoAlteraCorridaJaCarregada() throws FileNotFoundException {
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        try (SeguidorRegistoPassagens seguidor = new SeguidorRegistoPassagens("input/UTMB_2023-progress.csv",
+                corrida, true)) {
+            // o seguidor associa as linhas por dorsal e o construtor por nome: só os
+            // dois atletas com o nome Oscar ANDERSSON (dorsais 459 e 1328) mudam
+            assertEquals(23 + 24, seguidor.atualiza());
+            assertEquals(0, seguidor.getLinhasIgnoradas());
+            assertEquals(new File("input/UTMB_2023-progress.csv").length(), seguidor.getPosicao());
+        }
+    }
+
+}
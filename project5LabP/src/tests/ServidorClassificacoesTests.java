@@ -0,0 +1,128 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import project.*;
+
+public class ServidorClassificacoesTests {
+
+    private static Corrida corrida;
+
+    static {
+        try {
+            corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                    "input/UTMB_2023-progress.csv");
+        } catch (FileNotFoundException e) {
+            System.err.println("Pelo menos 1 ficheiro de inicialização não foi encontrado.");
+            e.printStackTrace();
+            corrida = null;
+        }
+    }
+
+    private static HttpURLConnection pedido(ServidorClassificacoes servidor, String caminho) throws IOException {
+        URL url = new URL("http://localhost:" + servidor.getPorta() + caminho);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private static String corpo(HttpURLConnection ligacao) throws IOException {
+        InputStream in = ligacao.getResponseCode() < 400 ? ligacao.getInputStream() : ligacao.getErrorStream();
+        try (InputStream corpo = in) {
+            return new String(corpo.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void test_ClassificacaoGeralEmCache() throws IOException {
+        ServidorClassificacoes servidor = new ServidorClassificacoes(corrida, 0);
+        servidor.setLimite(3);
+        servidor.inicia();
+        try {
+            HttpURLConnection ligacao = pedido(servidor, "/classificacao");
+            assertEquals(200, ligacao.getResponseCode());
+            assertTrue(ligacao.getContentType().startsWith("application/json"));
+            String json = corpo(ligacao);
+            assertTrue(json.startsWith("[{\"posicao\":1,"));
+            assertEquals(3, json.split("\"dorsal\"").length - 1);
+
+            assertEquals(json, corpo(pedido(servidor, "/classificacao")));
+            assertEquals(1, servidor.getRespostasGeradas());
+
+            HttpURLConnection condicional = pedido(servidor, "/classificacao");
+            condicional.setRequestProperty("If-None-Match", ligacao.getHeaderField("ETag"));
+            assertEquals(304, condicional.getResponseCode());
+            assertEquals(1, servidor.getRespostasGeradas());
+
+            // com outro limite, a resposta anterior deixa de servir
+            servidor.setLimite(2);
+            HttpURLConnection depoisDoLimite = pedido(servidor, "/classificacao");
+            depoisDoLimite.setRequestProperty("If-None-Match", ligacao.getHeaderField("ETag"));
+            assertEquals(200, depoisDoLimite.getResponseCode());
+            assertEquals(2, corpo(depoisDoLimite).split("\"dorsal\"").length - 1);
+            assertEquals(2, servidor.getRespostasGeradas());
+        } finally {
+            servidor.termina();
+        }
+    }
+
+    @Test
+    public void test_PostoRegeneradoDepoisDeRegistarPassagem() throws IOException {
+        Corrida corrida = new Corrida("input/UTMB_2023-starters.csv", "input/UTMB_2023-final.csv",
+                "input/UTMB_2023-progress.csv");
+        ServidorClassificacoes servidor = new ServidorClassificacoes(corrida, 0);
+        servidor.setLimite(1);
+        servidor.inicia();
+        try {
+            Atleta primeiro = corrida.topKNoPosto(5, 1)[0];
+            String antes = corpo(pedido(servidor, "/postos/5"));
+            assertTrue(antes.contains("\"dorsal\":" + primeiro.getDorsal() + ","));
+
+            int outro = corrida.getAtletaPorIndice(1000).getDorsal();
+            corrida.registaPassagem(outro, 5, corrida.getTempoPassagemRegisto(5, 0) - 1);
+            String depois = corpo(pedido(servidor, "/postos/5"));
+            assertTrue(depois.contains("\"dorsal\":" + outro + ","));
+            assertEquals(2, servidor.getRespostasGeradas());
+        } finally {
+            servidor.termina();
+        }
+    }
+
+    @Test
+    public void test_EscaloesNacionalidadesEErros() throws IOException {
+        ServidorClassificacoes servidor = new ServidorClassificacoes(corrida, 0);
+        servidor.setLimite(5);
+        servidor.inicia();
+        try {
+            String escaloes = corpo(pedido(servidor, "/escaloes"));
+            String escalao = corrida.getEscaloes()[0];
+            assertTrue(escaloes.startsWith("[\"" + escalao + "\""));
+            String porEscalao = corpo(pedido(servidor, "/escaloes/" + escalao));
+            assertEquals(5, porEscalao.split("\"escalao\":\"" + escalao + "\"").length - 1);
+
+            String nacionalidade = corrida.getNacionalidades()[0];
+            HttpURLConnection ligacao = pedido(servidor,
+                    "/nacionalidades/" + URLEncoder.encode(nacionalidade, StandardCharsets.UTF_8).replace("+", "%20"));
+            assertEquals(200, ligacao.getResponseCode());
+            assertTrue(corpo(ligacao).contains("\"nacionalidade\":\"" + nacionalidade + "\""));
+
+            assertEquals(404, pedido(servidor, "/escaloes/inexistente").getResponseCode());
+            assertEquals(404, pedido(servidor, "/postos/999").getResponseCode());
+            assertEquals(400, pedido(servidor, "/postos/x").getResponseCode());
+            assertEquals(404, pedido(servidor, "/").getResponseCode());
+            HttpURLConnection post = pedido(servidor, "/classificacao");
+            post.setRequestMethod("POST");
+            assertEquals(405, post.getResponseCode());
+        } finally {
+            servidor.termina();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package tests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import project.*;
+
+public class TempoTests {
+
+    private static final int SEXTA = 5;
+    private static final int SABADO = 6;
+    private static final int DOMINGO = 7;
+
+    @Test
+    public void test_MinutosEmProvaIguaisAoConstrutor() {
+        assertEquals(new Tempo(2023, 9, 1, 18, 0, 0).getMinutosEmProva(), Tempo.minutosEmProva(SEXTA, 18, 0));
+        assertEquals(new Tempo(2023, 9, 2, 14, 21, 0).getMinutosEmProva(), Tempo.minutosEmProva(SABADO, 14, 21));
+        assertEquals(new Tempo(2023, 9, 3, 0, 5, 0).getMinutosEmProva(), Tempo.minutosEmProva(DOMINGO, 0, 5));
+    }
+
+    @Test
+    public void test_CalendarioComOutraDataDeInicio() {
+        CalendarioProva calendario = new CalendarioProva(2024, 8, 30, 18, 0); // também uma sexta-feira
+        assertEquals(0, calendario.minutosEmProva(SEXTA, 18, 0));
+        assertEquals(20 * 60 + 21, calendario.minutosEmProva(SABADO, 14, 21));
+        CalendarioProva domingo = new CalendarioProva(2024, 9, 1, 6, 0);
+        assertEquals(60, domingo.minutosEmProva(DOMINGO, 7, 0));
+        assertEquals(24 * 60, domingo.minutosEmProva(1, 6, 0)); // segunda-feira
+        assertEquals(60, domingo.minutosEmProva(0, 7, 0)); // dia desconhecido: dia da partida
+    }
+
+}